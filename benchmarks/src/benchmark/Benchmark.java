@@ -0,0 +1,69 @@
+package benchmark;
+
+/**
+ * A benchmarked operation, measured by {@link BenchmarkRunner} as the average time of one invocation of
+ * {@link #run()}.
+ *
+ * Fixtures are built once per trial, for every value of the size parameter. Operations consuming their fixture, such as
+ * deletions, prepare the inputs of each iteration in {@link #setUpIteration(int)}, which is not measured. Every hook may
+ * throw the checked exceptions of the repositories, which extend {@link Throwable}.
+ */
+public interface Benchmark {
+
+    /**
+     * Returns the name of the benchmark, reported as the benchmark identifier in the results.
+     *
+     * @return the name of the benchmark
+     */
+    String getName();
+
+    /**
+     * Returns the number of invocations of {@link #run()} measured together as one iteration.
+     *
+     * @return the number of operations per iteration
+     */
+    default int getOperationsPerIteration() {
+        return 1000;
+    }
+
+    /**
+     * Builds the fixture of a trial.
+     *
+     * @param size the size parameter of the trial, e.g. the number of users of the network
+     * @throws Throwable if the fixture cannot be built
+     */
+    void setUpTrial(int size) throws Throwable;
+
+    /**
+     * Prepares the inputs of the next iteration.
+     *
+     * @param operations the number of invocations of {@link #run()} in the iteration
+     * @throws Throwable if the inputs cannot be prepared
+     */
+    default void setUpIteration(int operations) throws Throwable {
+    }
+
+    /**
+     * Runs the benchmarked operation once.
+     *
+     * @return the result of the operation, consumed so that the operation cannot be optimized away
+     * @throws Throwable if the operation fails
+     */
+    Object run() throws Throwable;
+
+    /**
+     * Restores the fixture after an iteration, e.g. by waiting for background work the iteration started.
+     *
+     * @throws Throwable if the fixture cannot be restored
+     */
+    default void tearDownIteration() throws Throwable {
+    }
+
+    /**
+     * Releases the fixture of a trial.
+     *
+     * @throws Throwable if the fixture cannot be released
+     */
+    default void tearDownTrial() throws Throwable {
+    }
+}
@@ -0,0 +1,156 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Measurements of one benchmark trial: the average time per operation of every measured iteration, in microseconds.
+ *
+ * The score is the mean of the iterations and the error the half-width of its 99.9% confidence interval, as reported
+ * by JMH in average time mode, and {@link #toJson()} follows the layout of JMH JSON results, so runs can be compared
+ * with the usual JMH tooling.
+ */
+public class BenchmarkResult {
+
+    // Two-sided 99.9% quantiles of Student's t distribution for 1 to 30 degrees of freedom
+    private static final double[] T_QUANTILES = {
+            636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587, 4.437, 4.318, 4.221, 4.140,
+            4.073, 4.015, 3.965, 3.922, 3.883, 3.850, 3.819, 3.792, 3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659,
+            3.646
+    };
+
+    // Quantile of the normal distribution used beyond the tabulated degrees of freedom
+    private static final double Z_QUANTILE = 3.291;
+
+    private final String benchmark; // Name of the benchmark
+    private final Map<String, String> params; // Parameters of the trial
+    private final int warmupIterations; // Number of iterations run before measuring
+    private final double[] rawData; // Average time per operation of every measured iteration, in microseconds
+
+    /**
+     * Constructs a new BenchmarkResult.
+     *
+     * @param benchmark the name of the benchmark
+     * @param params the parameters of the trial
+     * @param warmupIterations the number of iterations run before measuring
+     * @param rawData the average time per operation of every measured iteration, in microseconds
+     */
+    public BenchmarkResult(String benchmark, Map<String, String> params, int warmupIterations, double[] rawData) {
+        this.benchmark = benchmark;
+        this.params = Map.copyOf(params);
+        this.warmupIterations = warmupIterations;
+        this.rawData = rawData.clone();
+    }
+
+    /**
+     * Returns the name of the benchmark.
+     *
+     * @return the name of the benchmark
+     */
+    public String getBenchmark() {
+        return benchmark;
+    }
+
+    /**
+     * Returns the parameters of the trial.
+     *
+     * @return the parameters, by name
+     */
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    /**
+     * Returns the mean time per operation over the measured iterations.
+     *
+     * @return the score, in microseconds per operation
+     */
+    public double getScore() {
+        return Arrays.stream(rawData).average().orElse(Double.NaN);
+    }
+
+    /**
+     * Returns the half-width of the 99.9% confidence interval of the score.
+     *
+     * @return the score error, in microseconds per operation, or {@code NaN} with a single iteration
+     */
+    public double getScoreError() {
+        int n = rawData.length;
+        if (n < 2) {
+            return Double.NaN;
+        }
+
+        double mean = getScore();
+        double squares = 0;
+        for (double value : rawData) {
+            squares += (value - mean) * (value - mean);
+        }
+        double deviation = Math.sqrt(squares / (n - 1));
+        double quantile = n - 1 <= T_QUANTILES.length ? T_QUANTILES[n - 2] : Z_QUANTILE;
+        return quantile * deviation / Math.sqrt(n);
+    }
+
+    /**
+     * Returns the result as a JSON object in the layout of JMH results.
+     *
+     * @return the JSON representation of the result
+     */
+    public String toJson() {
+        String paramsJson = params.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> quote(entry.getKey()) + ": " + quote(entry.getValue()))
+                .collect(Collectors.joining(", ", "{", "}"));
+        String rawJson = Arrays.stream(rawData)
+                .mapToObj(BenchmarkResult::number)
+                .collect(Collectors.joining(", ", "[[", "]]"));
+
+        return "{\n" +
+                "    \"benchmark\": " + quote(benchmark) + ",\n" +
+                "    \"mode\": \"avgt\",\n" +
+                "    \"threads\": 1,\n" +
+                "    \"forks\": 0,\n" +
+                "    \"jvm\": " + quote(System.getProperty("java.home")) + ",\n" +
+                "    \"jdkVersion\": " + quote(System.getProperty("java.version")) + ",\n" +
+                "    \"warmupIterations\": " + warmupIterations + ",\n" +
+                "    \"measurementIterations\": " + rawData.length + ",\n" +
+                "    \"params\": " + paramsJson + ",\n" +
+                "    \"primaryMetric\": {\n" +
+                "        \"score\": " + number(getScore()) + ",\n" +
+                "        \"scoreError\": " + number(getScoreError()) + ",\n" +
+                "        \"scoreUnit\": \"us/op\",\n" +
+                "        \"rawData\": " + rawJson + "\n" +
+                "    }\n" +
+                "}";
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%-45s %-14s %12.3f +- %10.3f us/op", benchmark, params, getScore(),
+                getScoreError());
+    }
+
+    private static String number(double value) {
+        return Double.isFinite(value) ? String.format(Locale.ROOT, "%.6f", value) : "\"NaN\"";
+    }
+
+    private static String quote(String value) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                default -> {
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
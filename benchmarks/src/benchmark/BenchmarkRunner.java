@@ -0,0 +1,118 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Command-line runner of the benchmark suite, printing a summary and writing the results as JMH-style JSON.
+ *
+ * Usage: {@code BenchmarkRunner [--sizes <N,...>] [--warmup <ITERATIONS>] [--iterations <ITERATIONS>]
+ * [--include <REGEX>] [--output <FILE>]}. Every benchmark whose name matches the include pattern runs one trial per
+ * size: its warmup iterations are discarded, then the average time per operation of each measured iteration is
+ * recorded. File benchmarks use scratch files in the local storage directory, so the runner is meant to be started
+ * from the project root.
+ */
+public class BenchmarkRunner {
+
+    private static final String DEFAULT_SIZES = "1000,10000,100000";
+    private static final int DEFAULT_WARMUP_ITERATIONS = 3;
+    private static final int DEFAULT_MEASUREMENT_ITERATIONS = 5;
+    private static final String DEFAULT_OUTPUT = "benchmark-results.json";
+
+    // Accumulates the results of benchmarked operations, so that the JIT cannot eliminate them
+    private static int sink;
+
+    public static void main(String[] args) throws Throwable {
+        Map<String, String> options = parseOptions(args);
+        int[] sizes = Arrays.stream(options.getOrDefault("sizes", DEFAULT_SIZES).split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        int warmupIterations = Integer.parseInt(options.getOrDefault("warmup",
+                String.valueOf(DEFAULT_WARMUP_ITERATIONS)));
+        int measurementIterations = Integer.parseInt(options.getOrDefault("iterations",
+                String.valueOf(DEFAULT_MEASUREMENT_ITERATIONS)));
+        Pattern include = Pattern.compile(options.getOrDefault("include", ".*"));
+        Path output = Path.of(options.getOrDefault("output", DEFAULT_OUTPUT));
+
+        List<Benchmark> benchmarks = new ArrayList<>();
+        benchmarks.addAll(RepositoryBenchmarks.all());
+        benchmarks.addAll(FileRepositoryBenchmarks.all());
+        benchmarks.addAll(NetworkBenchmarks.all());
+
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (Benchmark benchmark : benchmarks) {
+            if (!include.matcher(benchmark.getName()).find()) {
+                continue;
+            }
+            for (int size : sizes) {
+                BenchmarkResult result = runTrial(benchmark, size, warmupIterations, measurementIterations);
+                System.out.println("[INFO] " + result);
+                results.add(result);
+            }
+        }
+
+        Files.writeString(output, results.stream()
+                .map(BenchmarkResult::toJson)
+                .collect(Collectors.joining(",\n", "[\n", "\n]\n")));
+        System.out.println("[INFO] Wrote " + results.size() + " results to " + output + " (" + sink + ")");
+    }
+
+    private static BenchmarkResult runTrial(Benchmark benchmark, int size, int warmupIterations,
+                                            int measurementIterations) throws Throwable {
+        benchmark.setUpTrial(size);
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                runIteration(benchmark);
+            }
+            double[] rawData = new double[measurementIterations];
+            for (int i = 0; i < measurementIterations; i++) {
+                rawData[i] = runIteration(benchmark);
+            }
+            return new BenchmarkResult(benchmark.getName(), Map.of("size", String.valueOf(size)), warmupIterations,
+                    rawData);
+        } finally {
+            benchmark.tearDownTrial();
+        }
+    }
+
+    /**
+     * Runs one iteration of the benchmark.
+     *
+     * @return the average time per operation, in microseconds
+     */
+    private static double runIteration(Benchmark benchmark) throws Throwable {
+        int operations = benchmark.getOperationsPerIteration();
+        benchmark.setUpIteration(operations);
+
+        int consumed = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            consumed += System.identityHashCode(benchmark.run());
+        }
+        long elapsed = System.nanoTime() - start;
+
+        sink += consumed;
+        benchmark.tearDownIteration();
+        return elapsed / 1_000.0 / operations;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Invalid option '" + args[i] + "'");
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
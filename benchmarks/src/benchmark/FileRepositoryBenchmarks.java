@@ -0,0 +1,145 @@
+package benchmark;
+
+import models.User;
+import models.validators.UserValidator;
+import repository.DurabilityPolicy;
+import repository.SnapshotFormat;
+import repository.UserFileRepository;
+import utils.Config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks of {@link repository.AbstractFileRepository} startup loads and persisted mutations, run on scratch files
+ * in the local storage directory that are removed after each trial.
+ */
+public class FileRepositoryBenchmarks {
+
+    private static final String BENCHMARK_STORAGE = "benchmarkUserData";
+
+    private FileRepositoryBenchmarks() {
+    }
+
+    /**
+     * Returns every file repository benchmark.
+     *
+     * @return the benchmarks
+     */
+    public static List<Benchmark> all() {
+        return List.of(new Load(), new Save(DurabilityPolicy.COMMIT), new Save(DurabilityPolicy.INTERVAL));
+    }
+
+    private static UserFileRepository open(DurabilityPolicy policy) throws IOException {
+        Files.createDirectories(Path.of(Config.DEFAULT_LOCAL_STORAGE_PATH));
+        return new UserFileRepository(BENCHMARK_STORAGE, new UserValidator(), SnapshotFormat.CSV, policy);
+    }
+
+    private static List<User> newUsers(String prefix, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(new User("Bench", "User", "password", prefix + i + "@example.com"));
+        }
+        return users;
+    }
+
+    private static void deleteStorageFiles() throws IOException {
+        for (String suffix : List.of(".csv", ".csv.crc", ".csv.tmp", ".bin", ".log", ".log.compacting")) {
+            Files.deleteIfExists(Path.of(Config.DEFAULT_LOCAL_STORAGE_PATH, BENCHMARK_STORAGE + suffix));
+        }
+    }
+
+    /**
+     * Loads a repository from a CSV snapshot of {@code size} users, with a matching checksum and an empty journal.
+     */
+    private static class Load implements Benchmark {
+
+        @Override
+        public String getName() {
+            return "AbstractFileRepository.load";
+        }
+
+        @Override
+        public int getOperationsPerIteration() {
+            return 3;
+        }
+
+        @Override
+        public void setUpTrial(int size) throws IOException {
+            deleteStorageFiles();
+            UserFileRepository repository = open(DurabilityPolicy.COMMIT);
+            repository.saveAll(newUsers("preloaded", size));
+            repository.exportSnapshot(SnapshotFormat.CSV);
+            repository.close();
+            Files.deleteIfExists(Path.of(Config.DEFAULT_LOCAL_STORAGE_PATH, BENCHMARK_STORAGE + ".log"));
+        }
+
+        @Override
+        public Object run() throws IOException {
+            UserFileRepository repository = open(DurabilityPolicy.COMMIT);
+            repository.close();
+            return repository;
+        }
+
+        @Override
+        public void tearDownTrial() throws IOException {
+            deleteStorageFiles();
+        }
+    }
+
+    /**
+     * Saves new users in a journaled repository already holding {@code size} users, with the given durability policy.
+     * Under a write-behind policy the measured time is the latency seen by callers; the background sync of each
+     * iteration completes before the next one starts.
+     */
+    private static class Save implements Benchmark {
+
+        private final DurabilityPolicy policy;
+        private UserFileRepository repository;
+        private List<User> pending;
+        private int next;
+        private int iteration;
+
+        Save(DurabilityPolicy policy) {
+            this.policy = policy;
+        }
+
+        @Override
+        public String getName() {
+            return "AbstractFileRepository.save:" + policy.name().toLowerCase();
+        }
+
+        @Override
+        public void setUpTrial(int size) throws IOException {
+            deleteStorageFiles();
+            repository = open(policy);
+            repository.saveAll(newUsers("preloaded", size));
+            repository.awaitDurable();
+        }
+
+        @Override
+        public void setUpIteration(int operations) {
+            pending = newUsers("iteration" + iteration++ + "-", operations);
+            next = 0;
+        }
+
+        @Override
+        public Object run() throws Throwable {
+            return repository.save(pending.get(next++));
+        }
+
+        @Override
+        public void tearDownIteration() {
+            repository.awaitDurable();
+        }
+
+        @Override
+        public void tearDownTrial() throws IOException {
+            repository.close();
+            deleteStorageFiles();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package benchmark;
+
+import models.User;
+import service.Network;
+
+import java.util.List;
+
+/**
+ * Benchmarks of {@link Network} queries and mutations on an in-memory {@link NetworkFixture} of {@code size} users.
+ */
+public class NetworkBenchmarks {
+
+    private NetworkBenchmarks() {
+    }
+
+    /**
+     * Returns every network benchmark.
+     *
+     * @return the benchmarks
+     */
+    public static List<Benchmark> all() {
+        return List.of(new GetFriendsOfUser(), new SendFriendRequest(), new DeleteUser());
+    }
+
+    /**
+     * Resolves the friends of random users.
+     */
+    private static class GetFriendsOfUser implements Benchmark {
+
+        private NetworkFixture fixture;
+
+        @Override
+        public String getName() {
+            return "Network.getFriendsOfUser";
+        }
+
+        @Override
+        public int getOperationsPerIteration() {
+            return 10_000;
+        }
+
+        @Override
+        public void setUpTrial(int size) {
+            fixture = new NetworkFixture(size);
+        }
+
+        @Override
+        public Object run() {
+            Iterable<User> friends = fixture.getNetwork().getFriendsOfUser(fixture.randomUserId());
+            return friends.iterator().hasNext();
+        }
+    }
+
+    /**
+     * Sends friend requests from new users to random users; the new users and their requests are deleted after each
+     * iteration, so the network keeps its trial size.
+     */
+    private static class SendFriendRequest implements Benchmark {
+
+        private NetworkFixture fixture;
+        private List<String> senders;
+        private int next;
+
+        @Override
+        public String getName() {
+            return "Network.sendFriendRequest";
+        }
+
+        @Override
+        public void setUpTrial(int size) {
+            fixture = new NetworkFixture(size);
+        }
+
+        @Override
+        public void setUpIteration(int operations) {
+            senders = fixture.addUsers(operations);
+            next = 0;
+        }
+
+        @Override
+        public Object run() {
+            fixture.getNetwork().sendFriendRequest(senders.get(next++), fixture.randomUserId());
+            return next;
+        }
+
+        @Override
+        public void tearDownIteration() throws Throwable {
+            for (String sender : senders) {
+                fixture.getNetwork().deleteUser(sender);
+            }
+        }
+    }
+
+    /**
+     * Deletes users having {@value NetworkFixture#AVERAGE_DEGREE} friendships each, added before every iteration.
+     */
+    private static class DeleteUser implements Benchmark {
+
+        private NetworkFixture fixture;
+        private List<String> victims;
+        private int next;
+
+        @Override
+        public String getName() {
+            return "Network.deleteUser";
+        }
+
+        @Override
+        public void setUpTrial(int size) {
+            fixture = new NetworkFixture(size);
+        }
+
+        @Override
+        public void setUpIteration(int operations) {
+            victims = fixture.addConnectedUsers(operations);
+            next = 0;
+        }
+
+        @Override
+        public Object run() throws Throwable {
+            return fixture.getNetwork().deleteUser(victims.get(next++));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package benchmark;
+
+import models.Friendship;
+import models.User;
+import models.validators.FriendshipValidator;
+import models.validators.UserValidator;
+import repository.BatchResult;
+import repository.InMemoryRepository;
+import repository.InMemoryUserRepository;
+import service.FriendshipService;
+import service.Network;
+import service.UserService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * In-memory network of a given number of users, each befriended with {@value #AVERAGE_DEGREE} random users on average,
+ * generated from a fixed seed so that every run benchmarks the same graph.
+ */
+public class NetworkFixture {
+
+    // Average number of friends per user
+    public static final int AVERAGE_DEGREE = 8;
+
+    private static final long SEED = 42;
+
+    private final UserService userService;
+    private final FriendshipService friendshipService;
+    private final Network network;
+    private final List<String> userIds; // Identifiers of the generated users
+    private final SplittableRandom random;
+    private long createdUsers; // Number of users created so far, used to keep emails unique
+
+    /**
+     * Builds a new network of the specified size.
+     *
+     * @param size the number of users of the network
+     */
+    public NetworkFixture(int size) {
+        InMemoryUserRepository userRepository = new InMemoryUserRepository(new UserValidator());
+        this.userService = new UserService(userRepository);
+        this.friendshipService = new FriendshipService(
+                new InMemoryRepository<>(new FriendshipValidator(userRepository)));
+        this.random = new SplittableRandom(SEED);
+
+        this.userIds = new ArrayList<>(size);
+        for (User user : userService.saveAll(newUsers(size)).getSucceeded()) {
+            userIds.add(user.getId());
+        }
+
+        List<Friendship> friendships = new ArrayList<>(size * AVERAGE_DEGREE);
+        for (int i = 0; i < size * AVERAGE_DEGREE / 2; i++) {
+            String uid1 = userIds.get(random.nextInt(size));
+            String uid2 = userIds.get(random.nextInt(size));
+            if (!uid1.equals(uid2)) {
+                friendships.add(accepted(uid1, uid2));
+                friendships.add(accepted(uid2, uid1));
+            }
+        }
+        friendshipService.saveAll(friendships);
+
+        this.network = Network.create(userService, friendshipService);
+    }
+
+    /**
+     * Returns the network.
+     *
+     * @return the network
+     */
+    public Network getNetwork() {
+        return network;
+    }
+
+    /**
+     * Returns the identifier of a random user of the initial network.
+     *
+     * @return a random user identifier
+     */
+    public String randomUserId() {
+        return userIds.get(random.nextInt(userIds.size()));
+    }
+
+    /**
+     * Adds new users to the network, without any friendship.
+     *
+     * @param count the number of users to be added
+     * @return the identifiers of the added users
+     */
+    public List<String> addUsers(int count) {
+        BatchResult<User, User> result = userService.saveAll(newUsers(count));
+        return result.getSucceeded().stream().map(User::getId).toList();
+    }
+
+    /**
+     * Adds new users to the network, each befriended with {@value #AVERAGE_DEGREE} random users of the initial
+     * network.
+     *
+     * @param count the number of users to be added
+     * @return the identifiers of the added users
+     */
+    public List<String> addConnectedUsers(int count) {
+        List<String> added = addUsers(count);
+        List<Friendship> friendships = new ArrayList<>(count * AVERAGE_DEGREE * 2);
+        for (String uid : added) {
+            for (int i = 0; i < AVERAGE_DEGREE; i++) {
+                String friendId = randomUserId();
+                friendships.add(accepted(uid, friendId));
+                friendships.add(accepted(friendId, uid));
+            }
+        }
+        friendshipService.saveAll(friendships);
+        return added;
+    }
+
+    private List<User> newUsers(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(new User("Bench", "User", "password", "user" + createdUsers++ + "@example.com"));
+        }
+        return users;
+    }
+
+    private static Friendship accepted(String senderId, String receiverId) {
+        Friendship friendship = new Friendship(senderId, receiverId);
+        friendship.setPending(false);
+        return friendship;
+    }
+}
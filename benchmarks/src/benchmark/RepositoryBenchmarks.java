@@ -0,0 +1,107 @@
+package benchmark;
+
+import models.User;
+import models.validators.UserValidator;
+import repository.InMemoryUserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmarks of {@link repository.InMemoryRepository} lookups and insertions.
+ */
+public class RepositoryBenchmarks {
+
+    private RepositoryBenchmarks() {
+    }
+
+    /**
+     * Returns every repository benchmark.
+     *
+     * @return the benchmarks
+     */
+    public static List<Benchmark> all() {
+        return List.of(new Save(), new FindOne());
+    }
+
+    private static List<User> newUsers(String prefix, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(new User("Bench", "User", "password", prefix + i + "@example.com"));
+        }
+        return users;
+    }
+
+    /**
+     * Saves new users in a repository already holding {@code size} users.
+     */
+    private static class Save implements Benchmark {
+
+        private InMemoryUserRepository repository;
+        private List<User> pending;
+        private int next;
+        private int iteration;
+
+        @Override
+        public String getName() {
+            return "InMemoryRepository.save";
+        }
+
+        @Override
+        public void setUpTrial(int size) {
+            repository = new InMemoryUserRepository(new UserValidator());
+            repository.saveAll(newUsers("preloaded", size));
+        }
+
+        @Override
+        public void setUpIteration(int operations) {
+            pending = newUsers("iteration" + iteration++ + "-", operations);
+            next = 0;
+        }
+
+        @Override
+        public Object run() throws Throwable {
+            return repository.save(pending.get(next++));
+        }
+
+        @Override
+        public void tearDownIteration() {
+            // Keep the repository at its trial size
+            repository.deleteAll(pending.stream().map(User::getId).toList());
+        }
+    }
+
+    /**
+     * Looks up random users by identifier in a repository holding {@code size} users.
+     */
+    private static class FindOne implements Benchmark {
+
+        private InMemoryUserRepository repository;
+        private String[] ids;
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        @Override
+        public String getName() {
+            return "InMemoryRepository.findOne";
+        }
+
+        @Override
+        public int getOperationsPerIteration() {
+            return 100_000;
+        }
+
+        @Override
+        public void setUpTrial(int size) {
+            repository = new InMemoryUserRepository(new UserValidator());
+            ids = repository.saveAll(newUsers("preloaded", size)).getSucceeded().stream()
+                    .map(User::getId)
+                    .toArray(String[]::new);
+        }
+
+        @Override
+        public Object run() {
+            return repository.findOne(ids[random.nextInt(ids.length)]);
+        }
+    }
+}
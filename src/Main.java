@@ -6,6 +6,8 @@ import models.validators.Validator;
 import repository.FriendshipFileRepository;
 import repository.Repository;
 import repository.UserFileRepository;
+import repository.UserRepository;
+import service.Community;
 import service.FriendshipService;
 import service.Network;
 import ui.SocialNetworkApplication;
@@ -19,16 +21,18 @@ public class Main {
 
     public static void main(String[] args) throws IOException {
         Validator<User> userValidator = new UserValidator();
-        Repository<String, User> userRepository = new UserFileRepository(Config.DEFAULT_LOCAL_USER_STORAGE, userValidator);
+        UserRepository userRepository = new UserFileRepository(Config.DEFAULT_LOCAL_USER_STORAGE, userValidator);
         Service<String, User> userService = new UserService(userRepository);
 
         Validator<Friendship> friendshipValidator = new FriendshipValidator(userRepository);
         Repository<String, Friendship> friendshipRepository = new FriendshipFileRepository(Config.DEFAULT_LOCAL_FRIENDSHIP_STORAGE, friendshipValidator);
-        Service<String, Friendship> friendshipService = new FriendshipService(friendshipRepository);
+        FriendshipService friendshipService = new FriendshipService(friendshipRepository);
 
-        Network network = new Network(userService, friendshipService);
+        Network network = Network.create(userService, friendshipService);
 
-        SocialNetworkApplication socialNetwork = new SocialNetworkApplication(network);
+        Community community = new Community(network);
+
+        SocialNetworkApplication socialNetwork = new SocialNetworkApplication(network, community);
         socialNetwork.runApplication();
     }
 }
\ No newline at end of file
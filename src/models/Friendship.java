@@ -30,6 +30,28 @@ public class Friendship extends Entity<String> {
         this.pending = true;
     }
 
+    private Friendship(String id, String uid1, String uid2, LocalDateTime date, boolean pending) {
+        this.id = id;
+        this.uid1 = uid1;
+        this.uid2 = uid2;
+        this.date = date;
+        this.pending = pending;
+    }
+
+    /**
+     * Recreates a stored {@code Friendship} from its fields, without generating an identifier.
+     *
+     * @param id the identifier of the friendship
+     * @param uid1 the identifier of the sender user
+     * @param uid2 the identifier of the receiver user
+     * @param date the request date
+     * @param pending the pending state of the request
+     * @return the restored friendship
+     */
+    public static Friendship restore(String id, String uid1, String uid2, LocalDateTime date, boolean pending) {
+        return new Friendship(id, uid1, uid2, date, pending);
+    }
+
     /**
      * Returns the sender's identifier.
      *
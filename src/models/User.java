@@ -33,6 +33,28 @@ public class User extends Entity<String> {
         this.email = email;
     }
 
+    private User(String id, String firstName, String lastName, String password, String email) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.password = password;
+        this.email = email;
+    }
+
+    /**
+     * Recreates a stored {@code User} from its fields, without generating an identifier or hashing the password again.
+     *
+     * @param id the identifier of the user
+     * @param firstName the first name of the user
+     * @param lastName the last name of the user
+     * @param hashedPassword the already hashed password of the user
+     * @param email the email of the user
+     * @return the restored user
+     */
+    public static User restore(String id, String firstName, String lastName, String hashedPassword, String email) {
+        return new User(id, firstName, lastName, hashedPassword, email);
+    }
+
     /**
      * Returns the first name of the user.
      *
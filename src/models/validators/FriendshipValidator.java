@@ -40,14 +40,7 @@ public class FriendshipValidator implements Validator<Friendship> {
      */
     @Override
     public void validate(@NotNull Friendship friendship) throws ValidationException {
-        // Retrieve sender and receiver from the user repository
-        Optional<User> sender = userRepository.findOne(friendship.getSenderId());
-        Optional<User> receiver = userRepository.findOne(friendship.getReceiverId());
-
-        // Check if either the sender or receiver does not exist in the network
-        if (sender.isEmpty() || receiver.isEmpty()) {
-            throw new ValidationException("Sender or Receiver does not exist in the system");
-        }
+        validateReferences(friendship);
 
         // Check if neither the sender nor receiver identifier is null
         if (friendship.getSenderId() == null || friendship.getReceiverId() == null) {
@@ -59,4 +52,22 @@ public class FriendshipValidator implements Validator<Friendship> {
             throw new ValidationException("Sender and Receiver must not be the same");
         }
     }
+
+    /**
+     * Validates that both sender and receiver of the provided {@link Friendship} exist in the network.
+     *
+     * @param friendship the entity whose references are validated
+     * @throws ValidationException if the sender or the receiver does not exist
+     */
+    @Override
+    public void validateReferences(@NotNull Friendship friendship) throws ValidationException {
+        // Retrieve sender and receiver from the user repository
+        Optional<User> sender = userRepository.findOne(friendship.getSenderId());
+        Optional<User> receiver = userRepository.findOne(friendship.getReceiverId());
+
+        // Check if either the sender or receiver does not exist in the network
+        if (sender.isEmpty() || receiver.isEmpty()) {
+            throw new ValidationException("Sender or Receiver does not exist in the system");
+        }
+    }
 }
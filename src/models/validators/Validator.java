@@ -23,4 +23,16 @@ public interface Validator<T> {
      * @throws ValidationException if the entity fails to meet the validation criteria
      */
     void validate(T entity) throws ValidationException;
+
+    /**
+     * Validates only the references of the given entity to other entities (e.g. that related entities exist).
+     *
+     * This check is meant for data that was already validated when persisted, where only references may have become
+     * stale. By default, entities have no references to validate.
+     *
+     * @param entity the entity whose references are validated
+     * @throws ValidationException if the entity references entities that do not exist
+     */
+    default void validateReferences(T entity) throws ValidationException {
+    }
 }
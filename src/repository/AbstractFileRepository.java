@@ -1,13 +1,29 @@
 package repository;
 
 import exceptions.EntityAlreadyExistsException;
-import exceptions.EntityNotFoundException;
+import exceptions.ValidationException;
 import models.Entity;
 import models.validators.Validator;
+import repository.binary.BinarySnapshot;
+import repository.binary.SnapshotCodec;
 import utils.Config;
 
 import java.io.*;
-import java.util.Optional;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 import java.nio.file.Paths;
@@ -16,27 +32,179 @@ import java.nio.file.Paths;
  * Abstract class for file-based repositories (in-memory/locally), providing CRUD (Create, Read, Update, Delete)
  * operations on entities from the specified file, while persisting data in file.
  *
+ * In journaled mode, every mutation appends a single record to a log file next to the snapshot file instead of
+ * rewriting the snapshot. On startup the log is replayed over the last snapshot, and a background compactor folds the
+ * log into a new snapshot once it grows past {@link Config#DEFAULT_JOURNAL_COMPACTION_RATIO} of the snapshot size.
+ *
+ * Every snapshot is written together with a checksum file. When the checksum of a snapshot matches at startup, its
+ * rows are bulk-loaded without per-row validation or duplicate scanning, and only references to other entities are
+ * verified in a single pass at the end of the load.
+ *
+ * Snapshots are written either as CSV or, when {@link SnapshotFormat#BINARY} is selected, as memory-mapped binary
+ * files decoded record by record without text tokenizing.
+ *
+ * The changes of a {@link UnitOfWork} are journaled as a block enclosed by a transaction and a commit record, written
+ * and flushed at once; a block whose commit record is missing after a crash is discarded on replay.
+ *
+ * All file writes go through a single {@link PersistenceWriter} thread: mutations are enqueued while their locks are
+ * held, so records of the same entity reach the file in mutation order. When they are flushed and synced to disk
+ * depends on the {@link DurabilityPolicy}: under {@link DurabilityPolicy#COMMIT} the mutating thread waits, without
+ * holding any lock, until its record is synced, together with concurrent mutations; under the write-behind policies it
+ * returns immediately and the records are synced in the background, or as soon as someone calls
+ * {@link #awaitDurable()}. Readers never wait for persistence. {@link #close()} drains the pending records.
+ *
  * @param <ID> the type of the entity's identifier
  * @param <E> the type of the entity, which must extend {@link Entity<ID>}
  */
-public abstract class AbstractFileRepository<ID, E extends Entity<ID>> extends InMemoryRepository<ID, E> {
+public abstract class AbstractFileRepository<ID, E extends Entity<ID>> extends InMemoryRepository<ID, E>
+        implements AutoCloseable {
+
+    // Journal record prefix for an inserted or updated entity
+    private static final String PUT_RECORD = "P";
+
+    // Journal record prefix for a deleted entity
+    private static final String DELETE_RECORD = "D";
+
+    // Journal record opening the records of a committed unit of work
+    private static final String TRANSACTION_RECORD = "T";
+
+    // Journal record closing the records of a committed unit of work
+    private static final String COMMIT_RECORD = "C";
 
     // The full path of the file used for data persistence
     private final String filePath;
 
+    // The full path of the binary snapshot file
+    private final String binaryPath;
+
+    // The format in which snapshots are loaded and written
+    private final SnapshotFormat snapshotFormat;
+
+    // The full path of the file holding the row count and checksum of the last snapshot
+    private final String checksumPath;
+
+    // The full path of the journal file, holding mutations applied after the last snapshot
+    private final String journalPath;
+
+    // The full path of the journal file currently being folded into a new snapshot
+    private final String compactingJournalPath;
+
+    // Whether mutations are appended to the journal instead of rewriting the whole file
+    private final boolean journaled;
+
+    // Writer appending records to the journal file, opened only in journaled mode and used on the persistence writer
+    private BufferedWriter journalWriter;
+
+    // Stream underlying the journal writer, used to sync the journal to disk on the persistence writer
+    private FileOutputStream journalStream;
+
+    // Number of records in the current journal file, used on the persistence writer
+    private long journalRecords;
+
+    // Length of the current journal file and number of its records as of the last sync, the point a failed append
+    // rolls back to; used on the persistence writer
+    private long journalSyncedLength;
+    private long journalSyncedRecords;
+
+    // Number of records in the last snapshot
+    private volatile long snapshotRecords;
+
+    // Whether the snapshot must be rewritten at the next flush in non-journaled mode, used on the persistence writer
+    private boolean snapshotDirty;
+
+    // Background thread performing every file write, created once the startup load is complete
+    private final PersistenceWriter writer;
+
+    // Serializes snapshot writes of the persistence writer and the compactor, which share the temporary file
+    private final Object snapshotLock = new Object();
+
+    // Background worker running journal compactions
+    private final ExecutorService compactor;
+
+    // Whether a compaction is currently running
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
+
+    // Whether the snapshot checksum matched at startup and per-row validation was skipped
+    private boolean trustedSnapshot;
+
+    // Summary of the startup load
+    private final LoadReport loadReport;
+
     // Predefined Logger for error reporting across application
     private static final Logger LOGGER = Logger.getLogger(AbstractFileRepository.class.getName());
 
     /**
-     * Constructs a new AbstractFileRepository with the specified file name and validator.
+     * Constructs a new AbstractFileRepository with the specified file name and validator, using the default
+     * persistence mode from {@link Config#DEFAULT_JOURNAL_ENABLED} and the default snapshot format from
+     * {@link Config#DEFAULT_BINARY_SNAPSHOT_ENABLED}.
      *
      * @param fileName the name of the file used for data persistence
      * @param validator the validator used to validate the entities
      * @throws IOException if an error occurs while performing reading/writing operations on file
      */
     public AbstractFileRepository(String fileName, Validator<E> validator) throws IOException {
-        super(validator);
+        this(fileName, validator, Config.DEFAULT_JOURNAL_ENABLED, SnapshotFormat.defaultFormat());
+    }
+
+    /**
+     * Constructs a new AbstractFileRepository with the specified file name, validator, persistence mode and snapshot
+     * format.
+     *
+     * @param fileName the name of the file used for data persistence
+     * @param validator the validator used to validate the entities
+     * @param journaled {@code true} to append mutations to a journal, {@code false} to rewrite the file on every
+     *                  mutation
+     * @param snapshotFormat the format in which snapshots are loaded and written
+     * @throws IOException if an error occurs while performing reading/writing operations on file
+     */
+    public AbstractFileRepository(String fileName, Validator<E> validator, boolean journaled,
+                                  SnapshotFormat snapshotFormat) throws IOException {
+        this(fileName, validator, journaled, snapshotFormat, DurabilityPolicy.defaultPolicy());
+    }
+
+    /**
+     * Constructs a new AbstractFileRepository with the specified file name, validator, persistence mode, snapshot
+     * format and durability policy.
+     *
+     * @param fileName the name of the file used for data persistence
+     * @param validator the validator used to validate the entities
+     * @param journaled {@code true} to append mutations to a journal, {@code false} to rewrite the file on every
+     *                  mutation
+     * @param snapshotFormat the format in which snapshots are loaded and written
+     * @param durabilityPolicy the policy deciding when mutations are synced to disk
+     * @throws IOException if an error occurs while performing reading/writing operations on file
+     */
+    public AbstractFileRepository(String fileName, Validator<E> validator, boolean journaled,
+                                  SnapshotFormat snapshotFormat, DurabilityPolicy durabilityPolicy)
+            throws IOException {
+        this(fileName, validator, journaled, snapshotFormat, durabilityPolicy, List.of());
+    }
+
+    /**
+     * Constructs a new AbstractFileRepository with the specified file name, validator, persistence mode, snapshot
+     * format, durability policy and unique secondary indexes. The indexes are registered before the files are loaded,
+     * so rows conflicting on them are rejected like any other invalid row.
+     *
+     * @param fileName the name of the file used for data persistence
+     * @param validator the validator used to validate the entities
+     * @param journaled {@code true} to append mutations to a journal, {@code false} to rewrite the file on every
+     *                  mutation
+     * @param snapshotFormat the format in which snapshots are loaded and written
+     * @param durabilityPolicy the policy deciding when mutations are synced to disk
+     * @param uniqueIndexes the unique indexes to be kept in sync with the storage
+     * @throws IOException if an error occurs while performing reading/writing operations on file
+     */
+    public AbstractFileRepository(String fileName, Validator<E> validator, boolean journaled,
+                                  SnapshotFormat snapshotFormat, DurabilityPolicy durabilityPolicy,
+                                  List<? extends UniqueIndex<?, ID, E>> uniqueIndexes) throws IOException {
+        super(validator, uniqueIndexes);
         this.filePath = Paths.get(Config.DEFAULT_LOCAL_STORAGE_PATH, fileName + ".csv").toString();
+        this.binaryPath = Paths.get(Config.DEFAULT_LOCAL_STORAGE_PATH, fileName + ".bin").toString();
+        this.snapshotFormat = snapshotFormat;
+        this.checksumPath = filePath + ".crc";
+        this.journalPath = Paths.get(Config.DEFAULT_LOCAL_STORAGE_PATH, fileName + ".log").toString();
+        this.compactingJournalPath = journalPath + ".compacting";
+        this.journaled = journaled;
 
         // Create new file if it does not exist
         File file = new File(filePath);
@@ -44,111 +212,788 @@ public abstract class AbstractFileRepository<ID, E extends Entity<ID>> extends I
             file.createNewFile();
         }
 
-        loadDataFromFile();
+        long start = System.nanoTime();
+        String source = filePath;
+        int rejectedRows;
+        if (snapshotFormat == SnapshotFormat.BINARY && Files.exists(Path.of(binaryPath))) {
+            source = binaryPath;
+            rejectedRows = loadDataFromBinaryFile();
+        } else {
+            rejectedRows = loadDataFromFile();
+        }
+
+        long replayedRecords = 0;
+        if (journaled) {
+            replayedRecords += replayJournal(compactingJournalPath);
+            journalRecords = replayJournal(journalPath);
+            replayedRecords += journalRecords;
+            openJournal();
+            compactor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-compactor-" + fileName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            compactor = null;
+        }
+        writer = new PersistenceWriter(fileName, this::flush, durabilityPolicy,
+                Config.DEFAULT_DURABILITY_INTERVAL_MILLIS, Config.DEFAULT_DURABILITY_MUTATIONS).start();
+
+        rejectedRows += removeDanglingReferences();
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        loadReport = new LoadReport(source, (int) snapshotRecords, replayedRecords, rejectedRows, trustedSnapshot,
+                elapsedMillis);
+        LOGGER.log(Level.INFO, loadReport.toString());
+    }
+
+    /**
+     * Returns the summary of the startup load of the repository.
+     *
+     * @return the load report
+     */
+    public LoadReport getLoadReport() {
+        return loadReport;
     }
 
     /**
      * Loads data from the specified file if exists, otherwise creates it, and populates the repository.
-     * This method reads each line/record from the file, converts it to an entity, and stores it in the in-memory/local
-     * collection.
+     * This method parses the records of the file in parallel with {@link ParallelCsvReader}, converts each to an
+     * entity, and computes the checksum of the file in the same pass. If the checksum matches the one recorded with the
+     * snapshot, the entities are stored directly, with only their identifiers and unique keys checked, otherwise each
+     * entity is validated and invalid, malformed or duplicate rows are skipped. The checksum is only written once every
+     * row passed validation, unique indexes included, and dropped if a trusted snapshot turns out to hold duplicates.
+     *
+     * @return the number of rejected rows
      */
-    private void loadDataFromFile() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                E entity = extractEntity(line);
+    private int loadDataFromFile() {
+        List<E> loaded = List.of();
+        long checksum = 0;
+        int rejectedRows = 0;
+        try {
+            ParallelCsvReader.Result<E> result = ParallelCsvReader.read(Path.of(filePath), this::extractEntity);
+            loaded = result.getRecords();
+            checksum = result.getChecksum();
+            rejectedRows = result.getMalformedRecords();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "An error occurred while loading data from file " + filePath, e);
+        }
+
+        trustedSnapshot = rejectedRows == 0 && matchesChecksum(loaded.size(), checksum);
+        for (E entity : loaded) {
+            if (trustedSnapshot) {
+                if (isTaken(entity)) {
+                    LOGGER.log(Level.WARNING, "Skipping duplicate record " + entity.getId() + " in " + filePath);
+                    rejectedRows++;
+                } else {
+                    putEntity(entity);
+                }
+                continue;
+            }
+
+            try {
                 super.save(entity);
+            } catch (EntityAlreadyExistsException | ValidationException e) {
+                LOGGER.log(Level.WARNING, "Skipping invalid record " + entity.getId() + " in " + filePath + ": " +
+                        e.getMessage());
+                rejectedRows++;
+            }
+        }
+
+        // A fully valid legacy snapshot becomes trusted for the next startup, a trusted one with duplicates no longer
+        if (!trustedSnapshot && rejectedRows == 0) {
+            writeChecksum(loaded.size(), checksum);
+        } else if (trustedSnapshot && rejectedRows > 0) {
+            trustedSnapshot = false;
+            deleteChecksum();
+        }
+
+        snapshotRecords = entities.size();
+        return rejectedRows;
+    }
+
+    /**
+     * Loads data from the binary snapshot file, mapping it and decoding one record at a time. The snapshot carries its
+     * own checksum, so its records are stored directly; if the snapshot is corrupted, the CSV snapshot is loaded
+     * instead.
+     *
+     * @return the number of rejected records
+     */
+    private int loadDataFromBinaryFile() {
+        BinarySnapshot<E> snapshot;
+        try {
+            snapshot = BinarySnapshot.open(Path.of(binaryPath), snapshotCodec());
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "An error occurred while loading binary snapshot " + binaryPath, e);
+            return loadDataFromFile();
+        }
+
+        trustedSnapshot = true;
+        int rejectedRecords = 0;
+        for (E entity : snapshot) {
+            if (isTaken(entity)) {
+                LOGGER.log(Level.WARNING, "Skipping duplicate record " + entity.getId() + " in " + binaryPath);
+                rejectedRecords++;
+            } else {
+                putEntity(entity);
             }
+        }
+
+        snapshotRecords = entities.size();
+        return rejectedRecords;
+    }
+
+    /**
+     * Removes the entities whose references to other entities are no longer valid, in a single pass over the
+     * collection, and persists their removal.
+     *
+     * @return the number of removed entities
+     */
+    private int removeDanglingReferences() {
+        List<E> dangling = new ArrayList<>();
+        for (E entity : entities.values()) {
+            try {
+                getValidator().validateReferences(entity);
+            } catch (ValidationException e) {
+                dangling.add(entity);
+            }
+        }
+
+        if (dangling.isEmpty()) {
+            return 0;
+        }
+
+        LOGGER.log(Level.WARNING, "Removing " + dangling.size() + " records with dangling references from " +
+                filePath);
+        for (E entity : dangling) {
+            removeEntity(entity.getId());
+            afterRemove(entity);
+        }
+        writer.awaitDurable();
+        return dangling.size();
+    }
+
+    /**
+     * Checks whether the row count and checksum of the loaded snapshot match the ones recorded when it was written.
+     *
+     * @param rows the number of rows read from the snapshot
+     * @param checksum the checksum of the rows read from the snapshot
+     * @return {@code true} if both match, {@code false} if they differ or no checksum was recorded
+     */
+    private boolean matchesChecksum(int rows, long checksum) {
+        try {
+            String expected = Files.readString(Path.of(checksumPath)).trim();
+            return expected.equals(rows + "," + Long.toHexString(checksum));
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "An error occurred while loading data from file " + filePath, e);
-        } catch (EntityAlreadyExistsException e) {
-            throw new RuntimeException(e);
+            return false;
         }
     }
 
+    /**
+     * Removes the recorded checksum, so the snapshot is validated again at the next startup.
+     */
+    private void deleteChecksum() {
+        try {
+            Files.deleteIfExists(Path.of(checksumPath));
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "An error occurred while deleting checksum file " + checksumPath, e);
+        }
+    }
+
+    /**
+     * Records the row count and checksum of the snapshot that was just written.
+     *
+     * @param rows the number of rows in the snapshot
+     * @param checksum the checksum of the rows in the snapshot
+     */
+    private void writeChecksum(int rows, long checksum) {
+        try {
+            Files.writeString(Path.of(checksumPath), rows + "," + Long.toHexString(checksum));
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "An error occurred while writing checksum file " + checksumPath, e);
+        }
+    }
+
+    /**
+     * Adds a single line/record, terminated by a line feed, to the running checksum.
+     *
+     * @param checksum the running checksum
+     * @param line the line/record to be added
+     */
+    private static void updateChecksum(CRC32 checksum, String line) {
+        checksum.update(line.getBytes(StandardCharsets.UTF_8));
+        checksum.update('\n');
+    }
+
+    /**
+     * Replays the mutations recorded in the specified journal file over the in-memory collection.
+     * Records were validated when they were appended, so they are applied directly. A truncated trailing record, left
+     * by a crash in the middle of an append, is ignored and cut off the file, so that records appended after the
+     * restart start on a line of their own. So is a transaction block left without its commit record, which would
+     * otherwise swallow the records appended after it.
+     *
+     * @param path the path of the journal file to be replayed
+     * @return the number of records replayed
+     * @throws IOException if the incomplete end of the journal cannot be cut off
+     */
+    private long replayJournal(String path) throws IOException {
+        File file = new File(path);
+        if (!file.exists()) {
+            return 0;
+        }
+
+        long records = 0;
+        long validLength = 0; // Length of the journal up to the end of its last complete record
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(file))) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            String line;
+            while ((line = readJournalLine(stream, buffer)) != null) {
+                validLength += buffer.size() + 1;
+                if (!TRANSACTION_RECORD.equals(line)) {
+                    records += replayRecord(line, path);
+                    continue;
+                }
+
+                // The transaction record only counts as complete once its block is committed, so an uncommitted
+                // block is cut off from its transaction record
+                long blockStart = validLength - buffer.size() - 1;
+                List<String> block = new ArrayList<>();
+                String next;
+                while ((next = readJournalLine(stream, buffer)) != null) {
+                    validLength += buffer.size() + 1;
+                    if (COMMIT_RECORD.equals(next)) {
+                        break;
+                    }
+                    block.add(next);
+                }
+                if (next == null) {
+                    LOGGER.log(Level.WARNING, "Discarding uncommitted transaction of " + block.size() +
+                            " records at the end of journal " + path);
+                    validLength = blockStart;
+                    break;
+                }
+                for (String record : block) {
+                    records += replayRecord(record, path);
+                }
+            }
+        } catch (IOException e) {
+            // The rest of the journal could not be read, so nothing is cut off
+            LOGGER.log(Level.SEVERE, "An error occurred while replaying journal " + path, e);
+            return records;
+        }
+
+        if (file.length() > validLength) {
+            LOGGER.log(Level.WARNING, "Cutting off " + (file.length() - validLength) + " bytes of incomplete " +
+                    "records at the end of journal " + path);
+            truncateJournal(path, validLength);
+        }
+        return records;
+    }
+
+    /**
+     * Reads the next line of a journal, terminated by a line feed.
+     *
+     * @param stream the journal being read
+     * @param buffer the buffer receiving the bytes of the line, without the line feed
+     * @return the line, or {@code null} at the end of the journal; bytes of an unterminated last line are left in the
+     *         buffer
+     * @throws IOException if an error occurs while reading
+     */
+    private static String readJournalLine(InputStream stream, ByteArrayOutputStream buffer) throws IOException {
+        buffer.reset();
+        int next;
+        while ((next = stream.read()) != -1) {
+            if (next == '\n') {
+                return buffer.toString(StandardCharsets.UTF_8);
+            }
+            buffer.write(next);
+        }
+        return null;
+    }
+
+    /**
+     * Cuts a journal file back to the specified length and syncs it.
+     *
+     * @param path the path of the journal file
+     * @param length the length to be kept
+     * @throws IOException if an error occurs while truncating
+     */
+    private static void truncateJournal(String path, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Applies a single journal record over the in-memory collection.
+     *
+     * @param line the journal record
+     * @param path the path of the journal file, used in error messages
+     * @return 1 if the record was applied, 0 if it was skipped
+     */
+    private int replayRecord(String line, String path) {
+        List<String> fields = CsvRecords.parse(line);
+        if (fields.size() < 2) {
+            return 0;
+        }
+
+        E entity;
+        try {
+            entity = extractEntity(fields.subList(1, fields.size()));
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Skipping malformed journal record in " + path + ": " + line);
+            return 0;
+        }
+
+        String type = fields.getFirst();
+        if (PUT_RECORD.equals(type)) {
+            putEntity(entity);
+        } else if (DELETE_RECORD.equals(type)) {
+            removeEntity(entity.getId());
+        } else {
+            return 0;
+        }
+        return 1;
+    }
+
     /**
      * Saves the current collection from the repository to the specified file.
      * This method iterates the entities collection, converts each to a string format, and writes it on a new line in
      * the specified file.
      */
     protected void saveDataToFile() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            for (E entity : findAll()) {
-                writer.write(entityToString(entity));
-                writer.newLine();
-            }
+        try {
+            writeSnapshot(snapshotEntities(), snapshotFormat);
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "An error occurred while saving data to file " + filePath, e);
         }
     }
 
     /**
-     * Extracts entity's fields from a record and creates an entity.
-     * Subclasses must implement this method to define how to create an entity, based on the specific fields.
+     * Writes the current collection from the repository as a snapshot in the specified format, e.g. to migrate the
+     * storage to another snapshot format. The snapshot is written by the persistence writer, after every mutation
+     * submitted before.
      *
-     * @param record the string record containing the entity's fields
-     * @return the entity extracted from the record
+     * @param format the format of the snapshot to be written
+     * @throws IOException if an error occurs while writing the snapshot
      */
-    protected abstract E extractEntity(String record);
+    public void exportSnapshot(SnapshotFormat format) throws IOException {
+        IOException[] failure = new IOException[1];
+        writer.submit(() -> {
+            try {
+                writeSnapshot(snapshotEntities(), format);
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        writer.awaitDurable();
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
 
     /**
-     * Converts the entity to a string representation format for saving it to the specified file.
-     * Subclasses must implement this method to define how to represent the entity as a string.
+     * Stores entities produced by a trusted tool directly, without validating or journaling them one by one, then writes
+     * the whole repository as a new snapshot and empties the journal. The entities must be valid, unique and only
+     * reference existing entities, since the checksum of the new snapshot makes it trusted at the next startup.
+     * A running compaction is waited for and its journal discarded, so it cannot replace the imported snapshot with an
+     * older one.
      *
-     * @param entity the entity to be converted
-     * @return the string representation of the entity
+     * @param trusted the entities to be stored
+     * @throws IOException if an error occurs while writing the snapshot
      */
-    protected abstract String entityToString(E entity);
+    void importSnapshot(Collection<E> trusted) throws IOException {
+        for (E entity : trusted) {
+            putEntity(entity);
+        }
+
+        IOException[] failure = new IOException[1];
+        writer.submit(() -> {
+            try {
+                // Compactions only start on the persistence writer, so none starts until this operation ends
+                awaitCompaction();
+                writeSnapshot(snapshotEntities(), snapshotFormat);
+                snapshotRecords = entities.size();
+                if (journaled) {
+                    journalWriter.close();
+                    Files.deleteIfExists(Path.of(journalPath));
+                    Files.deleteIfExists(Path.of(compactingJournalPath));
+                    journalRecords = 0;
+                    openJournal();
+                }
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        writer.awaitDurable();
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
 
     /**
-     * Saves a new entity in the repository (storage) and updates the specified file.
+     * Records a stored entity for persistence; called while the entity's locks are held.
      *
-     * @param entity the entity to be saved
-     * @return an {@link Optional} containing the saved entity, or an empty {@code Optional} if the entity already
-     *         exists in the system
-     * @throws EntityAlreadyExistsException if the entity already exists in the system
-     * @throws NullPointerException if the provided entity is null
+     * @param entity the stored entity
      */
     @Override
-    public Optional<E> save(E entity) throws EntityAlreadyExistsException {
-        Optional<E> savedEntity = super.save(entity);
-        if (savedEntity.isPresent()) {
-            saveDataToFile();
-        }
-        return savedEntity;
+    protected void afterPut(E entity) {
+        enqueue(PUT_RECORD, entity);
+    }
+
+    /**
+     * Records a removed entity for persistence; called while the entity's locks are held.
+     *
+     * @param entity the removed entity
+     */
+    @Override
+    protected void afterRemove(E entity) {
+        enqueue(DELETE_RECORD, entity);
     }
 
     /**
-     * Deletes an entity from the repository (storage) by its identifier and updates the specified file.
+     * Records a batch of stored entities for persistence as a single operation; called while the batch's locks are
+     * held.
      *
-     * @param id the unique identifier of the entity to be deleted
-     * @return an {@link Optional} containing the deleted entity, or an empty {@code Optional} if no entity with the
-     *         specified ID exists
-     * @throws NullPointerException if the provided identifier is null
+     * @param batch the stored entities
      */
     @Override
-    public Optional<E> delete(ID id) {
-        Optional<E> deletedEntity = super.delete(id);
-        if (deletedEntity.isPresent()) {
-            saveDataToFile();
+    protected void afterPutAll(List<E> batch) {
+        enqueue(PUT_RECORD, batch);
+    }
+
+    /**
+     * Records a batch of removed entities for persistence as a single operation; called while the batch's locks are
+     * held.
+     *
+     * @param batch the removed entities
+     */
+    @Override
+    protected void afterRemoveAll(List<E> batch) {
+        enqueue(DELETE_RECORD, batch);
+    }
+
+    /**
+     * Records the changes of a committed unit of work as a single journal block; called while the unit's locks are
+     * held.
+     *
+     * @param changes the committed changes, in the order they were applied
+     */
+    @Override
+    protected void afterCommit(List<UnitOfWork.Change<E>> changes) {
+        if (writer == null) {
+            return;
+        }
+
+        if (!journaled) {
+            writer.submit(() -> snapshotDirty = true);
+            return;
+        }
+
+        List<String> records = new ArrayList<>(changes.size());
+        for (UnitOfWork.Change<E> change : changes) {
+            String type = change.isRemoval() ? DELETE_RECORD : PUT_RECORD;
+            records.add(type + "," + entityToString(change.getEntity()));
         }
-        return deletedEntity;
+        List<String> lines = new ArrayList<>(records.size() + 2);
+        lines.add(TRANSACTION_RECORD);
+        lines.addAll(records);
+        lines.add(COMMIT_RECORD);
+        appendToJournal(lines, records.size());
     }
 
     /**
-     * Updates an existing entity in the repository (storage) and updates the specified file.
+     * Waits for the mutations recorded so far as required by the durability policy: under
+     * {@link DurabilityPolicy#COMMIT} until they are synced to disk, together with concurrent mutations, and not at all
+     * under the write-behind policies. Mutations applied during the startup load are not persisted.
+     */
+    @Override
+    protected void awaitPersisted() {
+        if (writer != null) {
+            writer.awaitCommitted();
+        }
+    }
+
+    /**
+     * Waits until every mutation applied so far is written and synced to disk, regardless of the durability policy.
+     */
+    @Override
+    public void awaitDurable() {
+        writer.awaitDurable();
+    }
+
+    /**
+     * Returns the durability policy of the repository.
      *
-     * @param entity the entity to be updated
-     * @return an {@link Optional} containing the updated entity
-     * @throws EntityNotFoundException if the entity does not exist in the system
-     * @throws NullPointerException if the provided entity is null
+     * @return the durability policy
+     */
+    public DurabilityPolicy getDurabilityPolicy() {
+        return writer.getPolicy();
+    }
+
+    /**
+     * Drains every pending mutation to disk, waits for a running compaction and releases the files. The repository
+     * rejects mutations afterwards.
+     *
+     * @throws UncheckedIOException if pending mutations could not be persisted; the files are released anyway
      */
     @Override
-    public Optional<E> update(E entity) throws EntityNotFoundException {
-        Optional<E> updatedEntity = super.update(entity);
-        if (updatedEntity.isPresent()) {
-            saveDataToFile();
+    public void close() {
+        try {
+            writer.shutdown();
+        } finally {
+            if (compactor != null) {
+                compactor.shutdown();
+                try {
+                    compactor.awaitTermination(1, TimeUnit.MINUTES);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (journalWriter != null) {
+                try {
+                    journalWriter.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.SEVERE, "An error occurred while closing journal " + journalPath, e);
+                }
+            }
         }
-        return updatedEntity;
     }
+
+    private void openJournal() throws IOException {
+        journalStream = new FileOutputStream(journalPath, true);
+        journalWriter = new BufferedWriter(new OutputStreamWriter(journalStream, StandardCharsets.UTF_8));
+        journalSyncedLength = journalStream.getChannel().size();
+        journalSyncedRecords = journalRecords;
+    }
+
+    private void enqueue(String type, E entity) {
+        enqueue(type, List.of(entity));
+    }
+
+    /**
+     * Enqueues mutations on the persistence writer as a single operation: journal records in journaled mode, otherwise
+     * a request to rewrite the whole file at the next flush. Mutations applied during the startup load are not
+     * persisted.
+     *
+     * @param type the journal record type ({@code PUT_RECORD} or {@code DELETE_RECORD})
+     * @param batch the entities affected by the mutations
+     */
+    private void enqueue(String type, List<E> batch) {
+        if (writer == null || batch.isEmpty()) {
+            return;
+        }
+
+        if (!journaled) {
+            writer.submit(() -> snapshotDirty = true);
+            return;
+        }
+
+        // Format the records now, as entities may be mutated in place once their locks are released
+        List<String> records = new ArrayList<>(batch.size());
+        for (E entity : batch) {
+            records.add(type + "," + entityToString(entity));
+        }
+        appendToJournal(records, records.size());
+    }
+
+    /**
+     * Appends lines to the journal on the persistence writer. If the append fails, the journal is rolled back to its
+     * last sync, so no partial record is left for the following appends to be written after.
+     *
+     * @param lines the lines to be appended
+     * @param records the number of records among the lines
+     */
+    private void appendToJournal(List<String> lines, int records) {
+        writer.submit(() -> {
+            try {
+                for (String line : lines) {
+                    journalWriter.write(line);
+                    journalWriter.write('\n');
+                }
+            } catch (IOException e) {
+                discardUnsyncedJournal();
+                throw e;
+            }
+            journalRecords += records;
+        }, records);
+    }
+
+    /**
+     * Drops everything appended to the journal since its last sync, buffered or written, and reopens it; called on the
+     * persistence writer after a failed append or sync.
+     *
+     * @throws IOException if the journal cannot be cut back or reopened
+     */
+    private void discardUnsyncedJournal() throws IOException {
+        try {
+            journalStream.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "An error occurred while closing journal " + journalPath, e);
+        }
+        truncateJournal(journalPath, journalSyncedLength);
+        journalRecords = journalSyncedRecords;
+        openJournal();
+    }
+
+    /**
+     * Makes the mutations written so far durable on the persistence writer: flushes and syncs the journal, starting a
+     * compaction if it grew past the threshold, or rewrites the whole file once for all of them in non-journaled mode.
+     *
+     * @throws IOException if an error occurs while flushing
+     */
+    private void flush() throws IOException {
+        if (!journaled) {
+            if (snapshotDirty) {
+                snapshotDirty = false;
+                saveDataToFile();
+            }
+            return;
+        }
+
+        try {
+            journalWriter.flush();
+            journalStream.getFD().sync();
+        } catch (IOException e) {
+            discardUnsyncedJournal();
+            throw e;
+        }
+        journalSyncedLength = journalStream.getChannel().size();
+        journalSyncedRecords = journalRecords;
+        long threshold = Math.max(Config.DEFAULT_JOURNAL_COMPACTION_MIN_RECORDS,
+                (long) (snapshotRecords * Config.DEFAULT_JOURNAL_COMPACTION_RATIO));
+        if (journalRecords > threshold) {
+            startCompaction();
+        }
+    }
+
+    /**
+     * Folds the journal into a new snapshot in the background, once the mutations submitted before are written.
+     */
+    public void compact() {
+        if (journaled) {
+            writer.submit(this::startCompaction);
+        }
+    }
+
+    /**
+     * Starts a compaction on the persistence writer.
+     * The current journal is rotated synchronously, so new mutations keep being appended to a fresh journal while the
+     * snapshot is written. Replaying both journals over either the old or the new snapshot yields the same state, so a
+     * crash at any point during compaction loses no data. Every mutation recorded in the rotated journal was applied in
+     * memory before being enqueued, so it is part of the snapshot taken here.
+     *
+     * @throws IOException if an error occurs while rotating the journal
+     */
+    private void startCompaction() throws IOException {
+        if (!compacting.compareAndSet(false, true)) {
+            return;
+        }
+
+        List<E> snapshot = snapshotEntities();
+        try {
+            journalWriter.close();
+            Files.move(Path.of(journalPath), Path.of(compactingJournalPath), StandardCopyOption.REPLACE_EXISTING);
+            journalRecords = 0;
+            openJournal();
+        } catch (IOException e) {
+            compacting.set(false);
+            throw e;
+        }
+
+        compactor.execute(() -> {
+            try {
+                writeSnapshot(snapshot, snapshotFormat);
+                Files.deleteIfExists(Path.of(compactingJournalPath));
+                snapshotRecords = snapshot.size();
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "An error occurred while compacting journal " + journalPath, e);
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    /**
+     * Waits until the compaction running on the compactor, if any, is done. Called on the persistence writer.
+     *
+     * @throws IOException if the wait is interrupted
+     */
+    private void awaitCompaction() throws IOException {
+        if (compactor == null) {
+            return;
+        }
+        try {
+            compactor.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for compaction of journal " + journalPath);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause()); // The empty task cannot fail
+        }
+    }
+
+    /**
+     * Writes the provided entities to a temporary file and atomically replaces the snapshot file with it.
+     *
+     * @param snapshot the entities to be written
+     * @param format the format of the snapshot file
+     * @throws IOException if an error occurs while writing or replacing the snapshot file
+     */
+    private void writeSnapshot(List<E> snapshot, SnapshotFormat format) throws IOException {
+        synchronized (snapshotLock) {
+            if (format == SnapshotFormat.BINARY) {
+                BinarySnapshot.write(Path.of(binaryPath), snapshot, snapshotCodec());
+                return;
+            }
+
+            Path temporary = Path.of(filePath + ".tmp");
+            CRC32 checksum = new CRC32();
+            try (FileOutputStream stream = new FileOutputStream(temporary.toFile());
+                 BufferedWriter snapshotWriter = new BufferedWriter(new OutputStreamWriter(stream,
+                         StandardCharsets.UTF_8))) {
+                for (E entity : snapshot) {
+                    String record = entityToString(entity);
+                    snapshotWriter.write(record);
+                    snapshotWriter.write('\n');
+                    updateChecksum(checksum, record);
+                }
+                snapshotWriter.flush();
+                stream.getFD().sync();
+            }
+            Files.move(temporary, Path.of(filePath), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            writeChecksum(snapshot.size(), checksum.getValue());
+        }
+    }
+
+    /**
+     * Creates an entity from the fields of a record.
+     * Subclasses must implement this method to define how to create an entity, based on the specific fields. The list
+     * may be reused by the caller after this method returns.
+     *
+     * @param fields the fields of the record, already unquoted
+     * @return the entity extracted from the record
+     */
+    protected abstract E extractEntity(List<String> fields);
+
+    /**
+     * Converts the entity to a string representation format for saving it to the specified file.
+     * Subclasses must implement this method to define how to represent the entity as a string, formatting the record
+     * with {@link CsvRecords#join(Object...)}.
+     *
+     * @param entity the entity to be converted
+     * @return the string representation of the entity
+     */
+    protected abstract String entityToString(E entity);
+
+    /**
+     * Returns the codec used to encode and decode the entity in binary snapshots.
+     * Subclasses must implement this method with a stateless codec, as it is already used while loading data in the
+     * constructor.
+     *
+     * @return the binary snapshot codec of the entity
+     */
+    protected abstract SnapshotCodec<E> snapshotCodec();
 }
@@ -0,0 +1,116 @@
+package repository;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch operation: the entities the operation was applied to and, for every rejected item, its position
+ * in the batch and the reason it was rejected. A rejected item never prevents the other items from being applied.
+ *
+ * @param <I> the type of the batch items (entities or identifiers)
+ * @param <E> the type of the entities the operation was applied to
+ */
+public class BatchResult<I, E> {
+
+    /**
+     * A single rejected item of a batch.
+     *
+     * @param <I> the type of the batch items
+     */
+    public static class Failure<I> {
+
+        private final int position; // Position of the item in the batch
+        private final I item; // The rejected item
+        private final Throwable cause; // The reason the item was rejected
+
+        /**
+         * Constructs a new Failure of the item at the specified position.
+         *
+         * @param position the position of the item in the batch
+         * @param item the rejected item
+         * @param cause the reason the item was rejected
+         */
+        public Failure(int position, I item, Throwable cause) {
+            this.position = position;
+            this.item = item;
+            this.cause = cause;
+        }
+
+        /**
+         * Returns the position of the rejected item in the batch.
+         *
+         * @return the position of the item
+         */
+        public int getPosition() {
+            return position;
+        }
+
+        /**
+         * Returns the rejected item.
+         *
+         * @return the rejected item
+         */
+        public I getItem() {
+            return item;
+        }
+
+        /**
+         * Returns the reason the item was rejected.
+         *
+         * @return the cause of the failure
+         */
+        public Throwable getCause() {
+            return cause;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + position + ": " + cause.getMessage();
+        }
+    }
+
+    private final List<E> succeeded; // Entities the operation was applied to, in batch order
+    private final List<Failure<I>> failures; // Rejected items, in batch order
+
+    /**
+     * Constructs a new BatchResult.
+     *
+     * @param succeeded the entities the operation was applied to, in batch order
+     * @param failures the rejected items, in batch order
+     */
+    public BatchResult(List<E> succeeded, List<Failure<I>> failures) {
+        this.succeeded = List.copyOf(succeeded);
+        this.failures = List.copyOf(failures);
+    }
+
+    /**
+     * Returns the entities the operation was applied to, in batch order.
+     *
+     * @return the succeeded entities
+     */
+    public List<E> getSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * Returns the rejected items, in batch order.
+     *
+     * @return the failures
+     */
+    public List<Failure<I>> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Checks whether every item of the batch was applied.
+     *
+     * @return {@code true} if no item was rejected, {@code false} otherwise
+     */
+    public boolean isComplete() {
+        return failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "Applied " + succeeded.size() + " items, rejected " + failures.size();
+    }
+}
@@ -0,0 +1,79 @@
+package repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class formatting and parsing comma-separated records.
+ * Fields containing commas or double quotes are enclosed in double quotes, with inner double quotes doubled. Line breaks
+ * are not allowed inside fields, so every record spans exactly one line.
+ */
+public class CsvRecords {
+
+    /**
+     * Joins the fields into a single record, quoting them where needed.
+     *
+     * @param fields the fields of the record
+     * @return the formatted record
+     * @throws IllegalArgumentException if a field contains a line break
+     */
+    public static String join(Object... fields) {
+        StringBuilder record = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                record.append(',');
+            }
+
+            String field = String.valueOf(fields[i]);
+            if (field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("Record fields must not contain line breaks");
+            }
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0) {
+                record.append('"').append(field.replace("\"", "\"\"")).append('"');
+            } else {
+                record.append(field);
+            }
+        }
+        return record.toString();
+    }
+
+    /**
+     * Parses a single record into its fields, unquoting them where needed.
+     *
+     * @param record the record to be parsed
+     * @return the fields of the record
+     */
+    public static List<String> parse(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int position = 0;
+        int length = record.length();
+
+        while (true) {
+            field.setLength(0);
+            if (position < length && record.charAt(position) == '"') {
+                position++;
+                while (position < length) {
+                    char current = record.charAt(position++);
+                    if (current != '"') {
+                        field.append(current);
+                    } else if (position < length && record.charAt(position) == '"') {
+                        field.append('"');
+                        position++;
+                    } else {
+                        break;
+                    }
+                }
+            }
+            while (position < length && record.charAt(position) != ',') {
+                field.append(record.charAt(position++));
+            }
+            fields.add(field.toString());
+
+            if (position >= length) {
+                return fields;
+            }
+            position++; // Skip the separator
+        }
+    }
+}
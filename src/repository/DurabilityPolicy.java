@@ -0,0 +1,47 @@
+package repository;
+
+import utils.Config;
+
+import java.util.Locale;
+
+/**
+ * Policies deciding when the mutations of a file repository are flushed and synced to disk, and whether mutating
+ * callers wait for it.
+ */
+public enum DurabilityPolicy {
+
+    /**
+     * Every mutation returns only once it is written and synced to disk. Concurrent mutations share a single sync.
+     */
+    COMMIT,
+
+    /**
+     * Write-behind: mutations return once applied in memory, and are flushed and synced at most
+     * {@link Config#DEFAULT_DURABILITY_INTERVAL_MILLIS} milliseconds after they were made.
+     */
+    INTERVAL,
+
+    /**
+     * Write-behind: mutations return once applied in memory, and are flushed and synced every
+     * {@link Config#DEFAULT_DURABILITY_MUTATIONS} mutations.
+     */
+    MUTATIONS;
+
+    /**
+     * Returns the durability policy selected by {@link Config#DEFAULT_DURABILITY_POLICY}.
+     *
+     * @return the default durability policy
+     */
+    public static DurabilityPolicy defaultPolicy() {
+        return valueOf(Config.DEFAULT_DURABILITY_POLICY.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Checks whether mutating callers return before their mutations are durable.
+     *
+     * @return {@code true} for write-behind policies, {@code false} otherwise
+     */
+    public boolean isWriteBehind() {
+        return this != COMMIT;
+    }
+}
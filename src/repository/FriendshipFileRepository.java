@@ -3,10 +3,12 @@ package repository;
 import models.Friendship;
 import models.validators.Validator;
 import org.jetbrains.annotations.NotNull;
+import repository.binary.FriendshipSnapshotCodec;
+import repository.binary.SnapshotCodec;
+import utils.Config;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -22,29 +24,52 @@ public class FriendshipFileRepository extends AbstractFileRepository<String, Fri
      * @throws IOException if an error occurs while performing reading/writing operations on specified file
      */
     public FriendshipFileRepository(String fileName, Validator<Friendship> validator) throws IOException {
-        super(fileName, validator);
+        this(fileName, validator, SnapshotFormat.defaultFormat());
     }
 
     /**
-     * Extracts friendship fields from a record and creates a Friendship entity.
+     * Constructs a new FriendshipFileRepository with the specified file name, validator and snapshot format.
      *
-     * @param record the string record containing the friendship's fields
+     * @param fileName the name of the file used for persistence
+     * @param validator the validator used to validate Friendship entities
+     * @param snapshotFormat the format in which snapshots are loaded and written
+     * @throws IOException if an error occurs while performing reading/writing operations on specified file
+     */
+    public FriendshipFileRepository(String fileName, Validator<Friendship> validator, SnapshotFormat snapshotFormat)
+            throws IOException {
+        this(fileName, validator, snapshotFormat, DurabilityPolicy.defaultPolicy());
+    }
+
+    /**
+     * Constructs a new FriendshipFileRepository with the specified file name, validator, snapshot format and durability
+     * policy.
+     *
+     * @param fileName the name of the file used for persistence
+     * @param validator the validator used to validate Friendship entities
+     * @param snapshotFormat the format in which snapshots are loaded and written
+     * @param durabilityPolicy the policy deciding when mutations are synced to disk
+     * @throws IOException if an error occurs while performing reading/writing operations on specified file
+     */
+    public FriendshipFileRepository(String fileName, Validator<Friendship> validator, SnapshotFormat snapshotFormat,
+                                    DurabilityPolicy durabilityPolicy) throws IOException {
+        super(fileName, validator, Config.DEFAULT_JOURNAL_ENABLED, snapshotFormat, durabilityPolicy);
+    }
+
+    /**
+     * Creates a Friendship entity from the fields of a record.
+     *
+     * @param fields the fields of the record containing the friendship's fields
      * @return the Friendship entity extracted from the record
      */
     @Override
-    protected Friendship extractEntity(@NotNull String record) {
-        List<String> fields = Arrays.asList(record.split(","));
+    protected Friendship extractEntity(@NotNull List<String> fields) {
         String id = fields.get(0);
         String uid1 = fields.get(1);
         String uid2 = fields.get(2);
         LocalDateTime date = LocalDateTime.parse(fields.get(3));
         boolean pending = Boolean.parseBoolean(fields.get(4));
 
-        Friendship friendship = new Friendship(uid1, uid2);
-        friendship.setDate(date);
-        friendship.setPending(pending);
-        friendship.setId(id);
-        return friendship;
+        return Friendship.restore(id, uid1, uid2, date, pending);
     }
 
     /**
@@ -55,10 +80,21 @@ public class FriendshipFileRepository extends AbstractFileRepository<String, Fri
      */
     @Override
     protected String entityToString(@NotNull Friendship friendship) {
-        return friendship.getId() +
-                "," + friendship.getSenderId() +
-                "," + friendship.getReceiverId() +
-                "," + friendship.getDate() +
-                "," + friendship.isPending();
+        return CsvRecords.join(
+                friendship.getId(),
+                friendship.getSenderId(),
+                friendship.getReceiverId(),
+                friendship.getDate(),
+                friendship.isPending());
+    }
+
+    /**
+     * Returns the codec used to encode and decode Friendship entities in binary snapshots.
+     *
+     * @return the binary snapshot codec of the Friendship entity
+     */
+    @Override
+    protected SnapshotCodec<Friendship> snapshotCodec() {
+        return FriendshipSnapshotCodec.INSTANCE;
     }
 }
@@ -2,17 +2,42 @@ package repository;
 
 import exceptions.EntityAlreadyExistsException;
 import exceptions.EntityNotFoundException;
+import exceptions.ValidationException;
 import models.Entity;
 import models.validators.Validator;
+import utils.Config;
+import utils.Metrics;
+import utils.OperationStats;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * A generic in-memory (local) repository for managing entities.
  * This class provides CRUD (Create, Read, Update, Delete) operations on entities stored in memory (locally).
  *
+ * The repository is thread-safe. Entities are kept in a concurrent map, so reads never block. Each mutation locks the
+ * stripes of the entity's identifier and of its unique index keys (both old and new), so duplicate checks and index
+ * maintenance are atomic with respect to any other mutation touching the same identifier or key, while mutations of
+ * unrelated entities proceed in parallel.
+ *
+ * Every public operation records its latency, including the wait for persistence, and its failures in the
+ * {@link Metrics} of the repository class.
+ *
  * @param <ID> the type of the entity's identifier
  * @param <E> the type of the entity, which must extend {@link Entity<ID>}
  */
@@ -20,6 +45,29 @@ public class InMemoryRepository<ID, E extends Entity<ID>> implements Repository<
 
     private final Validator<E> validator; // Validator for entity
     protected Map<ID, E> entities; // Storage for entities, indexed by their identifier
+    private final List<UniqueIndex<?, ID, E>> uniqueIndexes; // Unique secondary indexes kept in sync with storage
+    private final StripedLock locks; // Locks guarding mutations, striped by identifier and unique key
+    private final long lockOrder; // Position of the repository in the global order in which units of work lock it
+    private final Map<String, Iterator<E>> cursors; // Open paginated listings, indexed by the token of their next page
+    private final List<RepositoryListener<ID, E>> listeners; // Listeners notified of each mutation, under its locks
+
+    // Latency and call statistics of the operations, shared by every repository of the same class
+    private final OperationStats findOneStats;
+    private final OperationStats findAllStats;
+    private final OperationStats findPageStats;
+    private final OperationStats streamStats;
+    private final OperationStats saveStats;
+    private final OperationStats deleteStats;
+    private final OperationStats updateStats;
+    private final OperationStats saveAllStats;
+    private final OperationStats deleteAllStats;
+    private final OperationStats updateAllStats;
+
+    // Source of lock orders, so repositories are always locked in the same order
+    private static final AtomicLong LOCK_ORDERS = new AtomicLong();
+
+    // Predefined Logger for error reporting across application
+    private static final Logger LOGGER = Logger.getLogger(InMemoryRepository.class.getName());
 
     /**
      * Constructs a new InMemoryRepository with the specified validator.
@@ -27,8 +75,423 @@ public class InMemoryRepository<ID, E extends Entity<ID>> implements Repository<
      * @param validator the validator used to validate the entities
      */
     public InMemoryRepository(Validator<E> validator) {
+        this(validator, List.of());
+    }
+
+    /**
+     * Constructs a new InMemoryRepository with the specified validator and unique secondary indexes. The indexes are
+     * registered before any entity is stored, so they are enforced from the first one on.
+     *
+     * @param validator the validator used to validate the entities
+     * @param uniqueIndexes the unique indexes to be kept in sync with the storage
+     */
+    public InMemoryRepository(Validator<E> validator, List<? extends UniqueIndex<?, ID, E>> uniqueIndexes) {
         this.validator = validator;
-        this.entities = new HashMap<>();
+        this.entities = new ConcurrentHashMap<>();
+        this.uniqueIndexes = new CopyOnWriteArrayList<>(uniqueIndexes);
+        this.locks = new StripedLock(Config.DEFAULT_REPOSITORY_LOCK_STRIPES);
+        this.lockOrder = LOCK_ORDERS.getAndIncrement();
+        this.listeners = new CopyOnWriteArrayList<>();
+        // Listings abandoned before their last page are dropped oldest first once too many are open
+        this.cursors = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Iterator<E>> eldest) {
+                return size() > Config.DEFAULT_PAGE_CURSORS;
+            }
+        });
+
+        String component = getClass().getSimpleName();
+        this.findOneStats = Metrics.get(component, "findOne");
+        this.findAllStats = Metrics.get(component, "findAll");
+        this.findPageStats = Metrics.get(component, "findPage");
+        this.streamStats = Metrics.get(component, "stream");
+        this.saveStats = Metrics.get(component, "save");
+        this.deleteStats = Metrics.get(component, "delete");
+        this.updateStats = Metrics.get(component, "update");
+        this.saveAllStats = Metrics.get(component, "saveAll");
+        this.deleteAllStats = Metrics.get(component, "deleteAll");
+        this.updateAllStats = Metrics.get(component, "updateAll");
+    }
+
+    /**
+     * Returns the validator used to validate the entities.
+     *
+     * @return the validator of the repository
+     */
+    protected Validator<E> getValidator() {
+        return validator;
+    }
+
+    /**
+     * Registers a unique secondary index and populates it with the entities already stored. Indexes known when the
+     * repository is created should be passed to its constructor instead, so they are enforced while it is loaded.
+     *
+     * @param index the unique index to be registered
+     * @throws IllegalStateException if stored entities conflict on the indexed key; the index is not registered
+     */
+    public void addUniqueIndex(UniqueIndex<?, ID, E> index) {
+        for (E entity : entities.values()) {
+            if (index.conflicts(entity)) {
+                index.clear();
+                throw new IllegalStateException("Entity " + entity.getId() + " conflicts on unique index '" +
+                        index.getName() + "'");
+            }
+            index.put(entity);
+        }
+        uniqueIndexes.add(index);
+    }
+
+    /**
+     * Finds an entity by a key of one of its unique secondary indexes.
+     *
+     * @param index the unique index to be searched
+     * @param key the key of the entity to be retrieved
+     * @return an {@link Optional} containing the entity indexed under the key, or an empty {@code Optional} if no
+     *         entity is found
+     * @param <K> the type of the indexed key
+     */
+    protected <K> Optional<E> findByUniqueKey(UniqueIndex<K, ID, E> index, K key) {
+        return index.find(key).map(entities::get);
+    }
+
+    /**
+     * Stores the entity without validation or duplicate checks and keeps the unique indexes in sync.
+     *
+     * @param entity the entity to be stored
+     */
+    protected void putEntity(E entity) {
+        entities.put(entity.getId(), entity);
+        uniqueIndexes.forEach(index -> index.put(entity));
+    }
+
+    /**
+     * Removes the entity with the specified identifier and keeps the unique indexes in sync.
+     *
+     * @param id the identifier of the entity to be removed
+     * @return the removed entity, or {@code null} if no entity with the specified ID exists
+     */
+    protected E removeEntity(ID id) {
+        E entity = entities.remove(id);
+        if (entity != null) {
+            uniqueIndexes.forEach(index -> index.remove(id));
+        }
+        return entity;
+    }
+
+    /**
+     * Called after an entity was stored by {@link #save} or {@link #update}, while the locks of its identifier and keys
+     * are still held, so consecutive calls for the same entity happen in mutation order. Subclasses may override it to
+     * record the mutation; the default implementation does nothing.
+     *
+     * @param entity the stored entity
+     */
+    protected void afterPut(E entity) {
+    }
+
+    /**
+     * Called after an entity was removed by {@link #delete}, while the locks of its identifier and keys are still held.
+     * Subclasses may override it to record the mutation; the default implementation does nothing.
+     *
+     * @param entity the removed entity
+     */
+    protected void afterRemove(E entity) {
+    }
+
+    /**
+     * Called after a batch of entities was stored by {@link #saveAll} or {@link #updateAll}, while the locks of the
+     * batch are still held. The default implementation calls {@link #afterPut} for each entity; subclasses may override
+     * it to record the whole batch at once.
+     *
+     * @param batch the stored entities
+     */
+    protected void afterPutAll(List<E> batch) {
+        batch.forEach(this::afterPut);
+    }
+
+    /**
+     * Called after a batch of entities was removed by {@link #deleteAll}, while the locks of the batch are still held.
+     * The default implementation calls {@link #afterRemove} for each entity; subclasses may override it to record the
+     * whole batch at once.
+     *
+     * @param batch the removed entities
+     */
+    protected void afterRemoveAll(List<E> batch) {
+        batch.forEach(this::afterRemove);
+    }
+
+    /**
+     * Called after a unit of work committed its mutations of this repository, while the locks of the unit are still
+     * held. The default implementation calls {@link #afterPut} or {@link #afterRemove} for each change, in order;
+     * subclasses may override it to record all changes as a single atomic unit.
+     *
+     * @param changes the committed changes, in the order they were applied
+     */
+    protected void afterCommit(List<UnitOfWork.Change<E>> changes) {
+        for (UnitOfWork.Change<E> change : changes) {
+            if (change.isRemoval()) {
+                afterRemove(change.getEntity());
+            } else {
+                afterPut(change.getEntity());
+            }
+        }
+    }
+
+    /**
+     * Waits until the mutations recorded so far are durable. Called by every mutation and unit of work after releasing
+     * its locks, so its duration is part of the measured latency; the default implementation returns immediately, as
+     * nothing is persisted.
+     */
+    protected void awaitPersisted() {
+    }
+
+    /**
+     * Waits until every mutation applied so far is persisted durably. The default implementation returns immediately,
+     * as nothing is persisted.
+     */
+    @Override
+    public void awaitDurable() {
+    }
+
+    /**
+     * Registers a listener notified of each mutation, including the mutations of units of work, while the mutated
+     * entities are still locked.
+     *
+     * @param listener the listener to be registered
+     */
+    @Override
+    public void addListener(RepositoryListener<ID, E> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Notifies the listeners that the entity was stored. Must be called while the locks of the entity are held.
+     *
+     * @param entity the stored entity
+     * @param update whether the entity replaced an existing one
+     */
+    void notifyPut(E entity, boolean update) {
+        for (RepositoryListener<ID, E> listener : listeners) {
+            if (update) {
+                listener.onUpdated(entity);
+            } else {
+                listener.onSaved(entity);
+            }
+        }
+    }
+
+    /**
+     * Notifies the listeners that the entity was removed. Must be called while the locks of the entity are held.
+     *
+     * @param entity the removed entity
+     */
+    void notifyRemove(E entity) {
+        listeners.forEach(listener -> listener.onDeleted(entity));
+    }
+
+    /**
+     * Returns the position of the repository in the order in which units of work lock repositories.
+     */
+    long getLockOrder() {
+        return lockOrder;
+    }
+
+    /**
+     * Locks the identifier, the currently indexed keys of the entity with that identifier and, if provided, the keys
+     * of the new version of the entity.
+     */
+    private int[] lockEntity(ID id, E entity) {
+        return lockEntities(List.of(id), entity == null ? List.of() : List.of(entity));
+    }
+
+    /**
+     * Locks the identifiers, the currently indexed keys of the entities with those identifiers and the keys of the
+     * provided new versions of entities, all at once. Indexed keys are read before locking, so they are checked again
+     * once locked and the locking is retried if a concurrent mutation changed them meanwhile.
+     */
+    int[] lockEntities(Collection<ID> ids, Collection<E> newEntities) {
+        return lockEntities(ids, newEntities, List.of());
+    }
+
+    /**
+     * Locks the identifiers, keys and new versions of entities like {@link #lockEntities(Collection, Collection)},
+     * along with additional keys guarding conditions checked under the locks.
+     */
+    int[] lockEntities(Collection<ID> ids, Collection<E> newEntities, Collection<?> extraKeys) {
+        while (true) {
+            List<Object> indexedKeys = indexedKeysOf(ids);
+            List<Object> keys = new ArrayList<>(indexedKeys);
+            keys.addAll(ids);
+            keys.addAll(extraKeys);
+            for (E entity : newEntities) {
+                uniqueIndexes.forEach(index -> keys.add(index.keyOf(entity)));
+            }
+
+            int[] locked = locks.lock(keys);
+            if (indexedKeysOf(ids).equals(indexedKeys)) {
+                return locked;
+            }
+            locks.unlock(locked);
+        }
+    }
+
+    /**
+     * Releases stripes locked by {@link #lockEntities}.
+     */
+    void unlockEntities(int[] locked) {
+        locks.unlock(locked);
+    }
+
+    /**
+     * Checks that an entity can be saved by a unit of work holding its locks, after the mutations the unit staged
+     * before it, and stages it. Nothing is stored.
+     *
+     * @param staged the new versions of the entities staged by the unit, {@code null} for removed ones
+     * @throws EntityAlreadyExistsException if the entity already exists in the system
+     * @throws ValidationException if the entity is invalid
+     */
+    void checkSave(E entity, Map<ID, E> staged) throws EntityAlreadyExistsException {
+        if (entity == null) {
+            throw new NullPointerException("Entity must not be null");
+        }
+        validator.validate(entity);
+        boolean exists = stagedOrStored(entity.getId(), staged) != null ||
+                uniqueIndexes.stream().anyMatch(index -> index.conflicts(entity, staged));
+        if (exists) {
+            throw new EntityAlreadyExistsException();
+        }
+        staged.put(entity.getId(), entity);
+    }
+
+    /**
+     * Checks that an entity can be updated by a unit of work holding its locks, after the mutations the unit staged
+     * before it, and stages it. Nothing is stored.
+     *
+     * @param staged the new versions of the entities staged by the unit, {@code null} for removed ones
+     * @throws EntityNotFoundException if the entity does not exist in the system
+     * @throws ValidationException if the entity is invalid or conflicts on a unique index
+     */
+    void checkUpdate(E entity, Map<ID, E> staged) throws EntityNotFoundException {
+        if (entity == null) {
+            throw new NullPointerException("Entity must not be null");
+        }
+        validator.validate(entity);
+        if (stagedOrStored(entity.getId(), staged) == null) {
+            throw new EntityNotFoundException("Entity does not exist and cannot be updated.");
+        }
+        for (UniqueIndex<?, ID, E> index : uniqueIndexes) {
+            if (index.conflicts(entity, staged)) {
+                throw new ValidationException("Entity conflicts on unique index '" + index.getName() + "'");
+            }
+        }
+        staged.put(entity.getId(), entity);
+    }
+
+    /**
+     * Stages the deletion of an entity by a unit of work holding its locks. Nothing is removed.
+     *
+     * @param staged the new versions of the entities staged by the unit, {@code null} for removed ones
+     * @return the entity to be removed, or {@code null} if no entity with the specified ID exists at this point of the
+     *         unit
+     */
+    E checkDelete(ID id, Map<ID, E> staged) {
+        if (id == null) {
+            throw new NullPointerException("ID must not be null");
+        }
+        E previous = stagedOrStored(id, staged);
+        if (previous != null) {
+            staged.put(id, null);
+        }
+        return previous;
+    }
+
+    /**
+     * Copies the entities while holding every lock, so the copy never contains part of a unit of work or batch still
+     * being applied.
+     *
+     * @return the copied entities
+     */
+    protected List<E> snapshotEntities() {
+        int[] locked = locks.lockAll();
+        try {
+            return new ArrayList<>(entities.values());
+        } finally {
+            locks.unlock(locked);
+        }
+    }
+
+    private E stagedOrStored(ID id, Map<ID, E> staged) {
+        return staged.containsKey(id) ? staged.get(id) : entities.get(id);
+    }
+
+    /**
+     * Checks whether the identifier or one of the unique keys of an entity is already taken by a stored entity.
+     *
+     * @param entity the entity to be checked
+     * @return {@code true} if the entity would be a duplicate, {@code false} otherwise
+     */
+    protected boolean isTaken(E entity) {
+        return entities.containsKey(entity.getId()) ||
+                uniqueIndexes.stream().anyMatch(index -> index.conflicts(entity));
+    }
+
+    /**
+     * Stores a new entity, unless its identifier or one of its unique keys is already taken. The caller holds the
+     * entity's locks.
+     */
+    private void insert(E entity) throws EntityAlreadyExistsException {
+        if (isTaken(entity)) {
+            throw new EntityAlreadyExistsException();
+        }
+        putEntity(entity);
+    }
+
+    /**
+     * Replaces an existing entity, unless it does not exist or one of its unique keys is owned by another entity. The
+     * caller holds the entity's locks.
+     */
+    private void replace(E entity) throws EntityNotFoundException {
+        if (!entities.containsKey(entity.getId())) {
+            throw new EntityNotFoundException("Entity does not exist and cannot be updated.");
+        }
+        for (UniqueIndex<?, ID, E> index : uniqueIndexes) {
+            if (index.conflicts(entity)) {
+                throw new ValidationException("Entity conflicts on unique index '" + index.getName() + "'");
+            }
+        }
+        putEntity(entity);
+    }
+
+    private List<Object> indexedKeysOf(Collection<ID> ids) {
+        List<Object> keys = new ArrayList<>(ids.size() * uniqueIndexes.size());
+        for (ID id : ids) {
+            uniqueIndexes.forEach(index -> keys.add(index.indexedKey(id)));
+        }
+        return keys;
+    }
+
+    /**
+     * Validates every entity of a batch before anything is locked, recording the rejected ones.
+     *
+     * @return the positions of the valid entities
+     */
+    private List<Integer> validateAll(List<E> batch, List<BatchResult.Failure<E>> failures) {
+        List<Integer> valid = new ArrayList<>(batch.size());
+        for (int position = 0; position < batch.size(); position++) {
+            E entity = batch.get(position);
+            if (entity == null) {
+                failures.add(new BatchResult.Failure<>(position, null,
+                        new NullPointerException("Entity must not be null")));
+                continue;
+            }
+
+            try {
+                validator.validate(entity);
+                valid.add(position);
+            } catch (ValidationException e) {
+                failures.add(new BatchResult.Failure<>(position, entity, e));
+            }
+        }
+        return valid;
     }
 
     /**
@@ -41,10 +504,12 @@ public class InMemoryRepository<ID, E extends Entity<ID>> implements Repository<
      */
     @Override
     public Optional<E> findOne(ID id) {
-        if (id == null) {
-            throw new NullPointerException("ID must not be null");
-        }
-        return Optional.ofNullable(entities.get(id));
+        return findOneStats.record(() -> {
+            if (id == null) {
+                throw new NullPointerException("ID must not be null");
+            }
+            return Optional.ofNullable(entities.get(id));
+        });
     }
 
     /**
@@ -54,11 +519,61 @@ public class InMemoryRepository<ID, E extends Entity<ID>> implements Repository<
      */
     @Override
     public Iterable<E> findAll() {
-        return entities.values();
+        return findAllStats.record(() -> entities.values());
+    }
+
+    /**
+     * Returns a sequential stream over a snapshot of the entities. The entities are copied into a list while every
+     * lock is held, so the snapshot is a consistent state of the repository at the time of the call, and streamed with
+     * its sized, evenly splitting spliterator; the recorded latency is the cost of the copy, during which mutations
+     * wait.
+     *
+     * @return a stream of the entities
+     */
+    @Override
+    public Stream<E> stream() {
+        return streamStats.record(() -> snapshotEntities().stream());
+    }
+
+    /**
+     * Retrieves the entities one page at a time. A listing holds a weakly consistent iterator over the storage between
+     * pages, so each page costs only its own entities. At most {@link Config#DEFAULT_PAGE_CURSORS} listings are open at
+     * once; beyond that, the oldest one expires.
+     *
+     * @param token the token of the page to be retrieved, or {@code null} to start a new listing
+     * @param size the maximum number of entities of the page
+     * @return the page, with the token of the next one if more entities follow
+     * @throws IllegalArgumentException if the token is unknown, already used or expired, or the size is not positive
+     */
+    @Override
+    public Page<E> findPage(String token, int size) {
+        return findPageStats.record(() -> {
+            if (size < 1) {
+                throw new IllegalArgumentException("Page size must be positive");
+            }
+
+            Iterator<E> iterator = token == null ? entities.values().iterator() : cursors.remove(token);
+            if (iterator == null) {
+                throw new IllegalArgumentException("Unknown or expired page token '" + token + "'");
+            }
+            List<E> items = new ArrayList<>(Math.min(size, entities.size()));
+            while (items.size() < size && iterator.hasNext()) {
+                items.add(iterator.next());
+            }
+            if (!iterator.hasNext()) {
+                return new Page<>(items, null);
+            }
+
+            String nextToken = UUID.randomUUID().toString();
+            cursors.put(nextToken, iterator);
+            return new Page<>(items, nextToken);
+        });
     }
 
     /**
      * Saves a new entity in the repository (storage).
+     * An entity already exists if its identifier is stored, or if its key of any unique index is owned by another
+     * entity.
      *
      * @param entity the entity to be saved
      * @return an {@link Optional} containing the saved entity, or an empty {@code Optional} if the entity already
@@ -67,19 +582,24 @@ public class InMemoryRepository<ID, E extends Entity<ID>> implements Repository<
      * @throws NullPointerException if the provided entity is null
      */
     public Optional<E> save(E entity) throws EntityAlreadyExistsException {
-        if (entity == null) {
-            throw new NullPointerException("Entity must not be null");
-        }
+        return saveStats.record(() -> {
+            if (entity == null) {
+                throw new NullPointerException("Entity must not be null");
+            }
 
-        validator.validate(entity);
+            validator.validate(entity);
 
-        boolean exists = entities.values().stream().anyMatch(existingEntity -> existingEntity.equals(entity));
-        if (exists) {
-            throw new EntityAlreadyExistsException();
-        }
-
-        entities.put(entity.getId(), entity);
-        return Optional.of(entity);
+            int[] locked = lockEntity(entity.getId(), entity);
+            try {
+                insert(entity);
+                afterPut(entity);
+                notifyPut(entity, false);
+            } finally {
+                locks.unlock(locked);
+            }
+            awaitPersisted();
+            return Optional.of(entity);
+        });
     }
 
     /**
@@ -92,10 +612,25 @@ public class InMemoryRepository<ID, E extends Entity<ID>> implements Repository<
      */
     @Override
     public Optional<E> delete(ID id) {
-        if (id == null) {
-            throw new NullPointerException("ID must not be null");
-        }
-        return Optional.ofNullable(entities.remove(id));
+        return deleteStats.record(() -> {
+            if (id == null) {
+                throw new NullPointerException("ID must not be null");
+            }
+
+            E entity;
+            int[] locked = lockEntity(id, null);
+            try {
+                entity = removeEntity(id);
+                if (entity != null) {
+                    afterRemove(entity);
+                    notifyRemove(entity);
+                }
+            } finally {
+                locks.unlock(locked);
+            }
+            awaitPersisted();
+            return Optional.ofNullable(entity);
+        });
     }
 
     /**
@@ -104,20 +639,150 @@ public class InMemoryRepository<ID, E extends Entity<ID>> implements Repository<
      * @param entity the entity to be updated
      * @return an {@link Optional} containing the updated entity
      * @throws EntityNotFoundException if the entity does not exist in the system
+     * @throws ValidationException if the entity's key of a unique index is owned by another entity
      * @throws NullPointerException if the provided entity is null
      */
     @Override
     public Optional<E> update(E entity) throws EntityNotFoundException {
-        if (entity == null) {
-            throw new NullPointerException("Entity must not be null");
-        }
+        return updateStats.record(() -> {
+            if (entity == null) {
+                throw new NullPointerException("Entity must not be null");
+            }
 
-        if (!entities.containsKey(entity.getId())) {
-            throw new EntityNotFoundException("Entity does not exist and cannot be updated.");
-        }
+            if (!entities.containsKey(entity.getId())) {
+                throw new EntityNotFoundException("Entity does not exist and cannot be updated.");
+            }
 
-        validator.validate(entity);
-        entities.put(entity.getId(), entity);
-        return Optional.of(entity);
+            validator.validate(entity);
+
+            int[] locked = lockEntity(entity.getId(), entity);
+            try {
+                // The entity may have been deleted concurrently since the first check
+                replace(entity);
+                afterPut(entity);
+                notifyPut(entity, true);
+            } finally {
+                locks.unlock(locked);
+            }
+            awaitPersisted();
+            return Optional.of(entity);
+        });
+    }
+
+    /**
+     * Saves a batch of new entities. Every entity is validated first; then the locks of all valid entities are taken
+     * at once, and each one is stored unless its identifier or a unique key is already taken, including by an earlier
+     * entity of the same batch.
+     *
+     * @param batch the entities to be saved
+     * @return the saved entities and the rejected ones, with the reason of each rejection
+     */
+    @Override
+    public BatchResult<E, E> saveAll(Collection<E> batch) {
+        return saveAllStats.record(() -> {
+            List<E> items = new ArrayList<>(batch);
+            List<BatchResult.Failure<E>> failures = new ArrayList<>();
+            List<Integer> valid = validateAll(items, failures);
+
+            List<E> stored = new ArrayList<>(valid.size());
+            List<E> entitiesToLock = valid.stream().map(items::get).toList();
+            int[] locked = lockEntities(entitiesToLock.stream().map(Entity::getId).toList(), entitiesToLock);
+            try {
+                for (int position : valid) {
+                    E entity = items.get(position);
+                    try {
+                        insert(entity);
+                        stored.add(entity);
+                    } catch (EntityAlreadyExistsException e) {
+                        failures.add(new BatchResult.Failure<>(position, entity, e));
+                    }
+                }
+                afterPutAll(stored);
+                stored.forEach(entity -> notifyPut(entity, false));
+            } finally {
+                locks.unlock(locked);
+            }
+            awaitPersisted();
+
+            failures.sort(Comparator.comparingInt(BatchResult.Failure::getPosition));
+            return new BatchResult<>(stored, failures);
+        });
+    }
+
+    /**
+     * Deletes a batch of entities by their identifiers, with the locks of all of them taken at once.
+     *
+     * @param ids the unique identifiers of the entities to be deleted
+     * @return the deleted entities and the rejected identifiers, with the reason of each rejection
+     */
+    @Override
+    public BatchResult<ID, E> deleteAll(Collection<ID> ids) {
+        return deleteAllStats.record(() -> {
+            List<ID> items = new ArrayList<>(ids);
+            List<BatchResult.Failure<ID>> failures = new ArrayList<>();
+
+            List<E> removed = new ArrayList<>(items.size());
+            int[] locked = lockEntities(items.stream().filter(id -> id != null).toList(), List.of());
+            try {
+                for (int position = 0; position < items.size(); position++) {
+                    ID id = items.get(position);
+                    E entity = id == null ? null : removeEntity(id);
+                    if (id == null) {
+                        failures.add(new BatchResult.Failure<>(position, null,
+                                new NullPointerException("ID must not be null")));
+                    } else if (entity == null) {
+                        failures.add(new BatchResult.Failure<>(position, id,
+                                new EntityNotFoundException("Entity does not exist and cannot be deleted.")));
+                    } else {
+                        removed.add(entity);
+                    }
+                }
+                afterRemoveAll(removed);
+                removed.forEach(this::notifyRemove);
+            } finally {
+                locks.unlock(locked);
+            }
+            awaitPersisted();
+            return new BatchResult<>(removed, failures);
+        });
+    }
+
+    /**
+     * Updates a batch of existing entities. Every entity is validated first; then the locks of all valid entities are
+     * taken at once, and each one is stored unless it does not exist or a unique key is owned by another entity.
+     *
+     * @param batch the entities with updated data
+     * @return the updated entities and the rejected ones, with the reason of each rejection
+     */
+    @Override
+    public BatchResult<E, E> updateAll(Collection<E> batch) {
+        return updateAllStats.record(() -> {
+            List<E> items = new ArrayList<>(batch);
+            List<BatchResult.Failure<E>> failures = new ArrayList<>();
+            List<Integer> valid = validateAll(items, failures);
+
+            List<E> stored = new ArrayList<>(valid.size());
+            List<E> entitiesToLock = valid.stream().map(items::get).toList();
+            int[] locked = lockEntities(entitiesToLock.stream().map(Entity::getId).toList(), entitiesToLock);
+            try {
+                for (int position : valid) {
+                    E entity = items.get(position);
+                    try {
+                        replace(entity);
+                        stored.add(entity);
+                    } catch (EntityNotFoundException | ValidationException e) {
+                        failures.add(new BatchResult.Failure<>(position, entity, e));
+                    }
+                }
+                afterPutAll(stored);
+                stored.forEach(entity -> notifyPut(entity, true));
+            } finally {
+                locks.unlock(locked);
+            }
+            awaitPersisted();
+
+            failures.sort(Comparator.comparingInt(BatchResult.Failure::getPosition));
+            return new BatchResult<>(stored, failures);
+        });
     }
 }
@@ -0,0 +1,43 @@
+package repository;
+
+import models.User;
+import models.validators.Validator;
+import utils.EmailUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * In-memory user repository with the same normalized email index as {@link UserFileRepository}, without persistence.
+ */
+public final class InMemoryUserRepository extends InMemoryRepository<String, User> implements UserRepository {
+
+    // Unique index of users by normalized email address
+    private final UniqueIndex<String, String, User> emailIndex;
+
+    /**
+     * Constructs a new InMemoryUserRepository with the specified validator.
+     *
+     * @param validator the validator used to validate User entities
+     */
+    public InMemoryUserRepository(Validator<User> validator) {
+        this(validator, new UniqueIndex<>("email", User::getEmail, EmailUtils::normalizeEmail));
+    }
+
+    private InMemoryUserRepository(Validator<User> validator, UniqueIndex<String, String, User> emailIndex) {
+        super(validator, List.of(emailIndex));
+        this.emailIndex = emailIndex;
+    }
+
+    /**
+     * Finds a user by its email address, through the normalized email index.
+     *
+     * @param email the email address of the user to be retrieved
+     * @return an {@link Optional} containing the user with the specified email address, or an empty {@code Optional}
+     *         if no user is found
+     */
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return findByUniqueKey(emailIndex, email);
+    }
+}
@@ -0,0 +1,103 @@
+package repository;
+
+/**
+ * Summary of a repository startup load: rows read from the snapshot, journal records replayed, rows rejected and the
+ * time spent.
+ */
+public class LoadReport {
+
+    private final String source; // Path of the snapshot file that was loaded
+    private final int snapshotRows; // Number of rows read from the snapshot file
+    private final long journalRecords; // Number of journal records replayed over the snapshot
+    private final int rejectedRows; // Number of rows dropped as duplicates, invalid or with dangling references
+    private final boolean trusted; // Whether the snapshot checksum matched and per-row validation was skipped
+    private final long elapsedMillis; // Total load time in milliseconds
+
+    /**
+     * Constructs a new LoadReport with the specified counters.
+     *
+     * @param source the path of the snapshot file that was loaded
+     * @param snapshotRows the number of rows read from the snapshot file
+     * @param journalRecords the number of journal records replayed over the snapshot
+     * @param rejectedRows the number of rows dropped during the load
+     * @param trusted whether the snapshot checksum matched and per-row validation was skipped
+     * @param elapsedMillis the total load time in milliseconds
+     */
+    public LoadReport(String source, int snapshotRows, long journalRecords, int rejectedRows, boolean trusted,
+                      long elapsedMillis) {
+        this.source = source;
+        this.snapshotRows = snapshotRows;
+        this.journalRecords = journalRecords;
+        this.rejectedRows = rejectedRows;
+        this.trusted = trusted;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Returns the path of the snapshot file that was loaded.
+     *
+     * @return the path of the snapshot file
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the number of rows read from the snapshot file.
+     *
+     * @return the number of snapshot rows
+     */
+    public int getSnapshotRows() {
+        return snapshotRows;
+    }
+
+    /**
+     * Returns the number of journal records replayed over the snapshot.
+     *
+     * @return the number of replayed journal records
+     */
+    public long getJournalRecords() {
+        return journalRecords;
+    }
+
+    /**
+     * Returns the number of rows dropped as duplicates, invalid or with dangling references.
+     *
+     * @return the number of rejected rows
+     */
+    public int getRejectedRows() {
+        return rejectedRows;
+    }
+
+    /**
+     * Returns whether the snapshot checksum matched and per-row validation was skipped.
+     *
+     * @return {@code true} if the snapshot was bulk-loaded as trusted, {@code false} otherwise
+     */
+    public boolean isTrusted() {
+        return trusted;
+    }
+
+    /**
+     * Returns the total load time in milliseconds.
+     *
+     * @return the load time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Returns a string representation of the load report.
+     *
+     * @return a string representation of the load report
+     */
+    @Override
+    public String toString() {
+        return "Loaded " + snapshotRows + " rows" +
+                (trusted ? " (trusted)" : " (validated)") +
+                " and " + journalRecords + " journal records from " + source +
+                ", rejected " + rejectedRows +
+                " in " + elapsedMillis + " ms";
+    }
+}
@@ -0,0 +1,52 @@
+package repository;
+
+import java.util.List;
+
+/**
+ * One page of a paginated listing: the entities of the page and the token continuing the listing after them.
+ *
+ * @param <E> the type of the listed entities
+ */
+public class Page<E> {
+
+    private final List<E> items; // Entities of the page, in listing order
+    private final String nextToken; // Token of the next page, or null if this is the last page
+
+    /**
+     * Constructs a new Page.
+     *
+     * @param items the entities of the page
+     * @param nextToken the token of the next page, or {@code null} if this is the last page
+     */
+    public Page(List<E> items, String nextToken) {
+        this.items = List.copyOf(items);
+        this.nextToken = nextToken;
+    }
+
+    /**
+     * Returns the entities of the page.
+     *
+     * @return the entities, in listing order
+     */
+    public List<E> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the token to be passed to retrieve the next page. A token can be used only once.
+     *
+     * @return the token of the next page, or {@code null} if this is the last page
+     */
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    /**
+     * Tells whether more entities follow this page.
+     *
+     * @return {@code true} if there is a next page, {@code false} otherwise
+     */
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+}
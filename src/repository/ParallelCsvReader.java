@@ -0,0 +1,210 @@
+package repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * Parallel reader of comma-separated files, following the quoting rules of {@link CsvRecords}.
+ *
+ * The file is memory-mapped and split into line-aligned chunks, which are parsed on multiple cores straight from the
+ * mapped bytes: fields are decoded directly into strings, without materializing a string per line or splitting it.
+ * The CRC32 of the whole file is computed concurrently with parsing.
+ */
+public class ParallelCsvReader {
+
+    // Files smaller than this are parsed as a single chunk
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Result of reading a file: the parsed records in file order, the number of malformed records and the checksum of
+     * the file.
+     *
+     * @param <E> the type of the parsed records
+     */
+    public static class Result<E> {
+
+        private final List<E> records; // Parsed records, in file order
+        private final int malformedRecords; // Number of records the parser rejected
+        private final long checksum; // CRC32 of the raw file content
+
+        private Result(List<E> records, int malformedRecords, long checksum) {
+            this.records = records;
+            this.malformedRecords = malformedRecords;
+            this.checksum = checksum;
+        }
+
+        /**
+         * Returns the parsed records, in file order.
+         *
+         * @return the parsed records
+         */
+        public List<E> getRecords() {
+            return records;
+        }
+
+        /**
+         * Returns the number of records the parser rejected.
+         *
+         * @return the number of malformed records
+         */
+        public int getMalformedRecords() {
+            return malformedRecords;
+        }
+
+        /**
+         * Returns the CRC32 of the raw file content.
+         *
+         * @return the checksum of the file
+         */
+        public long getChecksum() {
+            return checksum;
+        }
+    }
+
+    /**
+     * Reads and parses every record of the file in parallel.
+     * The parser receives the fields of one record at a time, in a list reused between records, and must not keep a
+     * reference to it. Records the parser rejects with a runtime exception are counted as malformed and skipped.
+     *
+     * @param path the path of the file
+     * @param parser the function converting the fields of a record into a parsed record
+     * @return the parsed records, the number of malformed records and the checksum of the file
+     * @param <E> the type of the parsed records
+     * @throws IOException if an error occurs while mapping the file
+     */
+    public static <E> Result<E> read(Path path, Function<List<String>, E> parser) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File " + path + " exceeds the maximum mappable size");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        ByteBuffer mapped = buffer;
+        CompletableFuture<Long> checksum = CompletableFuture.supplyAsync(() -> {
+            CRC32 crc = new CRC32();
+            crc.update(mapped.duplicate());
+            return crc.getValue();
+        });
+
+        int[] boundaries = chunkBoundaries(buffer);
+        List<ChunkResult<E>> chunks = IntStream.range(0, boundaries.length - 1)
+                .parallel()
+                .mapToObj(chunk -> parseChunk(mapped, boundaries[chunk], boundaries[chunk + 1], parser))
+                .toList();
+
+        List<E> records = new ArrayList<>(chunks.stream().mapToInt(chunk -> chunk.records.size()).sum());
+        int malformedRecords = 0;
+        for (ChunkResult<E> chunk : chunks) {
+            records.addAll(chunk.records);
+            malformedRecords += chunk.malformedRecords;
+        }
+        return new Result<>(records, malformedRecords, checksum.join());
+    }
+
+    /**
+     * Splits the buffer into chunks starting right after a line feed, one or a few per available core.
+     */
+    private static int[] chunkBoundaries(ByteBuffer buffer) {
+        int size = buffer.limit();
+        int chunks = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4, size / MIN_CHUNK_SIZE));
+
+        int[] boundaries = new int[chunks + 1];
+        int count = 1;
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            int position = Math.max((int) ((long) size * chunk / chunks), boundaries[count - 1]);
+            while (position < size && buffer.get(position - 1) != '\n') {
+                position++;
+            }
+            if (position > boundaries[count - 1] && position < size) {
+                boundaries[count++] = position;
+            }
+        }
+        boundaries[count++] = size;
+        return count == boundaries.length ? boundaries : Arrays.copyOf(boundaries, count);
+    }
+
+    private static <E> ChunkResult<E> parseChunk(ByteBuffer buffer, int start, int end,
+                                                 Function<List<String>, E> parser) {
+        ChunkResult<E> result = new ChunkResult<>();
+        List<String> fields = new ArrayList<>();
+        byte[] scratch = new byte[256];
+
+        int position = start;
+        while (position < end) {
+            fields.clear();
+            int lineStart = position;
+
+            while (true) {
+                int length = 0;
+                if (position < end && buffer.get(position) == '"') {
+                    position++;
+                    while (position < end) {
+                        byte current = buffer.get(position++);
+                        if (current == '"') {
+                            if (position < end && buffer.get(position) == '"') {
+                                position++;
+                            } else {
+                                break;
+                            }
+                        }
+                        if (length == scratch.length) {
+                            scratch = Arrays.copyOf(scratch, length * 2);
+                        }
+                        scratch[length++] = current;
+                    }
+                }
+                while (position < end) {
+                    byte current = buffer.get(position);
+                    if (current == ',' || current == '\n' || current == '\r') {
+                        break;
+                    }
+                    if (length == scratch.length) {
+                        scratch = Arrays.copyOf(scratch, length * 2);
+                    }
+                    scratch[length++] = current;
+                    position++;
+                }
+                fields.add(new String(scratch, 0, length, StandardCharsets.UTF_8));
+
+                if (position < end && buffer.get(position) == ',') {
+                    position++;
+                } else {
+                    break;
+                }
+            }
+
+            boolean blank = position == lineStart;
+            while (position < end && (buffer.get(position) == '\r' || buffer.get(position) == '\n')) {
+                position++;
+            }
+            if (blank) {
+                continue;
+            }
+
+            try {
+                result.records.add(parser.apply(fields));
+            } catch (RuntimeException e) {
+                result.malformedRecords++;
+            }
+        }
+        return result;
+    }
+
+    private static class ChunkResult<E> {
+        private final List<E> records = new ArrayList<>();
+        private int malformedRecords;
+    }
+}
@@ -0,0 +1,328 @@
+package repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Single background thread performing every file write of a repository, in submission order.
+ *
+ * Writing threads only enqueue operations; the writer takes all operations queued at that moment and runs them. The
+ * flush operation, which makes the written operations durable, then runs according to the {@link DurabilityPolicy}:
+ * once per batch under {@link DurabilityPolicy#COMMIT}, so concurrent mutations share a single flush (group commit),
+ * or once per interval or per number of written records under the write-behind policies. A flush also runs as soon as
+ * a caller waits in {@link #awaitDurable()}. Since the files are only touched by this thread, flushes are serialized
+ * without any lock visible to readers of the repository.
+ *
+ * The first operation or flush that fails leaves the writer failed: nothing run from then on is reported durable, and
+ * every caller waiting for durability gets the failure as an {@link UncheckedIOException}.
+ *
+ * A shutdown hook drains the queue and flushes when the JVM exits, so write-behind operations are not lost on a normal
+ * exit.
+ */
+public class PersistenceWriter {
+
+    /**
+     * File operation run on the writer thread.
+     */
+    @FunctionalInterface
+    public interface Operation {
+
+        /**
+         * Runs the operation.
+         *
+         * @throws IOException if an error occurs while writing
+         */
+        void run() throws IOException;
+    }
+
+    // Maximum number of operations run before the flush policy is checked
+    private static final int MAX_BATCH_SIZE = 4096;
+
+    // Task waking up the writer thread when a caller waits for durability
+    private static final Task WAKE_UP = new Task(() -> { }, 0);
+
+    private final String name; // Name of the writer, used in thread names and error messages
+    private final Operation flush; // Operation making every operation run so far durable
+    private final DurabilityPolicy policy; // When the flush operation runs
+    private final long intervalNanos; // Maximum age of an unflushed operation under the interval policy
+    private final int mutationThreshold; // Number of unflushed records triggering a flush under the mutations policy
+    private final BlockingQueue<Task> queue; // Operations not yet run
+    private Thread thread; // Writer thread, null until started, guarded by this
+    private Thread shutdownHook; // Hook draining the writer on exit, null until started, guarded by this
+    private long submitted; // Number of submitted operations, guarded by this
+    private long durable; // Number of operations run and flushed, guarded by this
+    private long requested; // Number of operations some caller waits to be flushed, guarded by this
+    private boolean shutdown; // Whether the writer stopped accepting operations, guarded by this
+    private IOException failure; // First failure of an operation or flush, null if none, guarded by this
+
+    // Predefined Logger for error reporting across application
+    private static final Logger LOGGER = Logger.getLogger(PersistenceWriter.class.getName());
+
+    /**
+     * Constructs a new PersistenceWriter flushing after every batch of operations. Operations only run once the writer
+     * is started by {@link #start()}.
+     *
+     * @param name the name of the writer
+     * @param flush the operation making the operations run so far durable
+     */
+    public PersistenceWriter(String name, Operation flush) {
+        this(name, flush, DurabilityPolicy.COMMIT, 0, 0);
+    }
+
+    /**
+     * Constructs a new PersistenceWriter with the specified durability policy. Operations only run once the writer is
+     * started by {@link #start()}.
+     *
+     * @param name the name of the writer
+     * @param flush the operation making the operations run so far durable
+     * @param policy the policy deciding when the flush operation runs
+     * @param intervalMillis the maximum time an operation stays unflushed under {@link DurabilityPolicy#INTERVAL}
+     * @param mutationThreshold the number of records flushed together under {@link DurabilityPolicy#MUTATIONS}
+     */
+    public PersistenceWriter(String name, Operation flush, DurabilityPolicy policy, long intervalMillis,
+                             int mutationThreshold) {
+        this.name = name;
+        this.flush = flush;
+        this.policy = policy;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, intervalMillis));
+        this.mutationThreshold = Math.max(1, mutationThreshold);
+        this.queue = new LinkedBlockingQueue<>();
+    }
+
+    /**
+     * Starts the daemon thread of the writer and registers the shutdown hook draining it. Must be called once, before
+     * waiting for any operation.
+     *
+     * @return this writer
+     * @throws IllegalStateException if the writer was already started
+     */
+    public synchronized PersistenceWriter start() {
+        if (thread != null) {
+            throw new IllegalStateException("Persistence writer " + name + " was already started");
+        }
+        thread = new Thread(this::run, "persistence-writer-" + name);
+        thread.setDaemon(true);
+        thread.start();
+
+        shutdownHook = new Thread(this::drain, "persistence-writer-drain-" + name);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        return this;
+    }
+
+    /**
+     * Returns the durability policy of the writer.
+     *
+     * @return the durability policy
+     */
+    public DurabilityPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Enqueues an operation writing a single record to be run on the writer thread.
+     *
+     * @param operation the operation to be run
+     * @throws IllegalStateException if the writer was shut down
+     */
+    public void submit(Operation operation) {
+        submit(operation, 1);
+    }
+
+    /**
+     * Enqueues an operation to be run on the writer thread.
+     *
+     * @param operation the operation to be run
+     * @param records the number of records written by the operation, counted towards the threshold of
+     *                {@link DurabilityPolicy#MUTATIONS}
+     * @throws IllegalStateException if the writer was shut down
+     */
+    public synchronized void submit(Operation operation, int records) {
+        if (shutdown) {
+            throw new IllegalStateException("Persistence writer " + name + " was shut down");
+        }
+        queue.add(new Task(operation, records));
+        submitted++;
+    }
+
+    /**
+     * Waits for the operations submitted before this call as required by the durability policy: until they are run
+     * and flushed under {@link DurabilityPolicy#COMMIT}, not at all under the write-behind policies. Must not be
+     * called from the writer thread itself.
+     *
+     * @throws UncheckedIOException if the writer failed
+     */
+    public void awaitCommitted() {
+        if (!policy.isWriteBehind()) {
+            awaitDurable();
+            return;
+        }
+        synchronized (this) {
+            throwIfFailed();
+        }
+    }
+
+    /**
+     * Waits until every operation submitted before this call has been run and flushed, flushing right away instead of
+     * waiting for the durability policy. Must not be called from the writer thread itself.
+     *
+     * @throws UncheckedIOException if the writer failed before the operations were flushed
+     */
+    public void awaitDurable() {
+        synchronized (this) {
+            long target = submitted;
+            if (durable >= target) {
+                return;
+            }
+            throwIfFailed();
+            if (requested < target) {
+                requested = target;
+                if (policy.isWriteBehind()) {
+                    queue.add(WAKE_UP);
+                    submitted++;
+                }
+            }
+            while (durable < target && failure == null && thread != null && thread.isAlive()) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            throwIfFailed();
+        }
+    }
+
+    /**
+     * Stops accepting operations, waits until every submitted operation is run and flushed, and stops the writer
+     * thread.
+     *
+     * @throws UncheckedIOException if the writer failed before the operations were flushed
+     */
+    public void shutdown() {
+        Thread writerThread;
+        Thread hook;
+        synchronized (this) {
+            shutdown = true;
+            writerThread = thread;
+            hook = shutdownHook;
+        }
+        if (writerThread == null) {
+            return;
+        }
+        try {
+            awaitDurable();
+        } finally {
+            writerThread.interrupt();
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException e) {
+                // The JVM is already shutting down, and the hook is running or done
+            }
+        }
+    }
+
+    /**
+     * Flushes the submitted operations when the JVM exits.
+     */
+    private void drain() {
+        try {
+            awaitDurable();
+        } catch (UncheckedIOException e) {
+            LOGGER.log(Level.SEVERE, "Operations of " + name + " could not be persisted before exit", e);
+        }
+    }
+
+    private void throwIfFailed() {
+        if (failure != null) {
+            throw new UncheckedIOException("Persistence writer " + name + " failed", failure);
+        }
+    }
+
+    private void run() {
+        List<Task> batch = new ArrayList<>();
+        long executed = 0; // Number of operations run, whether flushed or not
+        long unflushed = 0; // Number of operations run since the last flush
+        long unflushedRecords = 0; // Number of records written since the last flush
+        long oldestUnflushed = 0; // Time the oldest unflushed operation was run, in nanoseconds
+        while (true) {
+            try {
+                Task first;
+                if (unflushed > 0 && policy == DurabilityPolicy.INTERVAL) {
+                    first = queue.poll(intervalNanos - (System.nanoTime() - oldestUnflushed), TimeUnit.NANOSECONDS);
+                } else {
+                    first = queue.take();
+                }
+                if (first != null) {
+                    batch.add(first);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+
+            if (!batch.isEmpty() && unflushed == 0) {
+                oldestUnflushed = System.nanoTime();
+            }
+            for (Task task : batch) {
+                execute(task.operation());
+                unflushedRecords += task.records();
+            }
+            executed += batch.size();
+            unflushed += batch.size();
+            batch.clear();
+
+            if (unflushed > 0 && isFlushDue(executed, unflushedRecords, oldestUnflushed)) {
+                execute(flush);
+                unflushed = 0;
+                unflushedRecords = 0;
+                synchronized (this) {
+                    if (failure == null) {
+                        durable = executed;
+                    }
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    private boolean isFlushDue(long executed, long unflushedRecords, long oldestUnflushed) {
+        synchronized (this) {
+            if (requested > durable && executed >= requested) {
+                return true;
+            }
+        }
+        return switch (policy) {
+            case COMMIT -> true;
+            case INTERVAL -> System.nanoTime() - oldestUnflushed >= intervalNanos;
+            case MUTATIONS -> unflushedRecords >= mutationThreshold;
+        };
+    }
+
+    private void execute(Operation operation) {
+        try {
+            operation.run();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "An error occurred while persisting " + name, e);
+            synchronized (this) {
+                if (failure == null) {
+                    failure = e instanceof IOException ioException ? ioException : new IOException(e);
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Submitted operation, with the number of records it writes.
+     */
+    private record Task(Operation operation, int records) {
+    }
+}
@@ -4,7 +4,9 @@ import exceptions.EntityAlreadyExistsException;
 import exceptions.EntityNotFoundException;
 import models.Entity;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * A generic repository interface for managing entities that extend the Entity class.
@@ -33,6 +35,36 @@ public interface Repository<ID, E extends Entity<ID>> {
      */
     Iterable<E> findAll();
 
+    /**
+     * Returns a sequential stream over a snapshot of the entities, taken when the method is called. The stream is sized
+     * and splits evenly, and mutations made while it is consumed do not affect it.
+     *
+     * @return a stream of the entities
+     */
+    Stream<E> stream();
+
+    /**
+     * Returns a parallel stream over a snapshot of the entities, taken when the method is called.
+     *
+     * @return a parallel stream of the entities
+     */
+    default Stream<E> parallelStream() {
+        return stream().parallel();
+    }
+
+    /**
+     * Retrieves the entities one page at a time. A listing started without a token walks the entities as they are when
+     * each page is read: entities present during the whole listing are returned exactly once, entities added or
+     * removed meanwhile may or may not be.
+     *
+     * @param token the token of the page to be retrieved, as returned with the previous page, or {@code null} to start
+     *              a new listing
+     * @param size the maximum number of entities of the page
+     * @return the page, with the token of the next one if more entities follow
+     * @throws IllegalArgumentException if the token is unknown, already used or expired, or the size is not positive
+     */
+    Page<E> findPage(String token, int size);
+
     /**
      * Saves a new entity or updates an existing entity in the repository.
      *
@@ -60,4 +92,45 @@ public interface Repository<ID, E extends Entity<ID>> {
      * @throws EntityNotFoundException if the entity does not exist in the system
      */
     Optional<E> update(E entity) throws EntityNotFoundException;
+
+    /**
+     * Saves a batch of new entities. Every entity is validated first, then all valid entities are applied as a single
+     * unit and persisted once. Invalid or already existing entities are reported without aborting the others.
+     *
+     * @param entities the entities to be saved
+     * @return the saved entities and the rejected ones, with the reason of each rejection
+     */
+    BatchResult<E, E> saveAll(Collection<E> entities);
+
+    /**
+     * Deletes a batch of entities by their unique identifiers, as a single unit persisted once. Identifiers of
+     * missing entities are reported without aborting the others.
+     *
+     * @param ids the unique identifiers of the entities to be deleted
+     * @return the deleted entities and the rejected identifiers, with the reason of each rejection
+     */
+    BatchResult<ID, E> deleteAll(Collection<ID> ids);
+
+    /**
+     * Updates a batch of existing entities. Every entity is validated first, then all valid entities are applied as a
+     * single unit and persisted once. Invalid or missing entities are reported without aborting the others.
+     *
+     * @param entities the entities with updated data
+     * @return the updated entities and the rejected ones, with the reason of each rejection
+     */
+    BatchResult<E, E> updateAll(Collection<E> entities);
+
+    /**
+     * Waits until every mutation applied so far is persisted durably, for repositories that persist mutations in the
+     * background.
+     */
+    void awaitDurable();
+
+    /**
+     * Registers a listener notified of each mutation, including the mutations of units of work, while the mutated
+     * entities are still locked.
+     *
+     * @param listener the listener to be registered
+     */
+    void addListener(RepositoryListener<ID, E> listener);
 }
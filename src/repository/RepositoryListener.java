@@ -0,0 +1,38 @@
+package repository;
+
+import models.Entity;
+
+/**
+ * Listener notified by a {@link Repository} of each mutation of an entity, while the locks of the entity are still
+ * held, so the mutations of the same entity are reported in the order they were committed. Listeners run inside the
+ * critical section of the mutation: they must be quick and must neither block nor access the repository.
+ *
+ * @param <ID> the type of the unique identifier for the entity
+ * @param <E> the type of the entity that extends {@link Entity}
+ */
+public interface RepositoryListener<ID, E extends Entity<ID>> {
+
+    /**
+     * Called when a new entity was stored.
+     *
+     * @param entity the saved entity
+     */
+    default void onSaved(E entity) {
+    }
+
+    /**
+     * Called when an entity was removed.
+     *
+     * @param entity the deleted entity
+     */
+    default void onDeleted(E entity) {
+    }
+
+    /**
+     * Called when an existing entity was replaced.
+     *
+     * @param entity the updated entity
+     */
+    default void onUpdated(E entity) {
+    }
+}
@@ -0,0 +1,165 @@
+package repository;
+
+import exceptions.EntityAlreadyExistsException;
+import exceptions.EntityNotFoundException;
+import exceptions.ValidationException;
+import models.User;
+import models.validators.UserValidator;
+import utils.Config;
+import utils.EmailUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Command-line stress test of concurrent repository access, reporting throughput for an increasing number of threads.
+ *
+ * Usage: {@code RepositoryStressTool [memory|file] [<SECONDS_PER_LEVEL>]}. Each level starts from a fresh repository
+ * holding {@value #PRELOADED_USERS} users, then every thread runs a mix of 80% lookups (by identifier and by email),
+ * 10% saves drawing emails from a small shared pool (so concurrent saves conflict on the unique email index), 5%
+ * updates and 5% deletes. After each level the email index is checked against the stored users; the tool exits with
+ * status 1 if a check failed, and stops at once if an operation failed unexpectedly. The {@code file} mode
+ * uses a journaled {@link UserFileRepository} with the default {@link DurabilityPolicy} on a scratch file in the local
+ * storage directory, removed afterwards.
+ */
+public class RepositoryStressTool {
+
+    private static final int PRELOADED_USERS = 10_000;
+    private static final int EMAIL_POOL_SIZE = 50_000;
+    private static final String STRESS_STORAGE = "stressUserData";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        boolean fileMode = args.length > 0 && args[0].equals("file");
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 2;
+
+        int maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+        boolean consistent = true;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            deleteStressFiles();
+            UserRepository repository = fileMode
+                    ? new UserFileRepository(STRESS_STORAGE, new UserValidator())
+                    : new InMemoryUserRepository(new UserValidator());
+
+            List<String> preloaded = new ArrayList<>();
+            for (int i = 0; i < PRELOADED_USERS; i++) {
+                User user = new User("Stress", "User", "password", "preloaded" + i + "@example.com");
+                try {
+                    repository.save(user);
+                    preloaded.add(user.getId());
+                } catch (EntityAlreadyExistsException e) {
+                    // Cannot happen with distinct emails
+                }
+            }
+
+            runLevel(repository, preloaded, threads, seconds);
+            consistent &= checkInvariants(repository);
+            if (repository instanceof AbstractFileRepository<?, ?> fileRepository) {
+                fileRepository.close();
+            }
+        }
+        deleteStressFiles();
+
+        if (!consistent) {
+            System.out.println("[ERROR] Invariants were violated.");
+            System.exit(1);
+        }
+    }
+
+    private static void runLevel(UserRepository repository, List<String> preloaded, int threads, long seconds)
+            throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        LongAdder conflicts = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<String> saved = new ArrayList<>();
+                try {
+                    while (running.get()) {
+                        int operation = random.nextInt(100);
+                        try {
+                            if (operation < 40) {
+                                repository.findOne(preloaded.get(random.nextInt(preloaded.size())));
+                            } else if (operation < 80) {
+                                repository.findByEmail("preloaded" + random.nextInt(PRELOADED_USERS) +
+                                        "@example.com");
+                            } else if (operation < 90) {
+                                User user = new User("Stress", "User", "password",
+                                        "pool" + random.nextInt(EMAIL_POOL_SIZE) + "@example.com");
+                                repository.save(user);
+                                saved.add(user.getId());
+                            } else if (operation < 95) {
+                                Optional<User> user = repository.findOne(
+                                        preloaded.get(random.nextInt(preloaded.size())));
+                                if (user.isPresent()) {
+                                    User updated = new User("Updated", "User", "password", user.get().getEmail());
+                                    updated.setId(user.get().getId());
+                                    repository.update(updated);
+                                }
+                            } else if (!saved.isEmpty()) {
+                                repository.delete(saved.remove(saved.size() - 1));
+                            }
+                        } catch (EntityAlreadyExistsException | EntityNotFoundException | ValidationException e) {
+                            conflicts.increment();
+                        }
+                        operations.increment();
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    running.set(false);
+                } finally {
+                    done.countDown();
+                }
+            }, "stress-worker-" + t);
+            worker.start();
+        }
+
+        // A failing worker ends the level early
+        done.await(seconds, TimeUnit.SECONDS);
+        running.set(false);
+        done.await();
+        if (failure.get() != null) {
+            throw new IllegalStateException("Stress operation failed", failure.get());
+        }
+
+        System.out.printf("[INFO] threads=%-3d ops/s=%-12d conflicts=%d%n", threads, operations.sum() / seconds,
+                conflicts.sum());
+    }
+
+    private static boolean checkInvariants(UserRepository repository) {
+        Set<String> emails = new HashSet<>();
+        int users = 0;
+        boolean consistent = true;
+        for (User user : repository.findAll()) {
+            users++;
+            Optional<User> indexed = repository.findByEmail(user.getEmail());
+            if (indexed.isEmpty() || !indexed.get().getId().equals(user.getId())) {
+                System.out.println("[ERROR] Email index does not point to user " + user.getId());
+                consistent = false;
+            }
+            if (!emails.add(EmailUtils.normalizeEmail(user.getEmail()))) {
+                System.out.println("[ERROR] Duplicate email " + user.getEmail());
+                consistent = false;
+            }
+        }
+        System.out.println("[INFO] Invariants checked over " + users + " users.");
+        return consistent;
+    }
+
+    private static void deleteStressFiles() throws IOException {
+        for (String suffix : List.of(".csv", ".csv.crc", ".csv.tmp", ".bin", ".log", ".log.compacting")) {
+            Files.deleteIfExists(Path.of(Config.DEFAULT_LOCAL_STORAGE_PATH, STRESS_STORAGE + suffix));
+        }
+    }
+}
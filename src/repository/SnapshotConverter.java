@@ -0,0 +1,47 @@
+package repository;
+
+import models.validators.FriendshipValidator;
+import models.validators.UserValidator;
+import utils.Config;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Command-line tool migrating the local storage between snapshot formats.
+ *
+ * Usage: {@code SnapshotConverter <csv|binary> <csv|binary>}. The user and friendship repositories are loaded from
+ * snapshots in the source format (with their journals replayed), then written back as snapshots in the target format.
+ * Run it before switching {@link Config#DEFAULT_BINARY_SNAPSHOT_ENABLED}.
+ */
+public class SnapshotConverter {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("[ERROR] Usage: SnapshotConverter <csv|binary> <csv|binary>");
+            return;
+        }
+
+        SnapshotFormat source;
+        SnapshotFormat target;
+        try {
+            source = SnapshotFormat.valueOf(args[0].toUpperCase(Locale.ROOT));
+            target = SnapshotFormat.valueOf(args[1].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.out.println("[ERROR] Unknown snapshot format. Expected 'csv' or 'binary'.");
+            return;
+        }
+
+        UserFileRepository userRepository = new UserFileRepository(Config.DEFAULT_LOCAL_USER_STORAGE,
+                new UserValidator(), source);
+        FriendshipFileRepository friendshipRepository = new FriendshipFileRepository(
+                Config.DEFAULT_LOCAL_FRIENDSHIP_STORAGE, new FriendshipValidator(userRepository), source);
+
+        userRepository.exportSnapshot(target);
+        friendshipRepository.exportSnapshot(target);
+
+        System.out.println("[INFO] " + userRepository.getLoadReport());
+        System.out.println("[INFO] " + friendshipRepository.getLoadReport());
+        System.out.println("[INFO] Snapshots converted from " + source + " to " + target + ".");
+    }
+}
@@ -0,0 +1,29 @@
+package repository;
+
+import utils.Config;
+
+/**
+ * On-disk formats of the snapshot files written by {@link AbstractFileRepository}.
+ */
+public enum SnapshotFormat {
+
+    /**
+     * Text snapshot with one comma-separated record per line, accompanied by a checksum file.
+     */
+    CSV,
+
+    /**
+     * Memory-mapped binary snapshot with fixed-width records and a string table, see
+     * {@link repository.binary.BinarySnapshot}.
+     */
+    BINARY;
+
+    /**
+     * Returns the snapshot format selected by {@link Config#DEFAULT_BINARY_SNAPSHOT_ENABLED}.
+     *
+     * @return the default snapshot format
+     */
+    public static SnapshotFormat defaultFormat() {
+        return Config.DEFAULT_BINARY_SNAPSHOT_ENABLED ? BINARY : CSV;
+    }
+}
@@ -0,0 +1,254 @@
+package repository;
+
+import models.Entity;
+import models.Friendship;
+import models.User;
+import models.validators.FriendshipValidator;
+import models.validators.UserValidator;
+import utils.Config;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Command-line tool generating a synthetic social network with a power-law degree distribution into the local storage.
+ *
+ * Usage: {@code SocialGraphGenerator <USERS> [ba|rmat] [<AVERAGE_DEGREE>] [<PENDING_RATIO>] [<SEED>] [--overwrite]}.
+ * <ul>
+ *     <li>{@code ba} (default) grows the graph by Barabási–Albert preferential attachment: every new user befriends
+ *     half the average degree of existing users, chosen proportionally to their degree.</li>
+ *     <li>{@code rmat} draws edges by recursive matrix partitioning with probabilities 0.57, 0.19, 0.19 and 0.05, which
+ *     also yields community structure; self-loops and duplicate edges are dropped.</li>
+ * </ul>
+ * Each edge becomes a pending friend request with the given probability (default 0.1), otherwise an accepted friendship
+ * stored in both directions, as {@code Network.makeFriendship} does. Identifiers, names, passwords and dates are all
+ * drawn from the seed (default 42), so the same arguments always produce the same files. The users and friendships are
+ * written directly as checksummed snapshots in the configured snapshot format, so they are trusted at the next startup.
+ * Existing local storage is only replaced with {@code --overwrite}.
+ */
+public class SocialGraphGenerator {
+
+    private static final String[] FIRST_NAMES = {
+            "Alice", "Bob", "Carol", "David", "Emma", "Frank", "Grace", "Henry", "Irene", "Jack", "Karen", "Liam",
+            "Maria", "Noah", "Olivia", "Peter", "Quinn", "Rachel", "Samuel", "Tina"
+    };
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Brown", "Taylor", "Miller", "Wilson", "Moore", "Anderson", "Thomas", "Jackson",
+            "White", "Harris", "Martin", "Thompson", "Garcia", "Martinez", "Robinson", "Clark", "Lewis", "Walker"
+    };
+
+    // R-MAT probabilities of the top-left, top-right and bottom-left quadrants; the bottom-right one gets the rest
+    private static final double RMAT_A = 0.57;
+    private static final double RMAT_B = 0.19;
+    private static final double RMAT_C = 0.19;
+
+    // Start of the period in which friendship dates are drawn
+    private static final LocalDateTime FIRST_DATE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int DATE_RANGE_SECONDS = 365 * 24 * 3600;
+
+    public static void main(String[] args) throws IOException {
+        List<String> params = new ArrayList<>(Arrays.asList(args));
+        boolean overwrite = params.remove("--overwrite");
+        if (params.isEmpty() || params.size() > 5) {
+            System.out.println("[ERROR] Usage: SocialGraphGenerator <USERS> [ba|rmat] [<AVERAGE_DEGREE>] " +
+                    "[<PENDING_RATIO>] [<SEED>] [--overwrite]");
+            return;
+        }
+
+        int users = Integer.parseInt(params.get(0));
+        String model = params.size() > 1 ? params.get(1).toLowerCase(Locale.ROOT) : "ba";
+        int averageDegree = params.size() > 2 ? Integer.parseInt(params.get(2)) : 8;
+        double pendingRatio = params.size() > 3 ? Double.parseDouble(params.get(3)) : 0.1;
+        long seed = params.size() > 4 ? Long.parseLong(params.get(4)) : 42;
+        if (users < 2 || averageDegree < 1 || pendingRatio < 0 || pendingRatio > 1) {
+            System.out.println("[ERROR] Expected at least 2 users, a positive degree and a pending ratio in [0, 1].");
+            return;
+        }
+
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        int[][] edges = switch (model) {
+            case "ba" -> barabasiAlbert(users, Math.max(1, averageDegree / 2), random);
+            case "rmat" -> rmat(users, (long) users * averageDegree / 2, random);
+            default -> null;
+        };
+        if (edges == null) {
+            System.out.println("[ERROR] Unknown model '" + model + "'. Expected 'ba' or 'rmat'.");
+            return;
+        }
+
+        UserFileRepository userRepository = new UserFileRepository(Config.DEFAULT_LOCAL_USER_STORAGE,
+                new UserValidator(), SnapshotFormat.defaultFormat(), DurabilityPolicy.COMMIT);
+        FriendshipFileRepository friendshipRepository = new FriendshipFileRepository(
+                Config.DEFAULT_LOCAL_FRIENDSHIP_STORAGE, new FriendshipValidator(userRepository),
+                SnapshotFormat.defaultFormat(), DurabilityPolicy.COMMIT);
+        if (!overwrite && (userRepository.findAll().iterator().hasNext() ||
+                friendshipRepository.findAll().iterator().hasNext())) {
+            System.out.println("[ERROR] The local storage is not empty. Use --overwrite to replace it.");
+            userRepository.close();
+            friendshipRepository.close();
+            return;
+        }
+        clear(friendshipRepository);
+        clear(userRepository);
+
+        List<User> generatedUsers = generateUsers(users, random);
+        List<Friendship> friendships = new ArrayList<>();
+        int pending = 0;
+        int[] degrees = new int[users];
+        for (int i = 0; i < edges[0].length; i++) {
+            int u = edges[0][i];
+            int v = edges[1][i];
+            String uid = generatedUsers.get(u).getId();
+            String vid = generatedUsers.get(v).getId();
+            LocalDateTime date = FIRST_DATE.plusSeconds(random.nextInt(DATE_RANGE_SECONDS));
+            if (random.nextDouble() < pendingRatio) {
+                friendships.add(random.nextBoolean() ? friendship(uid, vid, date, true, random) :
+                        friendship(vid, uid, date, true, random));
+                pending++;
+            } else {
+                friendships.add(friendship(uid, vid, date, false, random));
+                friendships.add(friendship(vid, uid, date, false, random));
+                degrees[u]++;
+                degrees[v]++;
+            }
+        }
+
+        userRepository.importSnapshot(generatedUsers);
+        friendshipRepository.importSnapshot(friendships);
+        userRepository.close();
+        friendshipRepository.close();
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("[INFO] Generated %d users, %d friendships and %d pending requests (%s, seed %d) in %d ms.%n",
+                users, edges[0].length - pending, pending, model, seed, elapsedMillis);
+        System.out.printf("[INFO] Average degree %.2f, maximum degree %d.%n",
+                Arrays.stream(degrees).average().orElse(0), Arrays.stream(degrees).max().orElse(0));
+    }
+
+    /**
+     * Generates an undirected graph by Barabási–Albert preferential attachment. Every new node is linked to
+     * {@code m} distinct existing nodes, drawn from the list of edge endpoints, so that each node is drawn proportionally
+     * to its degree.
+     *
+     * @return the sources and targets of the edges
+     */
+    private static int[][] barabasiAlbert(int nodes, int m, SplittableRandom random) {
+        int edgeCount = 0;
+        int maxEdges = (int) Math.min(Integer.MAX_VALUE - 8, (long) nodes * m);
+        int[] sources = new int[maxEdges];
+        int[] targets = new int[maxEdges];
+        int[] endpoints = new int[2 * maxEdges];
+        int endpointCount = 0;
+        int[] chosen = new int[m];
+
+        for (int node = 1; node < nodes; node++) {
+            int links = Math.min(m, node);
+            int found = 0;
+            while (found < links) {
+                // Until enough edges exist, attach uniformly, as every early node would have the same degree anyway
+                int candidate = endpointCount < 2 * m ? random.nextInt(node) : endpoints[random.nextInt(endpointCount)];
+                boolean duplicate = false;
+                for (int i = 0; i < found; i++) {
+                    duplicate |= chosen[i] == candidate;
+                }
+                if (!duplicate) {
+                    chosen[found++] = candidate;
+                }
+            }
+            for (int i = 0; i < links; i++) {
+                sources[edgeCount] = node;
+                targets[edgeCount] = chosen[i];
+                edgeCount++;
+                endpoints[endpointCount++] = node;
+                endpoints[endpointCount++] = chosen[i];
+            }
+        }
+        return new int[][]{Arrays.copyOf(sources, edgeCount), Arrays.copyOf(targets, edgeCount)};
+    }
+
+    /**
+     * Generates an undirected graph by R-MAT: each edge descends the adjacency matrix one bit of the node indices at a
+     * time, choosing a quadrant with fixed probabilities. Node indices outside the graph, self-loops and duplicates are
+     * drawn again.
+     *
+     * @return the sources and targets of the edges
+     */
+    private static int[][] rmat(int nodes, long edges, SplittableRandom random) {
+        int scale = 32 - Integer.numberOfLeadingZeros(nodes - 1);
+        int edgeCount = (int) Math.min(edges, (long) nodes * (nodes - 1) / 2);
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        Set<Long> seen = new HashSet<>(edgeCount * 2);
+
+        int generated = 0;
+        while (generated < edgeCount) {
+            int u = 0;
+            int v = 0;
+            for (int bit = scale - 1; bit >= 0; bit--) {
+                double p = random.nextDouble();
+                if (p >= RMAT_A + RMAT_B + RMAT_C) {
+                    u |= 1 << bit;
+                    v |= 1 << bit;
+                } else if (p >= RMAT_A + RMAT_B) {
+                    u |= 1 << bit;
+                } else if (p >= RMAT_A) {
+                    v |= 1 << bit;
+                }
+            }
+            if (u >= nodes || v >= nodes || u == v || !seen.add((long) Math.min(u, v) * nodes + Math.max(u, v))) {
+                continue;
+            }
+            sources[generated] = u;
+            targets[generated] = v;
+            generated++;
+        }
+        return new int[][]{sources, targets};
+    }
+
+    private static List<User> generateUsers(int count, SplittableRandom random) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String email = (firstName + "." + lastName + i + "@example.com").toLowerCase(Locale.ROOT);
+            User user = new User(firstName, lastName, "Passw0rd!" + random.nextInt(1_000_000), email);
+            user.setId(randomUuid(random));
+            users.add(user);
+        }
+        return users;
+    }
+
+    private static Friendship friendship(String senderId, String receiverId, LocalDateTime date, boolean pending,
+                                         SplittableRandom random) {
+        Friendship friendship = new Friendship(senderId, receiverId);
+        friendship.setId(randomUuid(random));
+        friendship.setDate(date);
+        friendship.setPending(pending);
+        return friendship;
+    }
+
+    /**
+     * Draws a version 4 UUID from the seeded generator instead of the system's secure random source.
+     */
+    private static String randomUuid(SplittableRandom random) {
+        long most = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long least = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(most, least).toString();
+    }
+
+    private static <ID, E extends Entity<ID>> void clear(AbstractFileRepository<ID, E> repository) {
+        List<ID> ids = repository.stream().map(Entity::getId).toList();
+        if (!ids.isEmpty()) {
+            repository.deleteAll(ids);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package repository;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks, each guarding every key that hashes to it.
+ *
+ * Operations touching several keys lock all their stripes at once, always in ascending stripe order, so concurrent
+ * operations on overlapping keys cannot deadlock. Keys hashing to the same stripe only contend with each other, and the
+ * memory cost does not grow with the number of keys.
+ */
+public class StripedLock {
+
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Constructs a new StripedLock with at least the specified number of stripes, rounded up to a power of two.
+     *
+     * @param stripeCount the minimum number of stripes
+     */
+    public StripedLock(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks the stripes of every provided key, in ascending stripe order.
+     *
+     * @param keys the keys to be locked; {@code null} keys are ignored
+     * @return the locked stripes, to be passed to {@link #unlock(int[])}
+     */
+    public int[] lock(Collection<?> keys) {
+        int[] locked = keys.stream()
+                .filter(key -> key != null)
+                .mapToInt(this::stripeOf)
+                .sorted()
+                .distinct()
+                .toArray();
+        for (int stripe : locked) {
+            stripes[stripe].lock();
+        }
+        return locked;
+    }
+
+    /**
+     * Locks every stripe, in ascending order, excluding any other holder of any key.
+     *
+     * @return the locked stripes, to be passed to {@link #unlock(int[])}
+     */
+    public int[] lockAll() {
+        int[] locked = new int[stripes.length];
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            stripes[stripe].lock();
+            locked[stripe] = stripe;
+        }
+        return locked;
+    }
+
+    /**
+     * Unlocks stripes previously locked by {@link #lock(Collection)} or {@link #lockAll()}, in reverse order.
+     *
+     * @param locked the locked stripes
+     */
+    public void unlock(int[] locked) {
+        for (int i = locked.length - 1; i >= 0; i--) {
+            stripes[locked[i]].unlock();
+        }
+    }
+
+    private int stripeOf(Object key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16; // Spread high bits, as HashMap does
+        return hash & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,167 @@
+package repository;
+
+import models.Entity;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Unique secondary index mapping a normalized key, extracted from an entity, to the identifier of that entity.
+ *
+ * The index also remembers the key under which each identifier was indexed, so entities mutated in place before an
+ * update are re-indexed correctly. Entities with a {@code null} key are not indexed.
+ *
+ * Lookups are safe from any thread. Checking and claiming a key is not atomic on its own: callers mutating the index
+ * concurrently must hold a lock covering the key, as {@link InMemoryRepository} does.
+ *
+ * @param <K> the type of the indexed key
+ * @param <ID> the type of the entity's identifier
+ * @param <E> the type of the entity, which must extend {@link Entity<ID>}
+ */
+public class UniqueIndex<K, ID, E extends Entity<ID>> {
+
+    private final String name; // Name of the index, used in error messages
+    private final Function<E, K> keyExtractor; // Extracts the raw key from an entity
+    private final UnaryOperator<K> normalizer; // Normalizes raw keys before indexing and lookup
+    private final Map<K, ID> idsByKey; // Entity identifiers, indexed by their normalized key
+    private final Map<ID, K> keysById; // Normalized keys, indexed by entity identifier
+
+    /**
+     * Constructs a new UniqueIndex with the specified name, key extractor and key normalizer.
+     *
+     * @param name the name of the index
+     * @param keyExtractor the function extracting the raw key from an entity
+     * @param normalizer the function normalizing raw keys (e.g. trimming, lower-casing)
+     */
+    public UniqueIndex(String name, Function<E, K> keyExtractor, UnaryOperator<K> normalizer) {
+        this.name = name;
+        this.keyExtractor = keyExtractor;
+        this.normalizer = normalizer;
+        this.idsByKey = new ConcurrentHashMap<>();
+        this.keysById = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the name of the index.
+     *
+     * @return the name of the index
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Finds the identifier of the entity indexed under the specified key.
+     *
+     * @param key the raw key to look up, normalized before the lookup
+     * @return an {@link Optional} containing the identifier, or an empty {@code Optional} if no entity is indexed
+     *         under the key
+     */
+    public Optional<ID> find(K key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(idsByKey.get(normalizer.apply(key)));
+    }
+
+    /**
+     * Checks whether the key of the provided entity is already owned by a different entity.
+     *
+     * @param entity the entity to be checked
+     * @return {@code true} if another entity is indexed under the same key, {@code false} otherwise
+     */
+    public boolean conflicts(E entity) {
+        K key = keyOf(entity);
+        if (key == null) {
+            return false;
+        }
+        ID owner = idsByKey.get(key);
+        return owner != null && !Objects.equals(owner, entity.getId());
+    }
+
+    /**
+     * Checks whether the key of the provided entity would be owned by a different entity once the staged mutations of
+     * a unit of work are applied.
+     *
+     * @param entity the entity to be checked
+     * @param staged the staged new versions of entities, indexed by identifier, {@code null} for removed entities
+     * @return {@code true} if another entity would be indexed under the same key, {@code false} otherwise
+     */
+    boolean conflicts(E entity, Map<ID, E> staged) {
+        K key = keyOf(entity);
+        if (key == null) {
+            return false;
+        }
+        ID owner = idsByKey.get(key);
+        if (owner != null && !Objects.equals(owner, entity.getId()) && !staged.containsKey(owner)) {
+            return true;
+        }
+        for (Map.Entry<ID, E> entry : staged.entrySet()) {
+            if (entry.getValue() != null && !Objects.equals(entry.getKey(), entity.getId()) &&
+                    key.equals(keyOf(entry.getValue()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indexes the provided entity under its current key, replacing any key it was previously indexed under.
+     *
+     * @param entity the entity to be indexed
+     */
+    public void put(E entity) {
+        remove(entity.getId());
+
+        K key = keyOf(entity);
+        if (key != null) {
+            idsByKey.put(key, entity.getId());
+            keysById.put(entity.getId(), key);
+        }
+    }
+
+    /**
+     * Removes the entity with the specified identifier from the index.
+     *
+     * @param id the identifier of the entity to be removed
+     */
+    public void remove(ID id) {
+        K key = keysById.remove(id);
+        if (key != null) {
+            idsByKey.remove(key, id);
+        }
+    }
+
+    /**
+     * Removes every entry from the index.
+     */
+    public void clear() {
+        idsByKey.clear();
+        keysById.clear();
+    }
+
+    /**
+     * Returns the normalized key under which the entity with the specified identifier is currently indexed.
+     *
+     * @param id the identifier of the entity
+     * @return the indexed key, or {@code null} if the entity is not indexed
+     */
+    K indexedKey(ID id) {
+        return keysById.get(id);
+    }
+
+    /**
+     * Returns the normalized key of the provided entity.
+     *
+     * @param entity the entity
+     * @return the normalized key, or {@code null} if the entity has no key
+     */
+    K keyOf(E entity) {
+        K key = keyExtractor.apply(entity);
+        return key == null ? null : normalizer.apply(key);
+    }
+}
@@ -0,0 +1,388 @@
+package repository;
+
+import exceptions.EntityAlreadyExistsException;
+import exceptions.EntityNotFoundException;
+import models.Entity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Unit of work buffering mutations of one or more repositories and committing them atomically.
+ *
+ * Mutations are only recorded until {@link #commit()}. The commit locks every entity and unique key involved, in all
+ * participating repositories at once, then validates every mutation in the order it was recorded, against the state
+ * left by the mutations before it. If any mutation fails, nothing is applied and the failure is rethrown. Otherwise
+ * the mutations are applied in order, a step that cannot fail; readers that do not lock, such as
+ * {@link Repository#findOne} or {@link Repository#stream}, may observe the unit partly applied, but never a mutation of
+ * a unit that failed, while snapshots written to disk never contain part of a unit. Validators see the repositories
+ * as they were before the unit. Each repository records its share of the unit as a single atomic block (for file
+ * repositories, one journal write and one flush, shared with concurrent commits), and the commit returns once all of
+ * them are durable. Callbacks registered with the mutations run last, after the unit is durable.
+ *
+ * A unit of work can only be committed once.
+ */
+public class UnitOfWork {
+
+    /**
+     * A committed change of a single entity, as passed to {@link InMemoryRepository#afterCommit(List)}.
+     *
+     * @param <E> the type of the entity
+     */
+    public static class Change<E> {
+
+        private final E entity; // The stored or removed entity
+        private final boolean removal; // Whether the entity was removed
+
+        Change(E entity, boolean removal) {
+            this.entity = entity;
+            this.removal = removal;
+        }
+
+        /**
+         * Returns the stored or removed entity.
+         *
+         * @return the changed entity
+         */
+        public E getEntity() {
+            return entity;
+        }
+
+        /**
+         * Checks whether the entity was removed.
+         *
+         * @return {@code true} if the entity was removed, {@code false} if it was stored
+         */
+        public boolean isRemoval() {
+            return removal;
+        }
+    }
+
+    /**
+     * A condition checked when the unit is committed, while its locks are held.
+     */
+    @FunctionalInterface
+    public interface Check {
+
+        /**
+         * Checks the condition against the committed state of the repositories.
+         *
+         * @throws EntityAlreadyExistsException if an entity that must not exist does
+         * @throws EntityNotFoundException if an entity that must exist does not
+         */
+        void check() throws EntityAlreadyExistsException, EntityNotFoundException;
+    }
+
+    private enum OperationType {
+        SAVE,
+        UPDATE,
+        DELETE,
+        CHECK
+    }
+
+    /**
+     * A mutation recorded in the unit, with the state needed to check, apply and report it.
+     */
+    private static class Operation<ID, E extends Entity<ID>> {
+
+        private final InMemoryRepository<ID, E> repository;
+        private final OperationType type;
+        private final ID id;
+        private final E entity; // New version of the entity, null for deletions
+        private final Consumer<E> onCommit; // Callback receiving the changed entity after the commit, may be null
+        private final Collection<?> keys; // Additional keys locked for the operation
+        private final Check condition; // Condition of a check, null for mutations
+
+        private E changed; // Entity stored or removed by the mutation, null if nothing changed
+
+        Operation(InMemoryRepository<ID, E> repository, OperationType type, ID id, E entity, Consumer<E> onCommit) {
+            this(repository, type, id, entity, onCommit, List.of(), null);
+        }
+
+        Operation(InMemoryRepository<ID, E> repository, OperationType type, ID id, E entity, Consumer<E> onCommit,
+                  Collection<?> keys, Check condition) {
+            this.repository = repository;
+            this.type = type;
+            this.id = id;
+            this.entity = entity;
+            this.onCommit = onCommit;
+            this.keys = keys;
+            this.condition = condition;
+        }
+
+        @SuppressWarnings("unchecked")
+        void check(Map<InMemoryRepository<?, ?>, Map<?, ?>> staged) throws EntityAlreadyExistsException,
+                EntityNotFoundException {
+            Map<ID, E> stagedEntities = (Map<ID, E>) staged.computeIfAbsent(repository, key -> new HashMap<>());
+            if (type == OperationType.CHECK) {
+                condition.check();
+            } else if (type == OperationType.SAVE) {
+                repository.checkSave(entity, stagedEntities);
+                changed = entity;
+            } else if (type == OperationType.UPDATE) {
+                repository.checkUpdate(entity, stagedEntities);
+                changed = entity;
+            } else {
+                changed = repository.checkDelete(id, stagedEntities);
+            }
+        }
+
+        void apply() {
+            if (changed == null) {
+                return;
+            }
+            if (type == OperationType.DELETE) {
+                repository.removeEntity(id);
+            } else {
+                repository.putEntity(entity);
+            }
+        }
+
+        void notifyCommitted() {
+            if (changed != null && onCommit != null) {
+                onCommit.accept(changed);
+            }
+        }
+    }
+
+    private final List<Operation<?, ?>> operations = new ArrayList<>(); // Recorded mutations, in order
+    private boolean committed;
+
+    /**
+     * Records the saving of a new entity.
+     *
+     * @param repository the repository the entity is saved in
+     * @param entity the entity to be saved
+     * @return this unit of work
+     * @param <ID> the type of the entity's identifier
+     * @param <E> the type of the entity
+     * @throws IllegalArgumentException if the repository does not support units of work
+     */
+    public <ID, E extends Entity<ID>> UnitOfWork save(Repository<ID, E> repository, E entity) {
+        return save(repository, entity, null);
+    }
+
+    /**
+     * Records the saving of a new entity, with a callback receiving the saved entity once the unit is committed.
+     *
+     * @param repository the repository the entity is saved in
+     * @param entity the entity to be saved
+     * @param onCommit the callback run after the commit, may be null
+     * @return this unit of work
+     * @param <ID> the type of the entity's identifier
+     * @param <E> the type of the entity
+     * @throws IllegalArgumentException if the repository does not support units of work
+     */
+    public <ID, E extends Entity<ID>> UnitOfWork save(Repository<ID, E> repository, E entity, Consumer<E> onCommit) {
+        return record(new Operation<>(participant(repository), OperationType.SAVE, entity == null ? null :
+                entity.getId(), entity, onCommit));
+    }
+
+    /**
+     * Records the update of an existing entity.
+     *
+     * @param repository the repository the entity is updated in
+     * @param entity the entity with updated data
+     * @return this unit of work
+     * @param <ID> the type of the entity's identifier
+     * @param <E> the type of the entity
+     * @throws IllegalArgumentException if the repository does not support units of work
+     */
+    public <ID, E extends Entity<ID>> UnitOfWork update(Repository<ID, E> repository, E entity) {
+        return update(repository, entity, null);
+    }
+
+    /**
+     * Records the update of an existing entity, with a callback receiving the updated entity once the unit is
+     * committed.
+     *
+     * @param repository the repository the entity is updated in
+     * @param entity the entity with updated data
+     * @param onCommit the callback run after the commit, may be null
+     * @return this unit of work
+     * @param <ID> the type of the entity's identifier
+     * @param <E> the type of the entity
+     * @throws IllegalArgumentException if the repository does not support units of work
+     */
+    public <ID, E extends Entity<ID>> UnitOfWork update(Repository<ID, E> repository, E entity,
+                                                        Consumer<E> onCommit) {
+        return record(new Operation<>(participant(repository), OperationType.UPDATE, entity == null ? null :
+                entity.getId(), entity, onCommit));
+    }
+
+    /**
+     * Records the deletion of an entity. Deleting a missing entity is not a failure and changes nothing.
+     *
+     * @param repository the repository the entity is deleted from
+     * @param id the unique identifier of the entity to be deleted
+     * @return this unit of work
+     * @param <ID> the type of the entity's identifier
+     * @param <E> the type of the entity
+     * @throws IllegalArgumentException if the repository does not support units of work
+     */
+    public <ID, E extends Entity<ID>> UnitOfWork delete(Repository<ID, E> repository, ID id) {
+        return delete(repository, id, null);
+    }
+
+    /**
+     * Records the deletion of an entity, with a callback receiving the deleted entity once the unit is committed. The
+     * callback does not run if the entity did not exist.
+     *
+     * @param repository the repository the entity is deleted from
+     * @param id the unique identifier of the entity to be deleted
+     * @param onCommit the callback run after the commit, may be null
+     * @return this unit of work
+     * @param <ID> the type of the entity's identifier
+     * @param <E> the type of the entity
+     * @throws IllegalArgumentException if the repository does not support units of work
+     */
+    public <ID, E extends Entity<ID>> UnitOfWork delete(Repository<ID, E> repository, ID id, Consumer<E> onCommit) {
+        return record(new Operation<>(participant(repository), OperationType.DELETE, id, null, onCommit));
+    }
+
+    /**
+     * Records a condition checked when the unit is committed, in the order it was recorded, while the unit holds its
+     * locks and the locks of the provided keys in the repository. The condition sees the repositories as committed,
+     * without the mutations staged by the unit; if it fails, nothing is applied. Mutations committed concurrently that
+     * lock one of the keys are therefore either fully visible to the condition or applied after the unit.
+     *
+     * @param repository the repository whose locks guard the condition
+     * @param keys the keys locked while the condition is checked
+     * @param condition the condition to be checked
+     * @return this unit of work
+     * @param <ID> the type of the entities' identifiers
+     * @param <E> the type of the entities
+     * @throws IllegalArgumentException if the repository does not support units of work
+     */
+    public <ID, E extends Entity<ID>> UnitOfWork check(Repository<ID, E> repository, Collection<?> keys,
+                                                       Check condition) {
+        return record(new Operation<>(participant(repository), OperationType.CHECK, null, null, null,
+                List.copyOf(keys), condition));
+    }
+
+    /**
+     * Checks whether the unit records no mutation.
+     *
+     * @return {@code true} if no mutation was recorded, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * Applies all recorded mutations atomically and waits until they are durable.
+     *
+     * @throws EntityAlreadyExistsException if a saved entity already exists; nothing is applied
+     * @throws EntityNotFoundException if an updated entity does not exist; nothing is applied
+     * @throws exceptions.ValidationException if an entity is invalid; nothing is applied
+     * @throws IllegalStateException if the unit was already committed
+     */
+    public void commit() throws EntityAlreadyExistsException, EntityNotFoundException {
+        if (committed) {
+            throw new IllegalStateException("Unit of work was already committed");
+        }
+        committed = true;
+
+        // Repositories are always locked in the same global order, so concurrent units cannot deadlock
+        List<InMemoryRepository<?, ?>> participants = operations.stream()
+                .<InMemoryRepository<?, ?>>map(operation -> operation.repository)
+                .distinct()
+                .sorted(Comparator.comparingLong(InMemoryRepository::getLockOrder))
+                .toList();
+
+        List<int[]> locked = new ArrayList<>(participants.size());
+        try {
+            for (InMemoryRepository<?, ?> participant : participants) {
+                locked.add(lock(participant));
+            }
+
+            // Every mutation is checked before any is applied, so a failing unit leaves nothing to revert
+            Map<InMemoryRepository<?, ?>, Map<?, ?>> staged = new IdentityHashMap<>();
+            for (Operation<?, ?> operation : operations) {
+                operation.check(staged);
+            }
+            operations.forEach(Operation::apply);
+
+            for (InMemoryRepository<?, ?> participant : participants) {
+                recordChanges(participant);
+            }
+        } finally {
+            for (int i = locked.size() - 1; i >= 0; i--) {
+                participants.get(i).unlockEntities(locked.get(i));
+            }
+        }
+
+        participants.forEach(InMemoryRepository::awaitPersisted);
+        operations.forEach(Operation::notifyCommitted);
+    }
+
+    private UnitOfWork record(Operation<?, ?> operation) {
+        if (committed) {
+            throw new IllegalStateException("Unit of work was already committed");
+        }
+        operations.add(operation);
+        return this;
+    }
+
+    private static <ID, E extends Entity<ID>> InMemoryRepository<ID, E> participant(Repository<ID, E> repository) {
+        if (!(repository instanceof InMemoryRepository<ID, E> inMemoryRepository)) {
+            throw new IllegalArgumentException("Repository does not support units of work");
+        }
+        return inMemoryRepository;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <ID, E extends Entity<ID>> List<Operation<ID, E>> operationsOf(InMemoryRepository<ID, E> repository) {
+        List<Operation<ID, E>> result = new ArrayList<>();
+        for (Operation<?, ?> operation : operations) {
+            if (operation.repository == repository) {
+                result.add((Operation<ID, E>) operation);
+            }
+        }
+        return result;
+    }
+
+    private <ID, E extends Entity<ID>> int[] lock(InMemoryRepository<ID, E> repository) {
+        List<ID> ids = new ArrayList<>();
+        List<E> newEntities = new ArrayList<>();
+        List<Object> keys = new ArrayList<>();
+        for (Operation<ID, E> operation : operationsOf(repository)) {
+            if (operation.id != null) {
+                ids.add(operation.id);
+            }
+            if (operation.entity != null) {
+                newEntities.add(operation.entity);
+            }
+            keys.addAll(operation.keys);
+        }
+        return repository.lockEntities(ids, newEntities, keys);
+    }
+
+    private <ID, E extends Entity<ID>> void recordChanges(InMemoryRepository<ID, E> repository) {
+        List<Change<E>> changes = new ArrayList<>();
+        for (Operation<ID, E> operation : operationsOf(repository)) {
+            if (operation.changed != null) {
+                changes.add(new Change<>(operation.changed, operation.type == OperationType.DELETE));
+            }
+        }
+        if (!changes.isEmpty()) {
+            repository.afterCommit(changes);
+        }
+        for (Operation<ID, E> operation : operationsOf(repository)) {
+            if (operation.changed == null) {
+                continue;
+            }
+            if (operation.type == OperationType.DELETE) {
+                repository.notifyRemove(operation.changed);
+            } else {
+                repository.notifyPut(operation.changed, operation.type == OperationType.UPDATE);
+            }
+        }
+    }
+}
@@ -3,15 +3,22 @@ package repository;
 import models.User;
 import models.validators.Validator;
 import org.jetbrains.annotations.NotNull;
+import repository.binary.UserSnapshotCodec;
+import repository.binary.SnapshotCodec;
+import utils.Config;
+import utils.EmailUtils;
 
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository class for managing User entities in a file-based/in-memory storage.
  */
-public class UserFileRepository extends AbstractFileRepository<String, User> {
+public final class UserFileRepository extends AbstractFileRepository<String, User> implements UserRepository {
+
+    // Unique index of users by normalized email address
+    private final UniqueIndex<String, String, User> emailIndex;
 
     /**
      * Constructs a new UserFileRepository with the specified file name and validator.
@@ -21,27 +28,74 @@ public class UserFileRepository extends AbstractFileRepository<String, User> {
      * @throws IOException if an error occurs while performing reading/writing operations on specified file
      */
     public UserFileRepository(String fileName, Validator<User> validator) throws IOException {
-        super(fileName, validator);
+        this(fileName, validator, SnapshotFormat.defaultFormat());
+    }
+
+    /**
+     * Constructs a new UserFileRepository with the specified file name, validator and snapshot format.
+     *
+     * @param fileName the name of the file used for data persistence
+     * @param validator the validator used to validate User entities
+     * @param snapshotFormat the format in which snapshots are loaded and written
+     * @throws IOException if an error occurs while performing reading/writing operations on specified file
+     */
+    public UserFileRepository(String fileName, Validator<User> validator, SnapshotFormat snapshotFormat)
+            throws IOException {
+        this(fileName, validator, snapshotFormat, DurabilityPolicy.defaultPolicy());
     }
 
     /**
-     * Extracts user fields from a record and creates a User entity.
+     * Constructs a new UserFileRepository with the specified file name, validator, snapshot format and durability
+     * policy.
      *
-     * @param record the string record containing the user fields
+     * @param fileName the name of the file used for data persistence
+     * @param validator the validator used to validate User entities
+     * @param snapshotFormat the format in which snapshots are loaded and written
+     * @param durabilityPolicy the policy deciding when mutations are synced to disk
+     * @throws IOException if an error occurs while performing reading/writing operations on specified file
+     */
+    public UserFileRepository(String fileName, Validator<User> validator, SnapshotFormat snapshotFormat,
+                              DurabilityPolicy durabilityPolicy) throws IOException {
+        this(fileName, validator, snapshotFormat, durabilityPolicy,
+                new UniqueIndex<>("email", User::getEmail, EmailUtils::normalizeEmail));
+    }
+
+    // The email index is created before the files are loaded, so duplicate emails are rejected while loading
+    private UserFileRepository(String fileName, Validator<User> validator, SnapshotFormat snapshotFormat,
+                               DurabilityPolicy durabilityPolicy, UniqueIndex<String, String, User> emailIndex)
+            throws IOException {
+        super(fileName, validator, Config.DEFAULT_JOURNAL_ENABLED, snapshotFormat, durabilityPolicy,
+                List.of(emailIndex));
+        this.emailIndex = emailIndex;
+    }
+
+    /**
+     * Finds a user by its email address, through the normalized email index.
+     *
+     * @param email the email address of the user to be retrieved
+     * @return an {@link Optional} containing the user with the specified email address, or an empty {@code Optional}
+     *         if no user is found
+     */
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return findByUniqueKey(emailIndex, email);
+    }
+
+    /**
+     * Creates a User entity from the fields of a record.
+     *
+     * @param fields the fields of the record containing the user fields
      * @return the User entity extracted from the record
      */
     @Override
-    protected User extractEntity(@NotNull String record) {
-        List<String> fields = Arrays.asList(record.split(","));
+    protected User extractEntity(@NotNull List<String> fields) {
         String id = fields.get(0);
         String firstName = fields.get(1);
         String lastName = fields.get(2);
         String password = fields.get(3);
         String email = fields.get(4);
 
-        User user = new User(firstName, lastName, password, email);
-        user.setId(id);
-        return user;
+        return User.restore(id, firstName, lastName, password, email); // Stored password is already hashed
     }
 
     /**
@@ -52,10 +106,21 @@ public class UserFileRepository extends AbstractFileRepository<String, User> {
      */
     @Override
     protected String entityToString(@NotNull User user) {
-        return user.getId() +
-                "," + user.getFirstName() +
-                "," + user.getLastName() +
-                "," + user.getPassword() +
-                "," + user.getEmail();
+        return CsvRecords.join(
+                user.getId(),
+                user.getFirstName(),
+                user.getLastName(),
+                user.getPassword(),
+                user.getEmail());
+    }
+
+    /**
+     * Returns the codec used to encode and decode User entities in binary snapshots.
+     *
+     * @return the binary snapshot codec of the User entity
+     */
+    @Override
+    protected SnapshotCodec<User> snapshotCodec() {
+        return UserSnapshotCodec.INSTANCE;
     }
 }
@@ -0,0 +1,22 @@
+package repository;
+
+import models.User;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for managing {@link User} entities, extending the generic CRUD operations with user-specific
+ * lookups.
+ */
+public interface UserRepository extends Repository<String, User> {
+
+    /**
+     * Finds a user by its email address.
+     * The lookup is case-insensitive and ignores surrounding whitespace.
+     *
+     * @param email the email address of the user to be retrieved
+     * @return an {@link Optional} containing the user with the specified email address, or an empty {@code Optional}
+     *         if no user is found
+     */
+    Optional<User> findByEmail(String email);
+}
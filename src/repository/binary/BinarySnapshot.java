@@ -0,0 +1,219 @@
+package repository.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Read-only, memory-mapped binary snapshot of entities.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   0  int   magic ("SNBS")
+ *   4  short format version
+ *   6  byte  entity type
+ *   7  byte  reserved
+ *   8  int   record count
+ *   12 int   record size
+ *   16 long  string table position
+ *   24 long  CRC32 of everything after the header
+ *   32       fixed-width records, followed by the {@link StringTable}
+ * </pre>
+ * Opening a snapshot maps the file and verifies its header and checksum; records are decoded lazily, one at a time,
+ * straight from the mapped buffer.
+ *
+ * @param <E> the type of the entities stored in the snapshot
+ */
+public class BinarySnapshot<E> implements Iterable<E> {
+
+    // Magic number identifying binary snapshot files ("SNBS")
+    public static final int MAGIC = 0x534E4253;
+
+    // Current version of the binary snapshot format
+    public static final short VERSION = 1;
+
+    // Size, in bytes, of the snapshot header
+    public static final int HEADER_SIZE = 32;
+
+    private final ByteBuffer buffer; // Mapped content of the snapshot file
+    private final SnapshotCodec<E> codec; // Codec decoding the records
+    private final int count; // Number of records
+    private final int recordSize; // Size of every record
+    private final StringTable strings; // String table referenced by records
+
+    private BinarySnapshot(ByteBuffer buffer, SnapshotCodec<E> codec) {
+        this.buffer = buffer;
+        this.codec = codec;
+        this.count = buffer.getInt(8);
+        this.recordSize = buffer.getInt(12);
+        this.strings = new StringTable(buffer, (int) buffer.getLong(16));
+    }
+
+    /**
+     * Maps the snapshot file and verifies its header and checksum.
+     *
+     * @param path the path of the snapshot file
+     * @param codec the codec decoding the records
+     * @return the opened snapshot
+     * @param <E> the type of the entities stored in the snapshot
+     * @throws IOException if the file cannot be read, or is not a valid snapshot of the codec's entity type
+     */
+    public static <E> BinarySnapshot<E> open(Path path, SnapshotCodec<E> codec) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + path + " exceeds the maximum mappable size");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("File " + path + " is not a binary snapshot");
+        }
+        if (buffer.getShort(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + buffer.getShort(4) + " in " + path);
+        }
+        if (buffer.get(6) != codec.entityType() || buffer.getInt(12) != codec.recordSize()) {
+            throw new IOException("Snapshot " + path + " does not hold entities of the expected type");
+        }
+
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.slice(HEADER_SIZE, buffer.capacity() - HEADER_SIZE));
+        if (checksum.getValue() != buffer.getLong(24)) {
+            throw new IOException("Checksum mismatch in snapshot " + path);
+        }
+
+        return new BinarySnapshot<>(buffer, codec);
+    }
+
+    /**
+     * Writes the entities to a binary snapshot file, replacing it atomically.
+     *
+     * @param path the path of the snapshot file
+     * @param entities the entities to be written
+     * @param codec the codec encoding the records
+     * @param <E> the type of the entities
+     * @throws IOException if an error occurs while writing or replacing the file
+     */
+    public static <E> void write(Path path, Collection<E> entities, SnapshotCodec<E> codec) throws IOException {
+        int recordSize = codec.recordSize();
+        ByteBuffer records = ByteBuffer.allocate(Math.multiplyExact(entities.size(), recordSize));
+        StringTable.Builder strings = new StringTable.Builder();
+
+        int offset = 0;
+        for (E entity : entities) {
+            codec.encode(entity, records, offset, strings);
+            offset += recordSize;
+        }
+        ByteBuffer table = strings.toBuffer();
+
+        CRC32 checksum = new CRC32();
+        checksum.update(records.duplicate());
+        checksum.update(table.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC)
+                .putShort(VERSION)
+                .put(codec.entityType())
+                .put((byte) 0)
+                .putInt(entities.size())
+                .putInt(recordSize)
+                .putLong(HEADER_SIZE + (long) records.capacity())
+                .putLong(checksum.getValue())
+                .flip();
+
+        Path temporary = Path.of(path + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] parts = {header, records, table};
+            while (header.hasRemaining() || records.hasRemaining() || table.hasRemaining()) {
+                channel.write(parts);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the number of entities in the snapshot.
+     *
+     * @return the number of entities
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Decodes the entity at the specified position.
+     *
+     * @param index the position of the entity
+     * @return the decoded entity
+     * @throws IndexOutOfBoundsException if the position is outside of the snapshot
+     */
+    public E get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Record " + index + " out of snapshot of size " + count);
+        }
+        return codec.decode(buffer, HEADER_SIZE + index * recordSize, strings);
+    }
+
+    /**
+     * Returns an iterator decoding the entities one at a time, in snapshot order.
+     *
+     * @return an iterator over the entities
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    /**
+     * Writes a UUID string as two longs at the specified position.
+     *
+     * @param buffer the buffer receiving the UUID
+     * @param offset the position of the UUID in the buffer
+     * @param id the UUID string
+     * @throws IllegalArgumentException if the identifier is not a UUID
+     */
+    public static void putUuid(ByteBuffer buffer, int offset, String id) {
+        UUID uuid = UUID.fromString(id);
+        buffer.putLong(offset, uuid.getMostSignificantBits());
+        buffer.putLong(offset + Long.BYTES, uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Reads a UUID string stored as two longs at the specified position.
+     *
+     * @param buffer the buffer holding the UUID
+     * @param offset the position of the UUID in the buffer
+     * @return the UUID string
+     */
+    public static String getUuid(ByteBuffer buffer, int offset) {
+        return new UUID(buffer.getLong(offset), buffer.getLong(offset + Long.BYTES)).toString();
+    }
+}
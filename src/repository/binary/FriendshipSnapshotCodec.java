@@ -0,0 +1,76 @@
+package repository.binary;
+
+import models.Friendship;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary snapshot codec for {@link Friendship} entities.
+ *
+ * Record layout: UUID identifier, sender UUID and receiver UUID (16 bytes each), request date as UTC epoch seconds
+ * (8 bytes) and nanoseconds (4 bytes), pending state (1 byte), padded to 64 bytes.
+ */
+public class FriendshipSnapshotCodec implements SnapshotCodec<Friendship> {
+
+    // Shared stateless instance
+    public static final FriendshipSnapshotCodec INSTANCE = new FriendshipSnapshotCodec();
+
+    private static final byte ENTITY_TYPE = 2;
+    private static final int RECORD_SIZE = 64;
+
+    /**
+     * Returns the entity type tag of Friendship snapshots.
+     *
+     * @return the entity type tag
+     */
+    @Override
+    public byte entityType() {
+        return ENTITY_TYPE;
+    }
+
+    /**
+     * Returns the size, in bytes, of every Friendship record.
+     *
+     * @return the record size
+     */
+    @Override
+    public int recordSize() {
+        return RECORD_SIZE;
+    }
+
+    /**
+     * Encodes the Friendship as a record at the specified offset of the buffer.
+     *
+     * @param friendship the Friendship to be encoded
+     * @param buffer the buffer receiving the record
+     * @param offset the offset of the record in the buffer
+     * @param strings the string table builder interning the Friendship's strings
+     */
+    @Override
+    public void encode(Friendship friendship, ByteBuffer buffer, int offset, StringTable.Builder strings) {
+        BinarySnapshot.putUuid(buffer, offset, friendship.getId());
+        BinarySnapshot.putUuid(buffer, offset + 16, friendship.getSenderId());
+        BinarySnapshot.putUuid(buffer, offset + 32, friendship.getReceiverId());
+        buffer.putLong(offset + 48, friendship.getDate().toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(offset + 56, friendship.getDate().getNano());
+        buffer.put(offset + 60, (byte) (friendship.isPending() ? 1 : 0));
+    }
+
+    /**
+     * Decodes the record at the specified offset of the buffer into a Friendship.
+     *
+     * @param buffer the buffer holding the record
+     * @param offset the offset of the record in the buffer
+     * @param strings the string table of the snapshot
+     * @return the decoded Friendship
+     */
+    @Override
+    public Friendship decode(ByteBuffer buffer, int offset, StringTable strings) {
+        return Friendship.restore(BinarySnapshot.getUuid(buffer, offset), BinarySnapshot.getUuid(buffer, offset + 16),
+                BinarySnapshot.getUuid(buffer, offset + 32),
+                LocalDateTime.ofEpochSecond(buffer.getLong(offset + 48), buffer.getInt(offset + 56), ZoneOffset.UTC),
+                buffer.get(offset + 60) != 0);
+    }
+}
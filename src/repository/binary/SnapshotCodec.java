@@ -0,0 +1,47 @@
+package repository.binary;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Codec converting entities to and from fixed-width binary records of a {@link BinarySnapshot}.
+ *
+ * Strings are not stored in records; they are interned in the snapshot's string table and referenced by index.
+ *
+ * @param <E> the type of the encoded entities
+ */
+public interface SnapshotCodec<E> {
+
+    /**
+     * Returns the entity type tag stored in the snapshot header, used to reject snapshots of another entity type.
+     *
+     * @return the entity type tag
+     */
+    byte entityType();
+
+    /**
+     * Returns the size, in bytes, of every record.
+     *
+     * @return the record size
+     */
+    int recordSize();
+
+    /**
+     * Encodes the entity as a record at the specified offset of the buffer.
+     *
+     * @param entity the entity to be encoded
+     * @param buffer the buffer receiving the record
+     * @param offset the offset of the record in the buffer
+     * @param strings the string table builder interning the entity's strings
+     */
+    void encode(E entity, ByteBuffer buffer, int offset, StringTable.Builder strings);
+
+    /**
+     * Decodes the record at the specified offset of the buffer into an entity.
+     *
+     * @param buffer the buffer holding the record
+     * @param offset the offset of the record in the buffer
+     * @param strings the string table of the snapshot
+     * @return the decoded entity
+     */
+    E decode(ByteBuffer buffer, int offset, StringTable strings);
+}
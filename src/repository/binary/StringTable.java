@@ -0,0 +1,113 @@
+package repository.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table of UTF-8 strings referenced by index from the records of a {@link BinarySnapshot}.
+ *
+ * Layout: the number of strings {@code n}, then {@code n + 1} offsets relative to the start of the string bytes, then
+ * the bytes of all strings back to back. Strings are decoded on demand, straight from the (mapped) buffer.
+ */
+public class StringTable {
+
+    // Index stored in records for null strings
+    public static final int NULL_INDEX = -1;
+
+    private final ByteBuffer buffer; // Buffer holding the table
+    private final int count; // Number of strings in the table
+    private final int offsetsStart; // Position of the offsets in the buffer
+    private final int bytesStart; // Position of the string bytes in the buffer
+
+    /**
+     * Constructs a new StringTable over the table starting at the specified position of the buffer.
+     *
+     * @param buffer the buffer holding the table
+     * @param position the position of the table in the buffer
+     */
+    public StringTable(ByteBuffer buffer, int position) {
+        this.buffer = buffer;
+        this.count = buffer.getInt(position);
+        this.offsetsStart = position + Integer.BYTES;
+        this.bytesStart = offsetsStart + (count + 1) * Integer.BYTES;
+    }
+
+    /**
+     * Decodes the string with the specified index.
+     *
+     * @param index the index of the string
+     * @return the decoded string, or {@code null} for {@link #NULL_INDEX}
+     * @throws IndexOutOfBoundsException if the index is outside of the table
+     */
+    public String get(int index) {
+        if (index == NULL_INDEX) {
+            return null;
+        }
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("String index " + index + " out of table of size " + count);
+        }
+
+        int start = buffer.getInt(offsetsStart + index * Integer.BYTES);
+        int end = buffer.getInt(offsetsStart + (index + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        buffer.get(bytesStart + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the number of strings in the table.
+     *
+     * @return the number of strings
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Builder interning strings while records are encoded, and serializing the table once all records are written.
+     */
+    public static class Builder {
+
+        private final Map<String, Integer> indexes = new HashMap<>(); // String indexes, indexed by string
+        private final List<Integer> offsets = new ArrayList<>(List.of(0)); // End offset of each string
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        /**
+         * Interns the string and returns its index in the table.
+         *
+         * @param value the string to be interned
+         * @return the index of the string, or {@link #NULL_INDEX} for {@code null}
+         */
+        public int intern(String value) {
+            if (value == null) {
+                return NULL_INDEX;
+            }
+            return indexes.computeIfAbsent(value, key -> {
+                bytes.writeBytes(key.getBytes(StandardCharsets.UTF_8));
+                offsets.add(bytes.size());
+                return offsets.size() - 2;
+            });
+        }
+
+        /**
+         * Serializes the table.
+         *
+         * @return a buffer holding the serialized table, positioned at its start
+         */
+        public ByteBuffer toBuffer() {
+            int count = offsets.size() - 1;
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * (count + 2) + bytes.size());
+            buffer.putInt(count);
+            for (int offset : offsets) {
+                buffer.putInt(offset);
+            }
+            buffer.put(bytes.toByteArray());
+            return buffer.flip();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package repository.binary;
+
+import models.User;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary snapshot codec for {@link User} entities.
+ *
+ * Record layout: UUID identifier (16 bytes), then string table indexes of the first name, last name, hashed password
+ * and email (4 bytes each).
+ */
+public class UserSnapshotCodec implements SnapshotCodec<User> {
+
+    // Shared stateless instance
+    public static final UserSnapshotCodec INSTANCE = new UserSnapshotCodec();
+
+    private static final byte ENTITY_TYPE = 1;
+    private static final int RECORD_SIZE = 32;
+
+    /**
+     * Returns the entity type tag of User snapshots.
+     *
+     * @return the entity type tag
+     */
+    @Override
+    public byte entityType() {
+        return ENTITY_TYPE;
+    }
+
+    /**
+     * Returns the size, in bytes, of every User record.
+     *
+     * @return the record size
+     */
+    @Override
+    public int recordSize() {
+        return RECORD_SIZE;
+    }
+
+    /**
+     * Encodes the User as a record at the specified offset of the buffer.
+     *
+     * @param user the User to be encoded
+     * @param buffer the buffer receiving the record
+     * @param offset the offset of the record in the buffer
+     * @param strings the string table builder interning the User's strings
+     */
+    @Override
+    public void encode(User user, ByteBuffer buffer, int offset, StringTable.Builder strings) {
+        BinarySnapshot.putUuid(buffer, offset, user.getId());
+        buffer.putInt(offset + 16, strings.intern(user.getFirstName()));
+        buffer.putInt(offset + 20, strings.intern(user.getLastName()));
+        buffer.putInt(offset + 24, strings.intern(user.getPassword()));
+        buffer.putInt(offset + 28, strings.intern(user.getEmail()));
+    }
+
+    /**
+     * Decodes the record at the specified offset of the buffer into a User.
+     *
+     * @param buffer the buffer holding the record
+     * @param offset the offset of the record in the buffer
+     * @param strings the string table of the snapshot
+     * @return the decoded User
+     */
+    @Override
+    public User decode(ByteBuffer buffer, int offset, StringTable strings) {
+        return User.restore(BinarySnapshot.getUuid(buffer, offset), strings.get(buffer.getInt(offset + 16)),
+                strings.get(buffer.getInt(offset + 20)), strings.get(buffer.getInt(offset + 24)),
+                strings.get(buffer.getInt(offset + 28)));
+    }
+}
@@ -3,9 +3,22 @@ package service;
 import exceptions.EntityAlreadyExistsException;
 import exceptions.EntityNotFoundException;
 import models.Entity;
+import repository.BatchResult;
+import repository.Page;
 import repository.Repository;
+import repository.RepositoryListener;
+import repository.UnitOfWork;
+import utils.Metrics;
+import utils.OperationStats;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Abstract class for specialized services, providing base functionalities for managing communication between User
@@ -20,6 +33,22 @@ public abstract class AbstractService<ID, E extends Entity<ID>> implements Servi
     // The repository used to perform operations on persisting data
     Repository<ID, E> repository;
 
+    // Notifications of the listeners, queued by the repository in commit order
+    private final EventQueue<ID, E> events;
+
+    // Latency and call statistics of the operations, listener notifications included, shared by every service of the
+    // same class
+    private final OperationStats findByIdStats;
+    private final OperationStats findAllStats;
+    private final OperationStats findPageStats;
+    private final OperationStats streamStats;
+    private final OperationStats saveStats;
+    private final OperationStats deleteByIdStats;
+    private final OperationStats updateStats;
+    private final OperationStats saveAllStats;
+    private final OperationStats deleteAllByIdStats;
+    private final OperationStats updateAllStats;
+
     /**
      * Constructs a new AbstractService with the specified repository.
      *
@@ -27,6 +56,20 @@ public abstract class AbstractService<ID, E extends Entity<ID>> implements Servi
      */
     public AbstractService(Repository<ID, E> repository) {
         this.repository = repository;
+        this.events = new EventQueue<>();
+        repository.addListener(events);
+
+        String component = getClass().getSimpleName();
+        this.findByIdStats = Metrics.get(component, "findById");
+        this.findAllStats = Metrics.get(component, "findAll");
+        this.findPageStats = Metrics.get(component, "findPage");
+        this.streamStats = Metrics.get(component, "stream");
+        this.saveStats = Metrics.get(component, "save");
+        this.deleteByIdStats = Metrics.get(component, "deleteById");
+        this.updateStats = Metrics.get(component, "update");
+        this.saveAllStats = Metrics.get(component, "saveAll");
+        this.deleteAllByIdStats = Metrics.get(component, "deleteAllById");
+        this.updateAllStats = Metrics.get(component, "updateAll");
     }
 
     /**
@@ -38,7 +81,7 @@ public abstract class AbstractService<ID, E extends Entity<ID>> implements Servi
      */
     @Override
     public Optional<E> findById(ID id) {
-        return repository.findOne(id);
+        return findByIdStats.record(() -> repository.findOne(id));
     }
 
     /**
@@ -48,7 +91,30 @@ public abstract class AbstractService<ID, E extends Entity<ID>> implements Servi
      */
     @Override
     public Iterable<E> findAll() {
-        return repository.findAll();
+        return findAllStats.record(() -> repository.findAll());
+    }
+
+    /**
+     * Returns a sequential stream over a snapshot of the entities managed by the repository.
+     *
+     * @return a stream of the entities
+     */
+    @Override
+    public Stream<E> stream() {
+        return streamStats.record(() -> repository.stream());
+    }
+
+    /**
+     * Retrieves the entities managed by the repository one page at a time.
+     *
+     * @param token the token of the page to be retrieved, or {@code null} to start a new listing
+     * @param size the maximum number of entities of the page
+     * @return the page, with the token of the next one if more entities follow
+     * @throws IllegalArgumentException if the token is unknown, already used or expired, or the size is not positive
+     */
+    @Override
+    public Page<E> findPage(String token, int size) {
+        return findPageStats.record(() -> repository.findPage(token, size));
     }
 
     /**
@@ -61,7 +127,11 @@ public abstract class AbstractService<ID, E extends Entity<ID>> implements Servi
      */
     @Override
     public Optional<E> save(E entity) throws EntityAlreadyExistsException {
-        return repository.save(entity);
+        return saveStats.record(() -> {
+            Optional<E> savedEntity = repository.save(entity);
+            events.dispatch();
+            return savedEntity;
+        });
     }
 
     /**
@@ -73,7 +143,11 @@ public abstract class AbstractService<ID, E extends Entity<ID>> implements Servi
      */
     @Override
     public Optional<E> deleteById(ID id) {
-        return repository.delete(id);
+        return deleteByIdStats.record(() -> {
+            Optional<E> deletedEntity = repository.delete(id);
+            events.dispatch();
+            return deletedEntity;
+        });
     }
 
     /**
@@ -85,6 +159,152 @@ public abstract class AbstractService<ID, E extends Entity<ID>> implements Servi
      */
     @Override
     public Optional<E> update(E entity) throws EntityNotFoundException {
-        return repository.update(entity);
+        return updateStats.record(() -> {
+            Optional<E> updatedEntity = repository.update(entity);
+            events.dispatch();
+            return updatedEntity;
+        });
+    }
+
+    /**
+     * Registers a listener notified after each successful save, delete or update.
+     *
+     * @param listener the listener to be registered
+     */
+    @Override
+    public void addListener(ServiceListener<ID, E> listener) {
+        events.listeners.add(listener);
+    }
+
+    /**
+     * Waits until every mutation applied so far is persisted durably, whatever the durability policy of the underlying
+     * repository.
+     */
+    @Override
+    public void awaitDurable() {
+        repository.awaitDurable();
+    }
+
+    /**
+     * Saves a batch of new entities in the repository, then notifies listeners of each saved entity.
+     *
+     * @param entities the entities to be saved
+     * @return the saved entities and the rejected ones, with the reason of each rejection
+     */
+    @Override
+    public BatchResult<E, E> saveAll(Collection<E> entities) {
+        return saveAllStats.record(() -> {
+            BatchResult<E, E> result = repository.saveAll(entities);
+            events.dispatch();
+            return result;
+        });
+    }
+
+    /**
+     * Deletes a batch of entities from the repository, then notifies listeners of each deleted entity.
+     *
+     * @param ids the unique identifiers of the entities to be deleted
+     * @return the deleted entities and the rejected identifiers, with the reason of each rejection
+     */
+    @Override
+    public BatchResult<ID, E> deleteAllById(Collection<ID> ids) {
+        return deleteAllByIdStats.record(() -> {
+            BatchResult<ID, E> result = repository.deleteAll(ids);
+            events.dispatch();
+            return result;
+        });
+    }
+
+    /**
+     * Updates a batch of existing entities in the repository, then notifies listeners of each updated entity.
+     *
+     * @param entities the entities with updated data
+     * @return the updated entities and the rejected ones, with the reason of each rejection
+     */
+    @Override
+    public BatchResult<E, E> updateAll(Collection<E> entities) {
+        return updateAllStats.record(() -> {
+            BatchResult<E, E> result = repository.updateAll(entities);
+            events.dispatch();
+            return result;
+        });
+    }
+
+    /**
+     * Records the saving of a new entity in a unit of work, notifying listeners once the unit is committed.
+     *
+     * @param unit the unit of work recording the mutation
+     * @param entity the entity to be saved
+     */
+    @Override
+    public void save(UnitOfWork unit, E entity) {
+        unit.save(repository, entity, saved -> events.dispatch());
+    }
+
+    /**
+     * Records the deletion of an entity in a unit of work, notifying listeners once the unit is committed.
+     *
+     * @param unit the unit of work recording the mutation
+     * @param id the unique identifier of the entity to be deleted
+     */
+    @Override
+    public void deleteById(UnitOfWork unit, ID id) {
+        unit.delete(repository, id, deleted -> events.dispatch());
+    }
+
+    /**
+     * Records the update of an existing entity in a unit of work, notifying listeners once the unit is committed.
+     *
+     * @param unit the unit of work recording the mutation
+     * @param entity the entity with updated data
+     */
+    @Override
+    public void update(UnitOfWork unit, E entity) {
+        unit.update(repository, entity, updated -> events.dispatch());
+    }
+
+    /**
+     * Queue of the notifications of the service's listeners. The repository fills it while the mutated entities are
+     * still locked, so the notifications of an entity are queued in the order its mutations were committed; the
+     * mutating threads then drain it one at a time, so listeners receive them in that same order.
+     *
+     * @param <ID> the type of the unique identifier for the entity
+     * @param <E> the type of the entity
+     */
+    private static class EventQueue<ID, E extends Entity<ID>> implements RepositoryListener<ID, E> {
+
+        // Listeners of the service, in registration order
+        private final List<ServiceListener<ID, E>> listeners = new CopyOnWriteArrayList<>();
+
+        // Notifications not delivered yet, in commit order
+        private final Queue<Consumer<ServiceListener<ID, E>>> pending = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void onSaved(E entity) {
+            pending.add(listener -> listener.onSaved(entity));
+        }
+
+        @Override
+        public void onDeleted(E entity) {
+            pending.add(listener -> listener.onDeleted(entity));
+        }
+
+        @Override
+        public void onUpdated(E entity) {
+            pending.add(listener -> listener.onUpdated(entity));
+        }
+
+        /**
+         * Delivers every pending notification to the listeners. Called by each mutation once its locks are released,
+         * so its own notifications are delivered before it returns, possibly along with those of concurrent ones.
+         */
+        synchronized void dispatch() {
+            Consumer<ServiceListener<ID, E>> notification;
+            while ((notification = pending.poll()) != null) {
+                for (ServiceListener<ID, E> listener : listeners) {
+                    notification.accept(listener);
+                }
+            }
+        }
     }
 }
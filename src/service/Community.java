@@ -1,12 +1,425 @@
 package service;
 
+import models.Friendship;
+import models.User;
+import utils.Config;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Connected components (communities) of the friendship graph of a {@link Network}.
+ *
+ * Users are mapped to dense indices and grouped with a union-find structure. The initial pass unions all accepted
+ * friendships in parallel with lock-free linking; afterwards the structure follows every user and friendship change
+ * of the network: new friendships union two communities, while removed friendships or users only recompute the
+ * community they belonged to.
+ *
+ * Diameters of communities are computed with a {@link DiameterEngine}, exactly for small communities and within a time
+ * budget, as bounds, for huge ones.
+ */
 public class Community {
 
     private final Network network;
 
+    private final Map<String, Integer> indexOf; // Dense index, indexed by user id
+    private final List<String> userIds; // User ids, indexed by dense index (null for deleted users)
+    private int[] parent; // Union-find parent of each dense index
+    private final Map<Integer, Set<Integer>> members; // Members of each community, indexed by root
+    private int communityCount;
+    // Events received while the communities are built, null once they are, guarded by this
+    private List<Runnable> bufferedEvents;
+
+    private final DiameterEngine diameterEngine;
+
     public Community(Network network) {
         this.network = network;
+        this.diameterEngine = new DiameterEngine(ForkJoinPool.commonPool());
+        this.indexOf = new HashMap<>();
+        this.userIds = new ArrayList<>();
+        this.members = new HashMap<>();
+        this.bufferedEvents = new ArrayList<>();
+
+        // Listeners are registered before the graph is read, so no change committed meanwhile is missed
+        network.addUserListener(new ServiceListener<>() {
+            @Override
+            public void onSaved(User user) {
+                dispatch(() -> addUser(user.getId()));
+            }
+
+            @Override
+            public void onDeleted(User user) {
+                dispatch(() -> removeUser(user.getId()));
+            }
+        });
+        network.addFriendshipListener(new ServiceListener<>() {
+            @Override
+            public void onSaved(Friendship friendship) {
+                if (!friendship.isPending()) {
+                    dispatch(() -> union(friendship.getSenderId(), friendship.getReceiverId()));
+                }
+            }
+
+            @Override
+            public void onDeleted(Friendship friendship) {
+                if (!friendship.isPending()) {
+                    dispatch(() -> split(friendship.getSenderId(), friendship.getReceiverId()));
+                }
+            }
+
+            @Override
+            public void onUpdated(Friendship friendship) {
+                if (friendship.isPending()) {
+                    dispatch(() -> split(friendship.getSenderId(), friendship.getReceiverId()));
+                } else {
+                    dispatch(() -> union(friendship.getSenderId(), friendship.getReceiverId()));
+                }
+            }
+        });
+
+        buildComponents();
+
+        // Replaying an event the graph already reflects leaves the communities as they are: users are added and
+        // removed idempotently, unions of connected users do nothing, and splits check the current friendships
+        synchronized (this) {
+            List<Runnable> events = bufferedEvents;
+            bufferedEvents = null;
+            events.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Returns the number of communities, counting users without friends as communities of their own.
+     *
+     * @return the number of communities
+     */
+    public synchronized int getCommunityCount() {
+        return communityCount;
+    }
+
+    /**
+     * Returns the identifier of the community of the specified user, which is the identifier of one of its members.
+     * Two users belong to the same community if and only if their community identifiers are equal.
+     *
+     * @param uid the identifier of the user
+     * @return an {@link Optional} containing the community identifier, or an empty {@code Optional} if the user does
+     *         not exist
+     */
+    public synchronized Optional<String> getCommunityIdOfUser(String uid) {
+        Integer index = indexOf.get(uid);
+        return index == null ? Optional.empty() : Optional.of(userIds.get(find(index)));
+    }
+
+    /**
+     * Returns the identifiers of the members of the specified community.
+     *
+     * @param communityId the identifier of the community
+     * @return a list of member identifiers, or an empty list if no such community exists
+     */
+    public synchronized List<String> getMembersOfCommunity(String communityId) {
+        Integer index = indexOf.get(communityId);
+        if (index == null) {
+            return List.of();
+        }
+        Set<Integer> community = members.getOrDefault(find(index), Set.of());
+        return community.stream().map(userIds::get).toList();
     }
 
+    /**
+     * Returns the size of every community, indexed by community identifier.
+     *
+     * @return a map from community identifier to number of members
+     */
+    public synchronized Map<String, Integer> getCommunitySizes() {
+        Map<String, Integer> sizes = new HashMap<>();
+        members.forEach((root, community) -> sizes.put(userIds.get(root), community.size()));
+        return sizes;
+    }
+
+    /**
+     * Finds the most sociable community, i.e. the community with the longest shortest-path chain between two of its
+     * members, within the default time budget.
+     *
+     * @return an {@link Optional} containing the diameter result of the most sociable community, or an empty
+     *         {@code Optional} if there are no users
+     */
+    public Optional<DiameterResult> getMostSociableCommunity() {
+        return getMostSociableCommunity(Duration.ofMillis(Config.DEFAULT_DIAMETER_TIME_BUDGET_MILLIS));
+    }
+
+    /**
+     * Finds the most sociable community, i.e. the community with the longest shortest-path chain between two of its
+     * members. Communities are visited from the largest one and compared by the lower bound of their diameter; once
+     * the budget is spent, remaining communities only get the bounds of a double sweep.
+     *
+     * @param budget the time budget for refining diameter bounds
+     * @return an {@link Optional} containing the diameter result of the most sociable community, or an empty
+     *         {@code Optional} if there are no users
+     */
+    public Optional<DiameterResult> getMostSociableCommunity(Duration budget) {
+        long deadline = System.nanoTime() + budget.toNanos();
+
+        List<Map.Entry<String, Integer>> communities;
+        synchronized (this) {
+            communities = members.entrySet().stream()
+                    .map(entry -> Map.entry(userIds.get(entry.getKey()), entry.getValue().size()))
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .toList();
+        }
+
+        DiameterResult best = null;
+        for (Map.Entry<String, Integer> community : communities) {
+            // A community of n members cannot have a diameter above n - 1
+            if (best != null && community.getValue() - 1 <= best.getLowerBound()) {
+                break;
+            }
+
+            Optional<DiameterResult> result = computeDiameter(community.getKey(), deadline);
+            if (result.isPresent() && (best == null || result.get().getLowerBound() > best.getLowerBound())) {
+                best = result.get();
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    /**
+     * Computes the diameter of the community with the specified identifier within the specified time budget.
+     *
+     * @param communityId the identifier of the community
+     * @param budget the time budget for refining diameter bounds
+     * @return an {@link Optional} containing the diameter result, or an empty {@code Optional} if no such community
+     *         exists
+     */
+    public Optional<DiameterResult> getDiameterOfCommunity(String communityId, Duration budget) {
+        return computeDiameter(communityId, System.nanoTime() + budget.toNanos());
+    }
+
+    private Optional<DiameterResult> computeDiameter(String communityId, long deadline) {
+        List<String> ids;
+        synchronized (this) {
+            Integer index = indexOf.get(communityId);
+            if (index == null) {
+                return Optional.empty();
+            }
+            int root = find(index);
+            ids = members.get(root).stream().map(userIds::get).toList();
+            communityId = userIds.get(root);
+        }
+
+        FriendshipGraph graph = network.getGraph();
+        int[] nodes = ids.stream().mapToInt(graph::indexOf).filter(node -> node >= 0).toArray();
+        List<String> nodeIds = Arrays.stream(nodes).mapToObj(graph::idOf).toList();
+        return Optional.of(diameterEngine.compute(communityId, nodeIds, graph.inducedAdjacency(nodes), deadline));
+    }
+
+    /**
+     * Builds the communities from scratch over the CSR snapshot of the network, whose nodes become the dense indices:
+     * edges are unioned in parallel on a lock-free union-find, which is then flattened into the sequential structure
+     * used by incremental updates. Runs before any event is handled, without holding the lock of the structure, so
+     * events received meanwhile are buffered without waiting for it.
+     */
+    private void buildComponents() {
+        FriendshipGraph graph = network.getGraph();
+        int size = graph.size();
+        for (int node = 0; node < size; node++) {
+            indexOf.put(graph.idOf(node), node);
+            userIds.add(graph.idOf(node));
+        }
+
+        AtomicIntegerArray sharedParent = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            sharedParent.set(i, i);
+        }
 
+        IntStream.range(0, size).parallel().forEach(node -> graph.forEachNeighbour(node, neighbour -> {
+            if (node < neighbour) {
+                concurrentUnion(sharedParent, node, neighbour);
+            }
+        }));
+
+        parent = new int[Math.max(size, 16)];
+        for (int i = 0; i < size; i++) {
+            int root = concurrentFind(sharedParent, i);
+            parent[i] = root;
+            members.computeIfAbsent(root, key -> new HashSet<>()).add(i);
+        }
+        communityCount = members.size();
+    }
+
+    /**
+     * Runs the handling of an event, or buffers it while the communities are being built.
+     */
+    private void dispatch(Runnable event) {
+        synchronized (this) {
+            if (bufferedEvents != null) {
+                bufferedEvents.add(event);
+                return;
+            }
+        }
+        event.run();
+    }
+
+    private static int concurrentFind(AtomicIntegerArray parent, int index) {
+        while (true) {
+            int next = parent.get(index);
+            if (next == index) {
+                return index;
+            }
+            int grandparent = parent.get(next);
+            parent.compareAndSet(index, next, grandparent); // Path halving
+            index = grandparent;
+        }
+    }
+
+    private static void concurrentUnion(AtomicIntegerArray parent, int a, int b) {
+        while (true) {
+            a = concurrentFind(parent, a);
+            b = concurrentFind(parent, b);
+            if (a == b) {
+                return;
+            }
+
+            // Always link the higher root under the lower one, so concurrent links cannot form cycles
+            if (a < b) {
+                int swap = a;
+                a = b;
+                b = swap;
+            }
+            if (parent.compareAndSet(a, a, b)) {
+                return;
+            }
+        }
+    }
+
+    private int find(int index) {
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]]; // Path halving
+            index = parent[index];
+        }
+        return index;
+    }
+
+    private synchronized void addUser(String uid) {
+        if (indexOf.containsKey(uid)) {
+            return;
+        }
+
+        int index = userIds.size();
+        if (index == parent.length) {
+            parent = Arrays.copyOf(parent, parent.length * 2);
+        }
+        parent[index] = index;
+        indexOf.put(uid, index);
+        userIds.add(uid);
+        members.put(index, new HashSet<>(Set.of(index)));
+        communityCount++;
+    }
+
+    private synchronized void removeUser(String uid) {
+        Integer index = indexOf.remove(uid);
+        if (index == null) {
+            return;
+        }
+
+        int root = find(index);
+        Set<Integer> community = members.remove(root);
+        community.remove(index);
+        userIds.set(index, null);
+        communityCount--;
+
+        // The user normally lost all friendships before being deleted; otherwise its community may fall apart
+        if (!community.isEmpty()) {
+            relabel(community);
+        }
+    }
+
+    private synchronized void union(String uid1, String uid2) {
+        Integer a = indexOf.get(uid1);
+        Integer b = indexOf.get(uid2);
+        if (a == null || b == null) {
+            return;
+        }
+
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return;
+        }
+
+        // Union by size: the smaller community joins the larger one
+        if (members.get(rootA).size() < members.get(rootB).size()) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parent[rootB] = rootA;
+        members.get(rootA).addAll(members.remove(rootB));
+        communityCount--;
+    }
+
+    /**
+     * Handles the removal of a friendship between two users. A breadth-first search from the first user, restricted to
+     * their community and stopping as soon as the second user is reached, decides whether the community split; only in
+     * that case its members are relabeled.
+     */
+    private synchronized void split(String uid1, String uid2) {
+        Integer a = indexOf.get(uid1);
+        Integer b = indexOf.get(uid2);
+        if (a == null || b == null || find(a) != find(b) || isReachable(uid1, uid2)) {
+            return;
+        }
+
+        int root = find(a);
+        Set<Integer> community = members.remove(root);
+        communityCount--;
+        relabel(community);
+    }
+
+    private boolean isReachable(String source, String target) {
+        Set<String> visited = new HashSet<>(List.of(source));
+        Deque<String> queue = new ArrayDeque<>(List.of(source));
+        while (!queue.isEmpty()) {
+            for (String friendId : network.getFriendIdsOfUser(queue.poll())) {
+                if (friendId.equals(target)) {
+                    return true;
+                }
+                if (visited.add(friendId)) {
+                    queue.add(friendId);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Recomputes the communities of the specified members, which must have been removed from {@code members} and not
+     * be connected to any user outside of them.
+     */
+    private void relabel(Set<Integer> community) {
+        Set<Integer> visited = new HashSet<>();
+        for (int start : community) {
+            if (!visited.add(start)) {
+                continue;
+            }
+
+            Set<Integer> component = new HashSet<>(Set.of(start));
+            Deque<Integer> queue = new ArrayDeque<>(List.of(start));
+            while (!queue.isEmpty()) {
+                int current = queue.poll();
+                parent[current] = start;
+                for (String friendId : network.getFriendIdsOfUser(userIds.get(current))) {
+                    Integer friend = indexOf.get(friendId);
+                    if (friend != null && visited.add(friend)) {
+                        component.add(friend);
+                        queue.add(friend);
+                    }
+                }
+            }
+            members.put(start, component);
+            communityCount++;
+        }
+    }
 }
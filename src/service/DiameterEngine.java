@@ -0,0 +1,176 @@
+package service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Diameter engine for connected graphs given as int adjacency arrays, based on the iFUB (iterative Fringe Upper Bound)
+ * algorithm. A graph that turns out to be disconnected, as a community can briefly be while its membership and its
+ * edges are updated by separate listeners, gets the bounds of the component holding its highest-degree node.
+ *
+ * A double sweep picks a central node and a first lower bound. The breadth-first levels of the central node are then
+ * visited from the farthest one inwards, computing the eccentricities of each level with parallel BFS on a fork-join
+ * pool, until the lower bound meets the upper bound. If the deadline expires first, the current bounds are returned,
+ * so large graphs get a bounded-error result while small graphs are always solved exactly.
+ */
+public class DiameterEngine {
+
+    // Number of eccentricity BFS run between two deadline checks
+    private static final int CHUNK_SIZE = 64;
+
+    private final ForkJoinPool pool; // Pool running the parallel eccentricity BFS
+
+    /**
+     * Constructs a new DiameterEngine running its parallel BFS on the specified pool.
+     *
+     * @param pool the fork-join pool used for parallel BFS
+     */
+    public DiameterEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Computes the bounds of the diameter of a connected graph, or of the component of its highest-degree node if it
+     * is disconnected.
+     *
+     * @param communityId the identifier of the community the graph represents
+     * @param ids the user identifiers, indexed by node
+     * @param adjacency the neighbours of each node
+     * @param deadlineNanos the {@link System#nanoTime()} value after which the computation stops refining bounds
+     * @return the diameter bounds and the endpoints of the longest shortest path found
+     */
+    public DiameterResult compute(String communityId, List<String> ids, int[][] adjacency, long deadlineNanos) {
+        int size = adjacency.length;
+        if (size <= 1) {
+            String id = size == 0 ? null : ids.getFirst();
+            return new DiameterResult(communityId, size, 0, 0, id, id);
+        }
+
+        // Double sweep from the node with the highest degree
+        int start = 0;
+        for (int node = 1; node < size; node++) {
+            if (adjacency[node].length > adjacency[start].length) {
+                start = node;
+            }
+        }
+        int[] parents = new int[size];
+        int[] distances = new int[size];
+        int[] order = bfs(adjacency, start, distances, parents);
+        int from = order[order.length - 1];
+        order = bfs(adjacency, from, distances, parents);
+        int to = order[order.length - 1];
+        int lowerBound = distances[to];
+
+        // The middle node of the longest path found is a good central node for the fringe iteration
+        int center = to;
+        for (int step = 0; step < lowerBound / 2; step++) {
+            center = parents[center];
+        }
+
+        order = bfs(adjacency, center, distances, parents);
+        int reached = order.length; // Size of the component, the whole graph unless it is disconnected
+        int eccentricity = distances[order[reached - 1]];
+        if (eccentricity > lowerBound) {
+            lowerBound = eccentricity;
+            from = center;
+            to = order[reached - 1];
+        }
+        int upperBound = Math.min(2 * eccentricity, reached - 1);
+
+        // Visit the BFS levels of the central node from the farthest one inwards
+        int end = reached;
+        for (int level = eccentricity; level > 0 && upperBound > lowerBound; level--) {
+            int begin = end;
+            while (begin > 0 && distances[order[begin - 1]] == level) {
+                begin--;
+            }
+
+            for (int chunk = begin; chunk < end; chunk += CHUNK_SIZE) {
+                if (System.nanoTime() > deadlineNanos) {
+                    return result(communityId, ids, lowerBound, upperBound, from, to);
+                }
+
+                int[] best = maxEccentricity(adjacency, order, chunk, Math.min(chunk + CHUNK_SIZE, end));
+                if (best[0] > lowerBound) {
+                    lowerBound = best[0];
+                    from = best[1];
+                    to = best[2];
+                }
+            }
+
+            // Any two nodes in the remaining levels are at most 2 * (level - 1) apart
+            upperBound = Math.max(lowerBound, Math.min(upperBound, 2 * (level - 1)));
+            end = begin;
+        }
+
+        return result(communityId, ids, lowerBound, upperBound, from, to);
+    }
+
+    private static DiameterResult result(String communityId, List<String> ids, int lowerBound, int upperBound,
+                                         int from, int to) {
+        return new DiameterResult(communityId, ids.size(), lowerBound, upperBound, ids.get(from), ids.get(to));
+    }
+
+    /**
+     * Computes, in parallel on the pool, the maximal eccentricity among the nodes {@code order[begin..end)}.
+     *
+     * @return an array holding the maximal eccentricity, its source node and the farthest node from the source
+     */
+    private int[] maxEccentricity(int[][] adjacency, int[] order, int begin, int end) {
+        try {
+            return pool.submit(() -> IntStream.range(begin, end).parallel()
+                    .mapToObj(position -> {
+                        int source = order[position];
+                        int[] distances = new int[adjacency.length];
+                        int[] visited = bfs(adjacency, source, distances, null);
+                        int target = visited[visited.length - 1];
+                        return new int[]{distances[target], source, target};
+                    })
+                    .reduce((a, b) -> a[0] >= b[0] ? a : b)
+                    .orElse(new int[]{0, order[begin], order[begin]})).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new int[]{0, order[begin], order[begin]};
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Runs a breadth-first search from the specified source.
+     *
+     * @param adjacency the neighbours of each node
+     * @param source the source node
+     * @param distances output array receiving the distance of each node from the source (-1 if unreachable)
+     * @param parents optional output array receiving the BFS parent of each node
+     * @return the reached nodes in visiting order, hence sorted by distance from the source
+     */
+    static int[] bfs(int[][] adjacency, int source, int[] distances, int[] parents) {
+        int[] queue = new int[adjacency.length];
+        Arrays.fill(distances, -1);
+        distances[source] = 0;
+        if (parents != null) {
+            parents[source] = source;
+        }
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int current = queue[head++];
+            for (int neighbour : adjacency[current]) {
+                if (distances[neighbour] < 0) {
+                    distances[neighbour] = distances[current] + 1;
+                    if (parents != null) {
+                        parents[neighbour] = current;
+                    }
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+        return tail == queue.length ? queue : Arrays.copyOf(queue, tail);
+    }
+}
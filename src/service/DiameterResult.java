@@ -0,0 +1,115 @@
+package service;
+
+/**
+ * Result of a diameter computation over a community: bounds of the longest shortest-path chain between two members,
+ * together with the endpoints of the longest chain found.
+ *
+ * When the computation finished within its time budget, both bounds are equal and the result is exact.
+ */
+public class DiameterResult {
+
+    private final String communityId; // Identifier of the community
+    private final int size; // Number of members of the community
+    private final int lowerBound; // Length of the longest shortest path found
+    private final int upperBound; // Proven upper bound of the diameter
+    private final String fromUserId; // First endpoint of the longest shortest path found
+    private final String toUserId; // Second endpoint of the longest shortest path found
+
+    /**
+     * Constructs a new DiameterResult with the specified bounds and endpoints.
+     *
+     * @param communityId the identifier of the community
+     * @param size the number of members of the community
+     * @param lowerBound the length of the longest shortest path found
+     * @param upperBound the proven upper bound of the diameter
+     * @param fromUserId the first endpoint of the longest shortest path found
+     * @param toUserId the second endpoint of the longest shortest path found
+     */
+    public DiameterResult(String communityId, int size, int lowerBound, int upperBound, String fromUserId,
+                          String toUserId) {
+        this.communityId = communityId;
+        this.size = size;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.fromUserId = fromUserId;
+        this.toUserId = toUserId;
+    }
+
+    /**
+     * Returns the identifier of the community.
+     *
+     * @return the identifier of the community
+     */
+    public String getCommunityId() {
+        return communityId;
+    }
+
+    /**
+     * Returns the number of members of the community.
+     *
+     * @return the number of members
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the length of the longest shortest path found, which is a lower bound of the diameter.
+     *
+     * @return the lower bound of the diameter
+     */
+    public int getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Returns the proven upper bound of the diameter.
+     *
+     * @return the upper bound of the diameter
+     */
+    public int getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * Returns whether the diameter is exact, i.e. both bounds are equal.
+     *
+     * @return {@code true} if the diameter is exact, {@code false} otherwise
+     */
+    public boolean isExact() {
+        return lowerBound == upperBound;
+    }
+
+    /**
+     * Returns the first endpoint of the longest shortest path found.
+     *
+     * @return the identifier of the first endpoint
+     */
+    public String getFromUserId() {
+        return fromUserId;
+    }
+
+    /**
+     * Returns the second endpoint of the longest shortest path found.
+     *
+     * @return the identifier of the second endpoint
+     */
+    public String getToUserId() {
+        return toUserId;
+    }
+
+    /**
+     * Returns a string representation of the diameter result.
+     *
+     * @return a string representation of the diameter result
+     */
+    @Override
+    public String toString() {
+        return "@COMMUNITY | " +
+                "ID <" + communityId + ">" +
+                "\n           | SIZE <" + size + ">" +
+                "\n           | DIAMETER <" + (isExact() ? lowerBound : lowerBound + ".." + upperBound) + ">" +
+                "\n           | FROM <" + fromUserId + ">" +
+                "\n           | TO <" + toUserId + ">";
+    }
+}
@@ -0,0 +1,174 @@
+package service;
+
+import models.Friendship;
+import models.User;
+import utils.CacheStats;
+import utils.Config;
+import utils.Metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the resolved user lists of the network: the friends, the sent requests and the received requests of each
+ * user. At most {@link Config#DEFAULT_FRIEND_LIST_CACHE_SIZE} lists are kept, the least recently used one being
+ * evicted first.
+ *
+ * Lists are invalidated when a friendship touching their user is saved, deleted or updated, and when a user appearing
+ * in them, as a friend or at the other end of a request, is updated or deleted. A list computed while a change was
+ * being applied is not cached. Hits, misses, evictions and invalidations are recorded in the {@link Metrics} cache
+ * named {@code Network.friendLists}.
+ */
+public class FriendListCache {
+
+    /**
+     * Kind of user list kept for each user.
+     */
+    public enum Kind {
+        FRIENDS, SENT_REQUESTS, RECEIVED_REQUESTS
+    }
+
+    private final FriendshipService friendshipService; // Service resolving the users touched by a user change
+    private final Map<Key, List<User>> lists; // Cached lists in access order, least recently used first
+    private final CacheStats stats;
+
+    // Number of invalidations so far, compared before and after computing a list to detect concurrent changes
+    private final AtomicLong invalidations;
+
+    /**
+     * Constructs a new FriendListCache, following the changes of the users and friendships of the services.
+     *
+     * @param userService the service whose user changes invalidate lists
+     * @param friendshipService the service whose friendship changes invalidate lists
+     */
+    public FriendListCache(Service<String, User> userService, FriendshipService friendshipService) {
+        this.friendshipService = friendshipService;
+        this.stats = Metrics.getCache("Network.friendLists");
+        this.invalidations = new AtomicLong();
+        this.lists = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<User>> eldest) {
+                boolean evict = size() > Config.DEFAULT_FRIEND_LIST_CACHE_SIZE;
+                if (evict) {
+                    stats.recordEviction();
+                }
+                return evict;
+            }
+        });
+
+        friendshipService.addListener(new ServiceListener<>() {
+            @Override
+            public void onSaved(Friendship friendship) {
+                invalidate(List.of(friendship.getUsers()));
+            }
+
+            @Override
+            public void onDeleted(Friendship friendship) {
+                invalidate(List.of(friendship.getUsers()));
+            }
+
+            @Override
+            public void onUpdated(Friendship friendship) {
+                invalidate(List.of(friendship.getUsers()));
+            }
+        });
+        userService.addListener(new ServiceListener<>() {
+            @Override
+            public void onDeleted(User user) {
+                invalidate(List.of(user.getId()));
+            }
+
+            @Override
+            public void onUpdated(User user) {
+                invalidate(relatedUsersOf(user.getId()));
+            }
+        });
+    }
+
+    /**
+     * Returns the cached list of a user, computing and caching it if absent.
+     *
+     * @param kind the kind of the list
+     * @param uid the unique identifier of the user
+     * @param loader the computation of the list, called on a miss
+     * @return the list, which must not be modified
+     */
+    public List<User> get(Kind kind, String uid, Supplier<List<User>> loader) {
+        Key key = new Key(kind, uid);
+        List<User> cached = lists.get(key);
+        if (cached != null) {
+            stats.recordHit();
+            return cached;
+        }
+
+        // The list is loaded after reading the invalidation count, so any change it misses uncaches it below
+        stats.recordMiss();
+        long version = invalidations.get();
+        List<User> loaded = List.copyOf(loader.get());
+        lists.put(key, loaded);
+        if (invalidations.get() != version) {
+            lists.remove(key, loaded);
+        }
+        stats.recordSize(lists.size());
+        return loaded;
+    }
+
+    /**
+     * Removes every cached list.
+     */
+    public void clear() {
+        invalidations.incrementAndGet();
+        int size = lists.size();
+        lists.clear();
+        stats.recordInvalidations(size);
+        stats.recordSize(0);
+    }
+
+    /**
+     * Returns the number of cached lists.
+     *
+     * @return the number of lists
+     */
+    public int size() {
+        return lists.size();
+    }
+
+    /**
+     * Returns the ids of a user and of every user whose lists may hold them: their friends and the other ends of their
+     * pending requests.
+     */
+    private Set<String> relatedUsersOf(String uid) {
+        Set<String> related = new HashSet<>(friendshipService.findFriendIdsOfUser(uid));
+        friendshipService.findSentRequestsOfUser(uid).forEach(request -> related.add(request.getReceiverId()));
+        friendshipService.findReceivedRequestsOfUser(uid).forEach(request -> related.add(request.getSenderId()));
+        related.add(uid);
+        return related;
+    }
+
+    private void invalidate(Collection<String> uids) {
+        invalidations.incrementAndGet();
+        int removed = 0;
+        for (String uid : uids) {
+            for (Kind kind : Kind.values()) {
+                if (lists.remove(new Key(kind, uid)) != null) {
+                    removed++;
+                }
+            }
+        }
+        stats.recordInvalidations(removed);
+        stats.recordSize(lists.size());
+    }
+
+    /**
+     * Identifies a cached list.
+     */
+    private record Key(Kind kind, String uid) {
+    }
+}
@@ -0,0 +1,170 @@
+package service;
+
+import models.Friendship;
+import utils.Config;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * "People you may know" recommendations of a {@link Network}: users at distance two from a user, ranked by the number
+ * of mutual friends, computed on the network's {@link FriendshipGraph} snapshot with the bounded search of
+ * {@link FriendshipGraph#recommendations(int, int)}.
+ *
+ * Results are cached per user, up to {@link Config#DEFAULT_RECOMMENDATION_CACHE_SIZE} users. Accepting or removing a
+ * friendship between two users changes the mutual friend counts seen by both users and by all their friends, so
+ * those entries are invalidated; if that concerns more users than the cache holds, the whole cache is cleared. A
+ * result computed while a change was being applied is not cached.
+ */
+public class FriendRecommender {
+
+    private final Network network; // Network whose graph is searched
+    private final int cacheSize; // Maximum number of cached users
+    private final ConcurrentMap<String, Recommendations> cache; // Cached recommendations, indexed by user id
+
+    // Number of invalidations so far, compared before and after computing a result to detect concurrent changes
+    private final AtomicLong invalidations;
+
+    /**
+     * Constructs a new FriendRecommender for the specified network, following its friendship changes.
+     *
+     * @param network the network whose users receive recommendations
+     */
+    public FriendRecommender(Network network) {
+        this.network = network;
+        this.cacheSize = Config.DEFAULT_RECOMMENDATION_CACHE_SIZE;
+        this.cache = new ConcurrentHashMap<>();
+        this.invalidations = new AtomicLong();
+
+        network.addFriendshipListener(new ServiceListener<>() {
+            @Override
+            public void onSaved(Friendship friendship) {
+                if (!friendship.isPending()) {
+                    invalidate(friendship);
+                }
+            }
+
+            @Override
+            public void onDeleted(Friendship friendship) {
+                if (!friendship.isPending()) {
+                    invalidate(friendship);
+                }
+            }
+
+            @Override
+            public void onUpdated(Friendship friendship) {
+                invalidate(friendship);
+            }
+        });
+    }
+
+    /**
+     * Returns the ids of the users recommended to the specified user, best first.
+     *
+     * @param uid the unique identifier of the user receiving recommendations
+     * @param limit the maximum number of recommendations
+     * @return the ids of the recommended users, or an empty list if the user does not exist
+     */
+    public List<String> recommend(String uid, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        Recommendations cached = cache.get(uid);
+        if (cached != null && cached.covers(limit)) {
+            return cached.first(limit);
+        }
+
+        // The graph is read after the invalidation count, so any change it misses invalidates the result below
+        long version = invalidations.get();
+        FriendshipGraph graph = network.getGraph();
+        int node = graph.indexOf(uid);
+        if (node < 0) {
+            return List.of();
+        }
+        String[] ids = Arrays.stream(graph.recommendations(node, limit)).mapToObj(graph::idOf).toArray(String[]::new);
+
+        Recommendations computed = new Recommendations(limit, ids);
+        if (cache.size() >= cacheSize) {
+            evictOne();
+        }
+        cache.put(uid, computed);
+        if (invalidations.get() != version) {
+            cache.remove(uid, computed);
+        }
+        return computed.first(limit);
+    }
+
+    /**
+     * Removes every cached recommendation.
+     */
+    public void clear() {
+        invalidations.incrementAndGet();
+        cache.clear();
+    }
+
+    /**
+     * Returns the number of users whose recommendations are cached.
+     *
+     * @return the number of cached users
+     */
+    public int getCachedCount() {
+        return cache.size();
+    }
+
+    /**
+     * Invalidates the recommendations of both users of a changed friendship and of their current friends.
+     */
+    private void invalidate(Friendship friendship) {
+        invalidations.incrementAndGet();
+        if (cache.isEmpty()) {
+            return;
+        }
+
+        Set<String> affected = new HashSet<>();
+        affected.add(friendship.getSenderId());
+        affected.add(friendship.getReceiverId());
+        affected.addAll(network.getFriendIdsOfUser(friendship.getSenderId()));
+        affected.addAll(network.getFriendIdsOfUser(friendship.getReceiverId()));
+        if (affected.size() > cacheSize) {
+            cache.clear();
+        } else {
+            affected.forEach(cache::remove);
+        }
+    }
+
+    private void evictOne() {
+        Iterator<String> keys = cache.keySet().iterator();
+        if (keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /**
+     * Cached recommendations of a user, computed for a given limit.
+     *
+     * @param limit the limit the recommendations were computed for
+     * @param ids the ids of the recommended users, best first
+     */
+    private record Recommendations(int limit, String[] ids) {
+
+        /**
+         * Tells whether the cached result answers a request: it holds at least as many recommendations as asked, or
+         * every candidate there is.
+         */
+        boolean covers(int requested) {
+            return requested <= limit || ids.length < limit;
+        }
+
+        List<String> first(int requested) {
+            return List.of(Arrays.copyOf(ids, Math.min(requested, ids.length)));
+        }
+    }
+}
@@ -0,0 +1,902 @@
+package service;
+
+import models.Friendship;
+import models.User;
+import utils.Config;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable snapshot of the friendship graph in compressed sparse row (CSR) form.
+ *
+ * Every user is mapped to a dense node index, and the accepted friendships are stored as undirected edges: the
+ * neighbours of node {@code u} are {@code targets[offsets[u]] .. targets[offsets[u + 1] - 1]}, sorted in ascending
+ * order. Each edge also records how many accepted friendship entities back it, so that removing one of two mirrored
+ * friendships keeps the edge. Traversals run over plain {@code int} arrays, without hashing identifiers or allocating
+ * per visited edge. The only mutable state is a cache of neighbour bitmaps of high-degree nodes, derived from the
+ * immutable arrays on first use.
+ *
+ * New snapshots are derived from an existing one by merging a batch of {@link Change}s, see
+ * {@link FriendshipGraphManager}.
+ */
+public class FriendshipGraph {
+
+    private final String[] ids; // User ids, indexed by node
+    private final Map<String, Integer> indexOf; // Node, indexed by user id
+    private final int[] offsets; // Start of the neighbours of each node in targets, followed by the total edge count
+    private final int[] targets; // Neighbours of every node, sorted per node
+    private final int[] multiplicities; // Number of accepted friendships backing each entry of targets
+
+    // Mutual friend counts of recommendations, indexed by node and reused by each thread across calls and snapshots;
+    // every call clears the entries it touched
+    private static final ThreadLocal<int[]> MUTUAL_FRIENDS = ThreadLocal.withInitial(() -> new int[0]);
+
+    // Degree ratio above which intersecting neighbours gallops through the larger list instead of merging both
+    private static final int GALLOP_RATIO = 32;
+
+    // Minimum degree for which a node gets a neighbour bitmap; the graph size must also be at most 32 times the
+    // degree, so that the bitmap is never larger than the neighbour array itself
+    private static final int BITMAP_MIN_DEGREE = 1024;
+
+    // Sides of the bidirectional search of shortestPath
+    private static final int FORWARD = 0;
+    private static final int BACKWARD = 1;
+
+    // Scratch state of shortest path searches, reused by each thread across calls and snapshots
+    private static final ThreadLocal<PathSearch> PATH_SEARCHES = ThreadLocal.withInitial(PathSearch::new);
+
+    // Neighbour bitmaps of high-degree nodes, built on first use, indexed by node
+    private final ConcurrentMap<Integer, long[]> neighbourBitmaps = new ConcurrentHashMap<>();
+
+    private FriendshipGraph(String[] ids, Map<String, Integer> indexOf, int[] offsets, int[] targets,
+                            int[] multiplicities) {
+        this.ids = ids;
+        this.indexOf = indexOf;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.multiplicities = multiplicities;
+    }
+
+    /**
+     * Builds a new FriendshipGraph from the provided users and their accepted friendships. Pending requests and
+     * friendships referencing unknown users are ignored.
+     *
+     * @param users the users of the graph
+     * @param friendships the friendships between the users
+     * @return the graph of the provided users
+     */
+    public static FriendshipGraph of(Iterable<User> users, Iterable<Friendship> friendships) {
+        List<String> ids = new ArrayList<>();
+        Map<String, Integer> indexOf = new HashMap<>();
+        for (User user : users) {
+            if (indexOf.putIfAbsent(user.getId(), ids.size()) == null) {
+                ids.add(user.getId());
+            }
+        }
+
+        long[] edges = new long[16];
+        int count = 0;
+        for (Friendship friendship : friendships) {
+            if (friendship.isPending()) {
+                continue;
+            }
+            Integer a = indexOf.get(friendship.getSenderId());
+            Integer b = indexOf.get(friendship.getReceiverId());
+            if (a == null || b == null || a.equals(b)) {
+                continue;
+            }
+
+            if (count + 2 > edges.length) {
+                edges = Arrays.copyOf(edges, edges.length * 2);
+            }
+            edges[count++] = edge(a, b);
+            edges[count++] = edge(b, a);
+        }
+        Arrays.parallelSort(edges, 0, count);
+
+        // Sorted edges are grouped by source node, then by target node; duplicates only raise the multiplicity
+        int[] offsets = new int[ids.size() + 1];
+        int[] targets = new int[count];
+        int[] multiplicities = new int[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && edges[i] == edges[i - 1]) {
+                multiplicities[size - 1]++;
+                continue;
+            }
+            offsets[source(edges[i]) + 1]++;
+            targets[size] = target(edges[i]);
+            multiplicities[size++] = 1;
+        }
+        for (int node = 0; node < ids.size(); node++) {
+            offsets[node + 1] += offsets[node];
+        }
+
+        return new FriendshipGraph(ids.toArray(String[]::new), indexOf, offsets, Arrays.copyOf(targets, size),
+                Arrays.copyOf(multiplicities, size));
+    }
+
+    /**
+     * Returns the number of nodes (users) of the graph.
+     *
+     * @return the number of nodes
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Returns the number of undirected edges (distinct pairs of friends) of the graph.
+     *
+     * @return the number of edges
+     */
+    public int edgeCount() {
+        return targets.length / 2;
+    }
+
+    /**
+     * Returns the node of the specified user.
+     *
+     * @param uid the identifier of the user
+     * @return the node of the user, or -1 if the user is not part of the graph
+     */
+    public int indexOf(String uid) {
+        Integer node = indexOf.get(uid);
+        return node == null ? -1 : node;
+    }
+
+    /**
+     * Returns the identifier of the user represented by the specified node.
+     *
+     * @param node the node
+     * @return the identifier of the user
+     */
+    public String idOf(int node) {
+        return ids[node];
+    }
+
+    /**
+     * Returns the number of distinct friends of the specified node.
+     *
+     * @param node the node
+     * @return the degree of the node
+     */
+    public int degree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    /**
+     * Checks whether two nodes are friends, with a binary search over the sorted neighbours of the first one.
+     *
+     * @param node the first node
+     * @param other the second node
+     * @return {@code true} if the nodes are friends, {@code false} otherwise
+     */
+    public boolean isAdjacent(int node, int other) {
+        return Arrays.binarySearch(targets, offsets[node], offsets[node + 1], other) >= 0;
+    }
+
+    /**
+     * Returns the mutual friends of two nodes, intersecting their sorted neighbours in about
+     * {@code min(degree(node), degree(other))} steps, whatever the size of the graph:
+     * <ul>
+     *     <li>when the larger node has a neighbour bitmap, each neighbour of the smaller one is tested in it;</li>
+     *     <li>when the degrees differ widely, each neighbour of the smaller node is searched in the larger list by
+     *     galloping (doubling steps, then a binary search) from the previous match;</li>
+     *     <li>otherwise both lists are merged.</li>
+     * </ul>
+     *
+     * @param node the first node
+     * @param other the second node
+     * @return the common neighbours, in ascending order
+     */
+    public int[] mutualFriends(int node, int other) {
+        int small = degree(node) <= degree(other) ? node : other;
+        int large = small == node ? other : node;
+        int smallFrom = offsets[small];
+        int smallTo = offsets[small + 1];
+        int largeFrom = offsets[large];
+        int largeTo = offsets[large + 1];
+        int[] common = new int[smallTo - smallFrom];
+        int count = 0;
+
+        long[] bitmap = neighbourBitmap(large);
+        if (bitmap != null) {
+            for (int i = smallFrom; i < smallTo; i++) {
+                int candidate = targets[i];
+                if ((bitmap[candidate >>> 6] & (1L << candidate)) != 0) {
+                    common[count++] = candidate;
+                }
+            }
+        } else if ((long) (smallTo - smallFrom) * GALLOP_RATIO < largeTo - largeFrom) {
+            int position = largeFrom;
+            for (int i = smallFrom; i < smallTo && position < largeTo; i++) {
+                position = gallop(position, largeTo, targets[i]);
+                if (position < largeTo && targets[position] == targets[i]) {
+                    common[count++] = targets[position++];
+                }
+            }
+        } else {
+            int i = smallFrom;
+            int j = largeFrom;
+            while (i < smallTo && j < largeTo) {
+                if (targets[i] < targets[j]) {
+                    i++;
+                } else if (targets[i] > targets[j]) {
+                    j++;
+                } else {
+                    common[count++] = targets[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(common, count);
+    }
+
+    /**
+     * Returns the first position in {@code targets[from .. to - 1]} holding a value not below the searched one, or
+     * {@code to} if there is none, probing positions at doubling distances before a binary search.
+     */
+    private int gallop(int from, int to, int value) {
+        if (targets[from] >= value) {
+            return from;
+        }
+
+        // targets[low] stays below the searched value
+        int low = from;
+        int step = 1;
+        while (low + step < to && targets[low + step] < value) {
+            low += step;
+            step <<= 1;
+        }
+        int position = Arrays.binarySearch(targets, low + 1, Math.min(low + step, to), value);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    /**
+     * Returns the neighbour bitmap of a high-degree node, building it on first use, or {@code null} if the node's
+     * degree is too low for a bitmap to pay off.
+     */
+    private long[] neighbourBitmap(int node) {
+        int degree = degree(node);
+        if (degree < BITMAP_MIN_DEGREE || ids.length > (long) degree * 32) {
+            return null;
+        }
+        return neighbourBitmaps.computeIfAbsent(node, key -> {
+            long[] bitmap = new long[(ids.length + 63) >>> 6];
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                bitmap[targets[i] >>> 6] |= 1L << targets[i];
+            }
+            return bitmap;
+        });
+    }
+
+    /**
+     * Returns the friends of a user as they will be once the changes are merged into a new snapshot, without merging
+     * them: the user's neighbours in this snapshot are adjusted by the changes of the user and of its friendships.
+     * Friends removed as users by the changes are not dropped, so callers must check they still exist.
+     *
+     * @param uid the id of the user
+     * @param changes the changes recorded since this snapshot, in order
+     * @return the ids of the user's friends, empty if the user does not exist
+     */
+    Set<String> friendsAfter(String uid, List<Change> changes) {
+        Map<String, Integer> friends = new HashMap<>();
+        Integer node = indexOf.get(uid);
+        if (node != null) {
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                friends.put(ids[targets[i]], multiplicities[i]);
+            }
+        }
+
+        boolean present = node != null;
+        for (Change change : changes) {
+            if (!change.involves(uid)) {
+                continue;
+            }
+            if (change.type == ChangeType.USER_ADDED || change.type == ChangeType.USER_REMOVED) {
+                present = change.type == ChangeType.USER_ADDED;
+            } else {
+                String friend = uid.equals(change.uid) ? change.otherUid : change.uid;
+                if (!uid.equals(friend)) {
+                    friends.merge(friend, change.type == ChangeType.EDGE_ADDED ? 1 : -1, Integer::sum);
+                }
+            }
+        }
+        if (!present) {
+            return new HashSet<>();
+        }
+        friends.values().removeIf(multiplicity -> multiplicity <= 0);
+        return new HashSet<>(friends.keySet());
+    }
+
+    /**
+     * Checks whether two users will be friends once the changes are merged into a new snapshot, without merging them:
+     * the number of accepted friendships between them in this snapshot is adjusted by the changes of those
+     * friendships.
+     *
+     * @param uid the id of the first user
+     * @param otherUid the id of the second user
+     * @param changes the changes recorded since this snapshot, in order
+     * @return {@code true} if the users will be friends, {@code false} otherwise
+     */
+    boolean isAdjacentAfter(String uid, String otherUid, List<Change> changes) {
+        Integer node = indexOf.get(uid);
+        Integer other = indexOf.get(otherUid);
+        int multiplicity = 0;
+        if (node != null && other != null) {
+            int i = Arrays.binarySearch(targets, offsets[node], offsets[node + 1], other);
+            multiplicity = i >= 0 ? multiplicities[i] : 0;
+        }
+        for (Change change : changes) {
+            boolean edgeChange = change.type == ChangeType.EDGE_ADDED || change.type == ChangeType.EDGE_REMOVED;
+            if (edgeChange && change.involves(uid) && change.involves(otherUid)) {
+                multiplicity += change.type == ChangeType.EDGE_ADDED ? 1 : -1;
+            }
+        }
+        return multiplicity > 0;
+    }
+
+    /**
+     * Performs the specified action on every neighbour of the node, in ascending order.
+     *
+     * @param node the node
+     * @param action the action receiving each neighbour
+     */
+    public void forEachNeighbour(int node, IntConsumer action) {
+        for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+            action.accept(targets[i]);
+        }
+    }
+
+    /**
+     * Returns a copy of the sorted neighbours of the specified node.
+     *
+     * @param node the node
+     * @return the neighbours of the node
+     */
+    public int[] neighboursOf(int node) {
+        return Arrays.copyOfRange(targets, offsets[node], offsets[node + 1]);
+    }
+
+    /**
+     * Performs a breadth-first search from the source node, using caller-provided arrays so that repeated searches do
+     * not allocate. Both arrays must have at least {@link #size()} elements.
+     *
+     * @param source the node the search starts from
+     * @param distances receives the distance of every node from the source, or -1 for unreachable nodes
+     * @param queue receives the reached nodes, in visiting order
+     * @return the number of reached nodes, including the source
+     */
+    public int bfs(int source, int[] distances, int[] queue) {
+        Arrays.fill(distances, 0, ids.length, -1);
+        distances[source] = 0;
+        queue[0] = source;
+
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int current = queue[head++];
+            for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                int next = targets[i];
+                if (distances[next] < 0) {
+                    distances[next] = distances[current] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Finds a shortest chain of friends between two nodes with a bidirectional breadth-first search: one search starts
+     * from each end, and each step expands a whole level of the side with the smaller frontier, until they meet or the
+     * hop limit is reached. Both searches therefore visit about the square root of the nodes a single search would on
+     * graphs with short paths.
+     *
+     * Visited nodes are marked in bitsets and their parents in arrays reused by each thread across searches, valid
+     * only where the visited bit is set; the bits are cleared through the visited lists afterwards, so a search does
+     * not touch memory proportional to the graph.
+     *
+     * @param source the first node of the chain
+     * @param target the last node of the chain
+     * @param maxHops the maximum number of friendships in the chain
+     * @return the nodes of a shortest chain from source to target, both included, or {@code null} if there is none
+     *         within the hop limit
+     */
+    public int[] shortestPath(int source, int target, int maxHops) {
+        if (source == target) {
+            return new int[]{source};
+        }
+
+        PathSearch search = PATH_SEARCHES.get();
+        search.ensureCapacity(ids.length);
+        try {
+            search.visit(FORWARD, source, -1);
+            search.visit(BACKWARD, target, -1);
+            int[] depths = new int[2];
+            int[] levelStarts = new int[2];
+
+            while (depths[FORWARD] + depths[BACKWARD] < maxHops) {
+                int side = search.sizes[FORWARD] - levelStarts[FORWARD] <=
+                        search.sizes[BACKWARD] - levelStarts[BACKWARD] ? FORWARD : BACKWARD;
+                int other = 1 - side;
+                int levelEnd = search.sizes[side];
+                if (levelStarts[side] == levelEnd) {
+                    return null; // One side exhausted its component without meeting the other
+                }
+
+                // Every meeting of this level is compared, as the first one found may not be the shortest
+                int bestLength = Integer.MAX_VALUE;
+                int meetingNode = -1;
+                int meetingNeighbour = -1;
+                for (int q = levelStarts[side]; q < levelEnd; q++) {
+                    int current = search.queues[side][q];
+                    for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                        int next = targets[i];
+                        if (search.isVisited(other, next)) {
+                            int length = depths[side] + 1 + search.depthOf(other, next);
+                            if (length < bestLength) {
+                                bestLength = length;
+                                meetingNode = current;
+                                meetingNeighbour = next;
+                            }
+                        } else if (!search.isVisited(side, next)) {
+                            search.visit(side, next, current);
+                        }
+                    }
+                }
+                levelStarts[side] = levelEnd;
+                depths[side]++;
+
+                if (meetingNode >= 0) {
+                    int[] sidePath = search.pathToRoot(side, meetingNode);
+                    int[] otherPath = search.pathToRoot(other, meetingNeighbour);
+                    return side == FORWARD ? join(sidePath, otherPath) : join(otherPath, sidePath);
+                }
+            }
+            return null;
+        } finally {
+            search.clear();
+        }
+    }
+
+    /**
+     * Joins two paths leading to their search roots into a chain from the root of the first to the root of the second.
+     */
+    private static int[] join(int[] toFirstRoot, int[] toSecondRoot) {
+        int[] chain = new int[toFirstRoot.length + toSecondRoot.length];
+        for (int i = 0; i < toFirstRoot.length; i++) {
+            chain[i] = toFirstRoot[toFirstRoot.length - 1 - i];
+        }
+        System.arraycopy(toSecondRoot, 0, chain, toFirstRoot.length, toSecondRoot.length);
+        return chain;
+    }
+
+    /**
+     * Labels the connected components of the graph. The array must have at least {@link #size()} elements.
+     *
+     * @param labels receives the component of every node, numbered from 0 in order of their first node
+     * @return the number of components, counting isolated nodes as components of their own
+     */
+    public int components(int[] labels) {
+        Arrays.fill(labels, 0, ids.length, -1);
+        int[] queue = new int[ids.length];
+
+        int count = 0;
+        for (int start = 0; start < ids.length; start++) {
+            if (labels[start] >= 0) {
+                continue;
+            }
+
+            labels[start] = count;
+            queue[0] = start;
+            int head = 0;
+            int tail = 1;
+            while (head < tail) {
+                int current = queue[head++];
+                for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                    if (labels[targets[i]] < 0) {
+                        labels[targets[i]] = count;
+                        queue[tail++] = targets[i];
+                    }
+                }
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Recommends new friends for the specified node: nodes at distance two, ranked by the number of mutual friends and
+     * then by node. The neighbourhood is explored within the default caps of {@link Config}.
+     *
+     * @param node the node receiving recommendations
+     * @param limit the maximum number of recommendations
+     * @return the recommended nodes, best first
+     */
+    public int[] recommendations(int node, int limit) {
+        return recommendations(node, limit, Config.DEFAULT_RECOMMENDATION_MAX_FRIENDS,
+                Config.DEFAULT_RECOMMENDATION_MAX_FRIEND_DEGREE);
+    }
+
+    /**
+     * Recommends new friends for the specified node: nodes at distance two, ranked by the number of mutual friends and
+     * then by node.
+     *
+     * The work is bounded for high-degree nodes: only {@code maxFriends} friends of the node are expanded, and only
+     * {@code maxFriendDegree} neighbours of each of them, both taken at an even stride over the sorted neighbours, so
+     * the same graph always yields the same sample. Mutual friend counts are exact whenever neither cap is reached.
+     * Counts are kept in a per-thread array reused across calls, and the best candidates in a heap of {@code limit}
+     * entries, so a call allocates nothing proportional to the graph or to the 2-hop neighbourhood.
+     *
+     * @param node the node receiving recommendations
+     * @param limit the maximum number of recommendations
+     * @param maxFriends the maximum number of friends of the node whose neighbours are visited
+     * @param maxFriendDegree the maximum number of neighbours visited per friend
+     * @return the recommended nodes, best first
+     */
+    public int[] recommendations(int node, int limit, int maxFriends, int maxFriendDegree) {
+        if (limit <= 0) {
+            return new int[0];
+        }
+
+        int[] mutualFriends = MUTUAL_FRIENDS.get();
+        if (mutualFriends.length < ids.length) {
+            mutualFriends = new int[Math.max(ids.length, mutualFriends.length * 2)];
+            MUTUAL_FRIENDS.set(mutualFriends);
+        }
+        int[] candidates = new int[256];
+        int candidateCount = 0;
+
+        int degree = degree(node);
+        int friendStride = strideOf(degree, maxFriends);
+        for (int i = offsets[node]; i < offsets[node + 1]; i += friendStride) {
+            int friend = targets[i];
+            int stride = strideOf(degree(friend), maxFriendDegree);
+            for (int j = offsets[friend]; j < offsets[friend + 1]; j += stride) {
+                int candidate = targets[j];
+                if (candidate == node) {
+                    continue;
+                }
+                if (mutualFriends[candidate]++ == 0) {
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidates.length * 2);
+                    }
+                    candidates[candidateCount++] = candidate;
+                }
+            }
+        }
+
+        // Keep the best candidates in a min-heap, ranked by mutual friends descending, then node ascending, packed
+        // into comparable longs; the scratch counts are cleared on the way
+        long[] heap = new long[Math.min(limit, candidateCount)];
+        int heapSize = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int candidate = candidates[i];
+            long rank = ((long) mutualFriends[candidate] << 32) | (Integer.MAX_VALUE - candidate);
+            mutualFriends[candidate] = 0;
+
+            // Adjacency is only checked for candidates good enough to enter the heap
+            if (heapSize == heap.length && rank <= heap[0] || isAdjacent(node, candidate)) {
+                continue;
+            }
+            if (heapSize < heap.length) {
+                heap[heapSize] = rank;
+                siftUp(heap, heapSize++);
+            } else {
+                heap[0] = rank;
+                siftDown(heap, heapSize);
+            }
+        }
+
+        Arrays.sort(heap, 0, heapSize);
+        int[] result = new int[heapSize];
+        for (int i = 0; i < heapSize; i++) {
+            result[i] = Integer.MAX_VALUE - (int) heap[heapSize - 1 - i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the step visiting at most {@code cap} of {@code degree} neighbours evenly.
+     */
+    private static int strideOf(int degree, int cap) {
+        return degree <= cap ? 1 : (degree + cap - 1) / cap;
+    }
+
+    private static void siftUp(long[] heap, int position) {
+        long value = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = value;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        long value = heap[0];
+        int position = 0;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (value <= heap[child]) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = value;
+    }
+
+    /**
+     * Builds the int adjacency arrays of the subgraph induced by the specified nodes, indexed by their position.
+     *
+     * @param nodes the nodes of the subgraph
+     * @return the neighbours of each node of the subgraph, as positions in {@code nodes}
+     */
+    public int[][] inducedAdjacency(int[] nodes) {
+        int[] local = new int[ids.length];
+        Arrays.fill(local, -1);
+        for (int i = 0; i < nodes.length; i++) {
+            local[nodes[i]] = i;
+        }
+
+        int[][] adjacency = new int[nodes.length][];
+        for (int i = 0; i < nodes.length; i++) {
+            int node = nodes[i];
+            int[] neighbours = new int[degree(node)];
+            int count = 0;
+            for (int j = offsets[node]; j < offsets[node + 1]; j++) {
+                if (local[targets[j]] >= 0) {
+                    neighbours[count++] = local[targets[j]];
+                }
+            }
+            adjacency[i] = count == neighbours.length ? neighbours : Arrays.copyOf(neighbours, count);
+        }
+        return adjacency;
+    }
+
+    /**
+     * Derives a new snapshot from this one and a batch of changes, applied in order, in a single merge pass over the
+     * adjacency arrays. Nodes are renumbered densely: surviving nodes keep their relative order and new users are
+     * appended.
+     *
+     * @param changes the changes to be applied
+     * @return the new snapshot
+     */
+    FriendshipGraph apply(List<Change> changes) {
+        Set<String> removed = new HashSet<>();
+        Set<String> added = new LinkedHashSet<>();
+        for (Change change : changes) {
+            if (change.type == ChangeType.USER_ADDED) {
+                if (indexOf.containsKey(change.uid)) {
+                    removed.remove(change.uid);
+                } else {
+                    added.add(change.uid);
+                }
+            } else if (change.type == ChangeType.USER_REMOVED) {
+                added.remove(change.uid);
+                if (indexOf.containsKey(change.uid)) {
+                    removed.add(change.uid);
+                }
+            }
+        }
+
+        // Surviving nodes keep their relative order, so remapped neighbour lists stay sorted
+        String[] newIds = ids;
+        Map<String, Integer> newIndexOf = indexOf;
+        int[] remap = null;
+        if (!removed.isEmpty() || !added.isEmpty()) {
+            List<String> idList = new ArrayList<>(ids.length + added.size());
+            remap = new int[ids.length];
+            for (int node = 0; node < ids.length; node++) {
+                remap[node] = removed.contains(ids[node]) ? -1 : idList.size();
+                if (remap[node] >= 0) {
+                    idList.add(ids[node]);
+                }
+            }
+            idList.addAll(added);
+
+            newIds = idList.toArray(String[]::new);
+            newIndexOf = new HashMap<>(newIds.length * 2);
+            for (int node = 0; node < newIds.length; node++) {
+                newIndexOf.put(newIds[node], node);
+            }
+        }
+
+        // Net multiplicity change of every directed edge, sorted by source and target node
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (Change change : changes) {
+            if (change.type != ChangeType.EDGE_ADDED && change.type != ChangeType.EDGE_REMOVED) {
+                continue;
+            }
+            Integer a = newIndexOf.get(change.uid);
+            Integer b = newIndexOf.get(change.otherUid);
+            if (a == null || b == null || a.equals(b)) {
+                continue;
+            }
+            int amount = change.type == ChangeType.EDGE_ADDED ? 1 : -1;
+            deltas.merge(edge(a, b), amount, Integer::sum);
+            deltas.merge(edge(b, a), amount, Integer::sum);
+        }
+        long[] deltaEdges = deltas.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+
+        int[] newOffsets = new int[newIds.length + 1];
+        int[] newTargets = new int[targets.length + deltaEdges.length];
+        int[] newMultiplicities = new int[newTargets.length];
+        int size = 0;
+        int d = 0;
+        int oldNode = 0;
+        for (int node = 0; node < newIds.length; node++) {
+            newOffsets[node] = size;
+
+            // Find the old node this one comes from, if any (remap is increasing over surviving nodes)
+            int from = -1;
+            if (remap == null) {
+                from = node;
+            } else {
+                while (oldNode < ids.length && remap[oldNode] < 0) {
+                    oldNode++;
+                }
+                if (oldNode < ids.length) {
+                    from = oldNode++;
+                }
+            }
+
+            if (from >= 0) {
+                for (int i = offsets[from]; i < offsets[from + 1]; i++) {
+                    int target = remap == null ? targets[i] : remap[targets[i]];
+                    if (target < 0) {
+                        continue;
+                    }
+                    int multiplicity = multiplicities[i];
+                    while (d < deltaEdges.length && source(deltaEdges[d]) == node && target(deltaEdges[d]) < target) {
+                        size = emit(newTargets, newMultiplicities, size, target(deltaEdges[d]),
+                                deltas.get(deltaEdges[d]));
+                        d++;
+                    }
+                    if (d < deltaEdges.length && deltaEdges[d] == edge(node, target)) {
+                        multiplicity += deltas.get(deltaEdges[d++]);
+                    }
+                    size = emit(newTargets, newMultiplicities, size, target, multiplicity);
+                }
+            }
+            while (d < deltaEdges.length && source(deltaEdges[d]) == node) {
+                size = emit(newTargets, newMultiplicities, size, target(deltaEdges[d]), deltas.get(deltaEdges[d]));
+                d++;
+            }
+        }
+        newOffsets[newIds.length] = size;
+
+        return new FriendshipGraph(newIds, newIndexOf, newOffsets, Arrays.copyOf(newTargets, size),
+                Arrays.copyOf(newMultiplicities, size));
+    }
+
+    private static int emit(int[] targets, int[] multiplicities, int size, int target, int multiplicity) {
+        if (multiplicity <= 0) {
+            return size;
+        }
+        targets[size] = target;
+        multiplicities[size] = multiplicity;
+        return size + 1;
+    }
+
+    private static long edge(int source, int target) {
+        return ((long) source << 32) | target;
+    }
+
+    private static int source(long edge) {
+        return (int) (edge >>> 32);
+    }
+
+    private static int target(long edge) {
+        return (int) edge;
+    }
+
+    /**
+     * Per-thread state of the two searches of {@link #shortestPath}, indexed by {@code FORWARD} and {@code BACKWARD}.
+     */
+    private static final class PathSearch {
+
+        private final long[][] visited = {new long[0], new long[0]}; // Visited bitsets
+        private final int[][] parents = {new int[0], new int[0]}; // Parent of each visited node, -1 for the root
+        private final int[][] queues = {new int[64], new int[64]}; // Visited nodes, in visiting order
+        private final int[] sizes = new int[2]; // Number of visited nodes
+
+        void ensureCapacity(int nodes) {
+            for (int side = 0; side < 2; side++) {
+                if (parents[side].length < nodes) {
+                    parents[side] = new int[nodes];
+                    visited[side] = new long[(nodes + 63) >>> 6];
+                }
+            }
+        }
+
+        boolean isVisited(int side, int node) {
+            return (visited[side][node >>> 6] & (1L << node)) != 0;
+        }
+
+        void visit(int side, int node, int parent) {
+            visited[side][node >>> 6] |= 1L << node;
+            parents[side][node] = parent;
+            if (sizes[side] == queues[side].length) {
+                queues[side] = Arrays.copyOf(queues[side], sizes[side] * 2);
+            }
+            queues[side][sizes[side]++] = node;
+        }
+
+        int depthOf(int side, int node) {
+            int depth = 0;
+            for (int current = parents[side][node]; current >= 0; current = parents[side][current]) {
+                depth++;
+            }
+            return depth;
+        }
+
+        int[] pathToRoot(int side, int node) {
+            int[] path = new int[depthOf(side, node) + 1];
+            int current = node;
+            for (int i = 0; i < path.length; i++) {
+                path[i] = current;
+                current = parents[side][current];
+            }
+            return path;
+        }
+
+        void clear() {
+            for (int side = 0; side < 2; side++) {
+                for (int i = 0; i < sizes[side]; i++) {
+                    visited[side][queues[side][i] >>> 6] = 0;
+                }
+                sizes[side] = 0;
+            }
+        }
+    }
+
+    /**
+     * Kinds of changes applied to a snapshot.
+     */
+    enum ChangeType {
+        USER_ADDED,
+        USER_REMOVED,
+        EDGE_ADDED,
+        EDGE_REMOVED
+    }
+
+    /**
+     * A single change of the network, recorded between two snapshots.
+     */
+    static class Change {
+
+        private final ChangeType type;
+        private final String uid; // User the change refers to, or first endpoint of the edge
+        private final String otherUid; // Second endpoint of the edge, null for user changes
+
+        Change(ChangeType type, String uid, String otherUid) {
+            this.type = type;
+            this.uid = uid;
+            this.otherUid = otherUid;
+        }
+
+        /**
+         * Checks whether the change refers to the user or to one of its friendships.
+         */
+        boolean involves(String uid) {
+            return uid.equals(this.uid) || uid.equals(otherUid);
+        }
+    }
+}
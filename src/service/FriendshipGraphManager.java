@@ -0,0 +1,277 @@
+package service;
+
+import models.Friendship;
+import models.User;
+import utils.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a {@link FriendshipGraph} snapshot of a {@link Network} up to date.
+ *
+ * The initial snapshot is built from the network's users and friendships. Events received while it is built are
+ * buffered and replayed over it, which is harmless for events it already reflects. Afterwards, user and friendship
+ * events are only recorded as changes, which costs O(1) on the mutating thread; a background thread merges them into a
+ * new snapshot shortly after, so bursts of mutations are batched into a single rebuild. Since rebuilds only read the
+ * previous snapshot and the recorded changes, they never touch the repositories concurrently with their writers.
+ */
+public class FriendshipGraphManager {
+
+    private volatile FriendshipGraph graph; // Latest published snapshot
+
+    private final List<FriendshipGraph.Change> pendingChanges; // Changes not yet merged into a snapshot
+    // Changes being merged by a rebuild in progress, guarded by pendingChanges
+    private List<FriendshipGraph.Change> mergingChanges;
+    private final Set<String> acceptedIds; // Ids of the friendships counted as edges, guarded by pendingChanges
+    private long recordedChanges; // Number of changes recorded so far, guarded by pendingChanges
+    // Events received while the initial snapshot is built, null once it is, guarded by pendingChanges
+    private List<Runnable> bufferedEvents;
+    private volatile long mergedChanges; // Number of changes merged into the published snapshot
+    private final Object rebuildLock; // Serializes rebuilds between the background thread and synchronous callers
+    private final AtomicBoolean rebuildScheduled;
+    private final ScheduledExecutorService rebuilder;
+
+    /**
+     * Constructs a new FriendshipGraphManager, building the initial snapshot of the network and following its changes.
+     *
+     * @param network the network whose friendship graph is kept
+     */
+    public FriendshipGraphManager(Network network) {
+        this.pendingChanges = new ArrayList<>();
+        this.mergingChanges = List.of();
+        this.bufferedEvents = new ArrayList<>();
+        this.rebuildLock = new Object();
+        this.rebuildScheduled = new AtomicBoolean();
+        this.rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "friendship-graph-rebuilder");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Listeners are registered before the snapshot is read, so no change committed meanwhile is missed
+        network.addUserListener(new ServiceListener<>() {
+            @Override
+            public void onSaved(User user) {
+                dispatch(() -> record(FriendshipGraph.ChangeType.USER_ADDED, user.getId(), null));
+            }
+
+            @Override
+            public void onDeleted(User user) {
+                dispatch(() -> record(FriendshipGraph.ChangeType.USER_REMOVED, user.getId(), null));
+            }
+        });
+        network.addFriendshipListener(new ServiceListener<>() {
+            @Override
+            public void onSaved(Friendship friendship) {
+                dispatch(() -> track(friendship, !friendship.isPending()));
+            }
+
+            @Override
+            public void onDeleted(Friendship friendship) {
+                dispatch(() -> track(friendship, false));
+            }
+
+            @Override
+            public void onUpdated(Friendship friendship) {
+                dispatch(() -> track(friendship, !friendship.isPending()));
+            }
+        });
+
+        // The graph and the accepted ids are built from the same snapshot, so they count the same edges. Users are
+        // read last, so they include both ends of every friendship read, unless a buffered deletion removes it again.
+        List<Friendship> friendships = network.streamFriendships().toList();
+        this.graph = FriendshipGraph.of(network.streamUsers().toList(), friendships);
+        this.acceptedIds = friendships.parallelStream()
+                .filter(friendship -> !friendship.isPending())
+                .map(Friendship::getId)
+                .collect(Collectors.toCollection(HashSet::new));
+
+        // Replaying an event the snapshot already reflects records nothing: users are added or removed idempotently,
+        // and edges only change when the accepted ids do
+        synchronized (pendingChanges) {
+            List<Runnable> events = bufferedEvents;
+            bufferedEvents = null;
+            events.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Returns a snapshot reflecting every change recorded so far, merging pending changes on the calling thread if the
+     * background rebuild has not caught up yet.
+     *
+     * @return the up-to-date snapshot
+     */
+    public FriendshipGraph getGraph() {
+        // Pending changes may already be taken by a rebuild in progress, so completion is tracked by count
+        synchronized (pendingChanges) {
+            if (mergedChanges == recordedChanges) {
+                return graph;
+            }
+        }
+        rebuild();
+        return graph;
+    }
+
+    /**
+     * Returns the latest published snapshot without waiting, which may lag behind the most recent changes by up to the
+     * rebuild delay.
+     *
+     * @return the latest snapshot
+     */
+    public FriendshipGraph getLatestGraph() {
+        return graph;
+    }
+
+    /**
+     * Merges all pending changes into a new snapshot and publishes it.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            List<FriendshipGraph.Change> changes;
+            long recorded;
+            synchronized (pendingChanges) {
+                if (pendingChanges.isEmpty()) {
+                    return;
+                }
+                changes = new ArrayList<>(pendingChanges);
+                pendingChanges.clear();
+                mergingChanges = changes;
+                recorded = recordedChanges;
+            }
+            FriendshipGraph merged = graph.apply(changes);
+
+            // Published along with the end of the merge, so queries see each change either pending or merged
+            synchronized (pendingChanges) {
+                graph = merged;
+                mergedChanges = recorded;
+                mergingChanges = List.of();
+            }
+        }
+    }
+
+    /**
+     * Returns a shortest chain of friends between two users, searched in the latest snapshot without merging pending
+     * changes. Each link of the chain is then checked against the pending changes, so a chain broken since the
+     * snapshot is never returned; like chains made possible by pending changes, it shows up once the background
+     * rebuild publishes the next snapshot.
+     *
+     * @param uid1 the id of the first user
+     * @param uid2 the id of the second user
+     * @param maxHops the maximum number of friendships in the chain
+     * @return the ids of the users of the chain, from the first user to the second, or an empty {@code Optional} if
+     *         no valid chain is found
+     */
+    public Optional<List<String>> getShortestPathIds(String uid1, String uid2, int maxHops) {
+        FriendshipGraph snapshot = graph;
+        int node1 = snapshot.indexOf(uid1);
+        int node2 = snapshot.indexOf(uid2);
+        int[] path = node1 < 0 || node2 < 0 ? null : snapshot.shortestPath(node1, node2, maxHops);
+        if (path == null) {
+            return Optional.empty();
+        }
+        List<String> ids = Arrays.stream(path).mapToObj(snapshot::idOf).toList();
+
+        List<FriendshipGraph.Change> changes = new ArrayList<>();
+        synchronized (pendingChanges) {
+            // A newer snapshot may have been published since the search; its changes are then no longer pending
+            if (graph != snapshot) {
+                return getShortestPathIds(uid1, uid2, maxHops);
+            }
+            changes.addAll(mergingChanges);
+            changes.addAll(pendingChanges);
+        }
+        for (int i = 1; i < ids.size(); i++) {
+            if (!snapshot.isAdjacentAfter(ids.get(i - 1), ids.get(i), changes)) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(ids);
+    }
+
+    /**
+     * Returns the mutual friends of two users, reflecting every change recorded so far without merging pending
+     * changes. The latest snapshot answers on its own unless a pending change involves either user; only then are the
+     * friends of both users rebuilt from the snapshot and those changes, which costs O(degree + pending changes).
+     *
+     * @param uid1 the id of the first user
+     * @param uid2 the id of the second user
+     * @return the ids of the mutual friends, which may include users deleted since the latest snapshot
+     */
+    public List<String> getMutualFriendIds(String uid1, String uid2) {
+        FriendshipGraph snapshot;
+        List<FriendshipGraph.Change> changes = new ArrayList<>();
+        synchronized (pendingChanges) {
+            snapshot = graph;
+            for (List<FriendshipGraph.Change> unmerged : List.of(mergingChanges, pendingChanges)) {
+                for (FriendshipGraph.Change change : unmerged) {
+                    if (change.involves(uid1) || change.involves(uid2)) {
+                        changes.add(change);
+                    }
+                }
+            }
+        }
+
+        if (changes.isEmpty()) {
+            int node1 = snapshot.indexOf(uid1);
+            int node2 = snapshot.indexOf(uid2);
+            if (node1 < 0 || node2 < 0) {
+                return List.of();
+            }
+            return Arrays.stream(snapshot.mutualFriends(node1, node2)).mapToObj(snapshot::idOf).toList();
+        }
+        Set<String> mutualFriends = snapshot.friendsAfter(uid1, changes);
+        mutualFriends.retainAll(snapshot.friendsAfter(uid2, changes));
+        return new ArrayList<>(mutualFriends);
+    }
+
+    /**
+     * Runs the handling of an event, or buffers it while the initial snapshot is being built.
+     */
+    private void dispatch(Runnable event) {
+        synchronized (pendingChanges) {
+            if (bufferedEvents != null) {
+                bufferedEvents.add(event);
+                return;
+            }
+        }
+        event.run();
+    }
+
+    /**
+     * Records an edge change if the friendship starts or stops counting as an accepted edge.
+     */
+    private void track(Friendship friendship, boolean accepted) {
+        synchronized (pendingChanges) {
+            boolean changed = accepted ? acceptedIds.add(friendship.getId()) : acceptedIds.remove(friendship.getId());
+            if (!changed) {
+                return;
+            }
+        }
+        record(accepted ? FriendshipGraph.ChangeType.EDGE_ADDED : FriendshipGraph.ChangeType.EDGE_REMOVED,
+                friendship.getSenderId(), friendship.getReceiverId());
+    }
+
+    private void record(FriendshipGraph.ChangeType type, String uid, String otherUid) {
+        synchronized (pendingChanges) {
+            pendingChanges.add(new FriendshipGraph.Change(type, uid, otherUid));
+            recordedChanges++;
+        }
+
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuilder.schedule(() -> {
+                rebuildScheduled.set(false);
+                rebuild();
+            }, Config.DEFAULT_GRAPH_REBUILD_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package service;
+
+import models.Friendship;
+import repository.RepositoryListener;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adjacency index over {@link Friendship} entities, grouping friendship identifiers per user identifier.
+ *
+ * For each user the index keeps three disjoint groups: accepted friendships (the user is either sender or receiver),
+ * outgoing pending requests (the user is the sender) and incoming pending requests (the user is the receiver).
+ * Lookups cost O(degree) instead of O(total friendships). The index is kept up to date as a
+ * {@link RepositoryListener} of the friendship repository, so it reflects each mutation before the mutated friendship
+ * is unlocked. Groups are concurrent maps updated atomically per user, so the index may be read while friendships are
+ * mutated from other threads.
+ */
+public class FriendshipIndex implements RepositoryListener<String, Friendship> {
+
+    private final Map<String, Set<String>> accepted; // Accepted friendship ids, indexed by user id
+    private final Map<String, Set<String>> outgoing; // Pending sent request ids, indexed by sender id
+    private final Map<String, Set<String>> incoming; // Pending received request ids, indexed by receiver id
+
+    /**
+     * Constructs a new empty FriendshipIndex.
+     */
+    public FriendshipIndex() {
+        this.accepted = new ConcurrentHashMap<>();
+        this.outgoing = new ConcurrentHashMap<>();
+        this.incoming = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Builds a new FriendshipIndex from the provided friendships in a single pass.
+     *
+     * @param friendships the friendships to be indexed
+     * @return the index containing all provided friendships
+     */
+    public static FriendshipIndex of(Iterable<Friendship> friendships) {
+        FriendshipIndex index = new FriendshipIndex();
+        for (Friendship friendship : friendships) {
+            index.add(friendship);
+        }
+        return index;
+    }
+
+    /**
+     * Adds the provided friendship to the index, based on its current pending state.
+     *
+     * @param friendship the friendship to be indexed
+     */
+    public void add(Friendship friendship) {
+        String id = friendship.getId();
+        String senderId = friendship.getSenderId();
+        String receiverId = friendship.getReceiverId();
+
+        if (friendship.isPending()) {
+            link(outgoing, senderId, id);
+            link(incoming, receiverId, id);
+        } else {
+            link(accepted, senderId, id);
+            link(accepted, receiverId, id);
+        }
+    }
+
+    /**
+     * Removes the provided friendship from every group of both users involved, regardless of its pending state.
+     *
+     * @param friendship the friendship to be removed from the index
+     */
+    public void remove(Friendship friendship) {
+        String id = friendship.getId();
+        for (String uid : friendship.getUsers()) {
+            unlink(accepted, uid, id);
+            unlink(outgoing, uid, id);
+            unlink(incoming, uid, id);
+        }
+    }
+
+    /**
+     * Indexes a newly saved friendship.
+     *
+     * @param friendship the saved friendship
+     */
+    @Override
+    public void onSaved(Friendship friendship) {
+        add(friendship);
+    }
+
+    /**
+     * Removes a deleted friendship from the index.
+     *
+     * @param friendship the deleted friendship
+     */
+    @Override
+    public void onDeleted(Friendship friendship) {
+        remove(friendship);
+    }
+
+    /**
+     * Re-indexes an updated friendship according to its new pending state.
+     *
+     * @param friendship the updated friendship
+     */
+    @Override
+    public void onUpdated(Friendship friendship) {
+        remove(friendship);
+        add(friendship);
+    }
+
+    /**
+     * Returns the identifiers of the accepted friendships of the specified user.
+     *
+     * @param uid the identifier of the user
+     * @return an unmodifiable view of the accepted friendship identifiers
+     */
+    public Set<String> getAccepted(String uid) {
+        return view(accepted, uid);
+    }
+
+    /**
+     * Returns the identifiers of the pending requests sent by the specified user.
+     *
+     * @param uid the identifier of the user
+     * @return an unmodifiable view of the sent request identifiers
+     */
+    public Set<String> getOutgoing(String uid) {
+        return view(outgoing, uid);
+    }
+
+    /**
+     * Returns the identifiers of the pending requests received by the specified user.
+     *
+     * @param uid the identifier of the user
+     * @return an unmodifiable view of the received request identifiers
+     */
+    public Set<String> getIncoming(String uid) {
+        return view(incoming, uid);
+    }
+
+    /**
+     * Removes every entry from the index.
+     */
+    public void clear() {
+        accepted.clear();
+        outgoing.clear();
+        incoming.clear();
+    }
+
+    private static void link(Map<String, Set<String>> group, String uid, String id) {
+        group.compute(uid, (key, ids) -> {
+            Set<String> linked = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            linked.add(id);
+            return linked;
+        });
+    }
+
+    private static void unlink(Map<String, Set<String>> group, String uid, String id) {
+        group.computeIfPresent(uid, (key, ids) -> ids.remove(id) && ids.isEmpty() ? null : ids);
+    }
+
+    private static Set<String> view(Map<String, Set<String>> group, String uid) {
+        Set<String> ids = group.get(uid);
+        return ids == null ? Collections.emptySet() : Collections.unmodifiableSet(ids);
+    }
+}
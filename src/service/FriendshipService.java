@@ -2,21 +2,137 @@ package service;
 
 import models.Friendship;
 import models.User;
+import exceptions.EntityAlreadyExistsException;
+import exceptions.EntityNotFoundException;
 import repository.Repository;
+import repository.UnitOfWork;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Specialized service class for performing operations on friendship relationships between users via repository.
+ * Every mutation of the repository also keeps a per-user {@link FriendshipIndex} up to date, before the mutated
+ * friendship is unlocked.
  */
-public class FriendshipService extends AbstractService<String, Friendship> {
+public final class FriendshipService extends AbstractService<String, Friendship> {
+
+    // Adjacency index of accepted friendships and pending requests per user
+    private final FriendshipIndex index;
 
     /**
-     * Constructs a new FriendshipService with the specified repository.
+     * Constructs a new FriendshipService with the specified repository and builds the adjacency index from the
+     * friendships already stored in it.
      *
      * @param repository the repository used to perform operations on persisting data
      */
     public FriendshipService(Repository<String, Friendship> repository) {
         super(repository);
+        this.index = FriendshipIndex.of(repository.findAll());
+
+        // Updated under the locks of each mutation, so service listeners and checks under the same locks observe an
+        // up-to-date index
+        repository.addListener(index);
+    }
+
+    /**
+     * Retrieves the accepted friendships of the specified user.
+     *
+     * @param uid the identifier of the user
+     * @return a list of accepted friendships in which the user is either sender or receiver
+     */
+    public List<Friendship> findFriendshipsOfUser(String uid) {
+        return resolve(index.getAccepted(uid));
+    }
+
+    /**
+     * Retrieves the distinct identifiers of the friends of the specified user.
+     *
+     * @param uid the identifier of the user
+     * @return a set of identifiers of the users having an accepted friendship with the user
+     */
+    public Set<String> findFriendIdsOfUser(String uid) {
+        Set<String> friendIds = new LinkedHashSet<>();
+        for (String id : index.getAccepted(uid)) {
+            repository.findOne(id).ifPresent(friendship -> friendIds.add(friendship.getFriendIdOfUser(uid)));
+        }
+        return friendIds;
+    }
+
+    /**
+     * Retrieves the pending friend requests sent by the specified user.
+     *
+     * @param uid the identifier of the sender
+     * @return a list of pending requests sent by the user
+     */
+    public List<Friendship> findSentRequestsOfUser(String uid) {
+        return resolve(index.getOutgoing(uid));
+    }
+
+    /**
+     * Retrieves the pending friend requests received by the specified user.
+     *
+     * @param uid the identifier of the receiver
+     * @return a list of pending requests received by the user
+     */
+    public List<Friendship> findReceivedRequestsOfUser(String uid) {
+        return resolve(index.getIncoming(uid));
+    }
+
+    /**
+     * Retrieves the pending friend request sent by a user to another one, if any.
+     *
+     * @param senderId the identifier of the sender
+     * @param receiverId the identifier of the receiver
+     * @return an {@link Optional} containing the pending request, or an empty {@code Optional} if there is none
+     */
+    public Optional<Friendship> findRequest(String senderId, String receiverId) {
+        return findSentRequestsOfUser(senderId).stream()
+                .filter(request -> request.getReceiverId().equals(receiverId))
+                .findFirst();
+    }
+
+    /**
+     * Records in a unit of work a check of the friendships between two users, run when the unit is committed while
+     * the lock of the pair of users is held, so that units checking the same pair are decided one at a time. The
+     * check fails if the users are already friends, if the sender already has a pending request to the receiver, or
+     * if the pending request of the receiver to the sender is not the expected one.
+     *
+     * @param unit the unit of work the check is recorded in
+     * @param senderId the identifier of the sender
+     * @param receiverId the identifier of the receiver
+     * @param reverseRequestId the identifier of the expected request from the receiver to the sender, or
+     *                         {@code null} if none is expected
+     */
+    public void checkRequest(UnitOfWork unit, String senderId, String receiverId, String reverseRequestId) {
+        String pairKey = senderId.compareTo(receiverId) < 0 ? senderId + '|' + receiverId : receiverId + '|' + senderId;
+        unit.check(repository, List.of(pairKey), () -> {
+            if (findFriendIdsOfUser(senderId).contains(receiverId)) {
+                throw new EntityAlreadyExistsException("Users are already friends.");
+            }
+            if (findRequest(senderId, receiverId).isPresent()) {
+                throw new EntityAlreadyExistsException("Friend request was already sent.");
+            }
+
+            Optional<String> reverseRequest = findRequest(receiverId, senderId).map(Friendship::getId);
+            if (reverseRequestId == null && reverseRequest.isPresent()) {
+                throw new EntityAlreadyExistsException("Friend request was received meanwhile.");
+            }
+            if (reverseRequestId != null && !reverseRequest.equals(Optional.of(reverseRequestId))) {
+                throw new EntityNotFoundException("Received friend request no longer exists.");
+            }
+        });
+    }
+
+    private List<Friendship> resolve(Collection<String> ids) {
+        List<Friendship> friendships = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            repository.findOne(id).ifPresent(friendships::add);
+        }
+        return friendships;
     }
 }
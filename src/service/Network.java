@@ -4,40 +4,159 @@ import exceptions.EntityAlreadyExistsException;
 import exceptions.EntityNotFoundException;
 import models.Friendship;
 import models.User;
+import repository.BatchResult;
+import repository.Page;
+import repository.UnitOfWork;
+import utils.Metrics;
+import utils.OperationStats;
 
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public class Network {
 
     private final Service<String, User> userService;
-    private final Service<String, Friendship> friendshipService;
+    private final FriendshipService friendshipService;
 
-    public Network(Service<String, User> userService, Service<String, Friendship> friendshipService) {
+    // Components following the changes of the network, set once by create(), after the network is constructed
+    private FriendshipGraphManager graphManager;
+    private FriendRecommender recommender;
+    private UserSearchIndex searchIndex;
+    private FriendListCache friendListCache;
+
+    // Latency and call statistics of the network operations
+    private final OperationStats findUserStats = Metrics.get("Network", "findUser");
+    private final OperationStats addUserStats = Metrics.get("Network", "addUser");
+    private final OperationStats addUsersStats = Metrics.get("Network", "addUsers");
+    private final OperationStats updateUserStats = Metrics.get("Network", "updateUser");
+    private final OperationStats deleteUserStats = Metrics.get("Network", "deleteUser");
+    private final OperationStats searchUsersStats = Metrics.get("Network", "searchUsers");
+    private final OperationStats getFriendsOfUserStats = Metrics.get("Network", "getFriendsOfUser");
+    private final OperationStats getFriendIdsOfUserStats = Metrics.get("Network", "getFriendIdsOfUser");
+    private final OperationStats getMutualFriendsStats = Metrics.get("Network", "getMutualFriends");
+    private final OperationStats getShortestPathStats = Metrics.get("Network", "getShortestPath");
+    private final OperationStats getSentRequestsOfUserStats = Metrics.get("Network", "getSentRequestsOfUser");
+    private final OperationStats getReceivedRequestsOfUserStats = Metrics.get("Network", "getReceivedRequestsOfUser");
+    private final OperationStats getFriendRecommendationsStats = Metrics.get("Network", "getFriendRecommendations");
+    private final OperationStats makeFriendshipStats = Metrics.get("Network", "makeFriendship");
+    private final OperationStats sendFriendRequestStats = Metrics.get("Network", "sendFriendRequest");
+
+    private Network(Service<String, User> userService, FriendshipService friendshipService) {
         this.userService = userService;
         this.friendshipService = friendshipService;
     }
 
+    /**
+     * Creates a network over the specified services, then builds the components reading it and following its changes,
+     * so none of them sees a partly constructed network.
+     *
+     * @param userService the service of the users
+     * @param friendshipService the service of the friendships
+     * @return the network
+     */
+    public static Network create(Service<String, User> userService, FriendshipService friendshipService) {
+        Network network = new Network(userService, friendshipService);
+        network.graphManager = new FriendshipGraphManager(network);
+        // Registered after the graph manager, so the graph already reflects a change when recommendations are
+        // invalidated
+        network.recommender = new FriendRecommender(network);
+        network.searchIndex = new UserSearchIndex(network);
+        network.friendListCache = new FriendListCache(userService, friendshipService);
+        return network;
+    }
+
+    public void addUserListener(ServiceListener<String, User> listener) {
+        userService.addListener(listener);
+    }
+
+    public void addFriendshipListener(ServiceListener<String, Friendship> listener) {
+        friendshipService.addListener(listener);
+    }
+
+    public FriendshipGraph getGraph() {
+        return graphManager.getGraph();
+    }
+
+    public FriendshipGraph getLatestGraph() {
+        return graphManager.getLatestGraph();
+    }
+
+    public List<User> getFriendRecommendations(String uid, int limit) {
+        return getFriendRecommendationsStats.record(() -> recommender.recommend(uid, limit).stream()
+                .map(userService::findById)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .toList());
+    }
+
+    public void awaitDurable() {
+        userService.awaitDurable();
+        friendshipService.awaitDurable();
+    }
+
     public Optional<User> findUser(String id) {
-        return userService.findById(id);
+        return findUserStats.record(() -> userService.findById(id));
     }
 
     public void addUser(User user) throws EntityAlreadyExistsException {
-        userService.save(user);
+        addUserStats.record(() -> userService.save(user));
+    }
+
+    public BatchResult<User, User> addUsers(Collection<User> users) {
+        return addUsersStats.record(() -> userService.saveAll(users));
+    }
+
+    public List<User> searchUsers(String query, int limit) {
+        return searchUsersStats.record(() -> searchIndex.search(query, limit).stream()
+                .map(userService::findById)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .toList());
     }
 
-    public void deleteUser(String uid) throws EntityNotFoundException {
-        StreamSupport.stream(friendshipService.findAll().spliterator(), false)
-                .filter(friendship -> friendship.containsUser(uid))
-                .forEach(friendship -> friendshipService.deleteById(friendship.getId()));
+    public UserDeletionResult deleteUser(String uid) throws EntityNotFoundException {
+        return deleteUserStats.record(() -> {
+            User user = userService.findById(uid)
+                    .orElseThrow(() -> new EntityNotFoundException("User does not exist and cannot be deleted."));
+
+            // Relations are found through the friendship index and removed with the user in a single unit
+            List<Friendship> friendships = new ArrayList<>(friendshipService.findFriendshipsOfUser(uid));
+            List<Friendship> sentRequests = new ArrayList<>(friendshipService.findSentRequestsOfUser(uid));
+            List<Friendship> receivedRequests = new ArrayList<>(friendshipService.findReceivedRequestsOfUser(uid));
+
+            UnitOfWork unit = new UnitOfWork();
+            for (List<Friendship> relations : List.of(friendships, sentRequests, receivedRequests)) {
+                relations.forEach(friendship -> friendshipService.deleteById(unit, friendship.getId()));
+            }
+            userService.deleteById(unit, uid);
+            try {
+                unit.commit();
+            } catch (EntityAlreadyExistsException e) {
+                throw new IllegalStateException(e); // Only deletions are staged
+            }
 
-        userService.deleteById(uid);
+            // A relation saved concurrently, after the user was validated but before it was deleted, is removed as well
+            removeRemainingRelations(friendshipService.findFriendshipsOfUser(uid), friendships);
+            removeRemainingRelations(friendshipService.findSentRequestsOfUser(uid), sentRequests);
+            removeRemainingRelations(friendshipService.findReceivedRequestsOfUser(uid), receivedRequests);
+
+            return new UserDeletionResult(user, friendships, sentRequests, receivedRequests);
+        });
+    }
+
+    private void removeRemainingRelations(List<Friendship> remaining, List<Friendship> removed) {
+        if (!remaining.isEmpty()) {
+            removed.addAll(friendshipService.deleteAllById(remaining.stream().map(Friendship::getId).toList())
+                    .getSucceeded());
+        }
     }
 
     public Optional<User> updateUser(User user) throws EntityNotFoundException {
-        return userService.update(user);
+        return updateUserStats.record(() -> userService.update(user));
     }
 
     public Iterable<User> getAllUsers() {
@@ -48,70 +167,139 @@ public class Network {
         return friendshipService.findAll();
     }
 
-    public Iterable<User> getFriendsOfUser(String uid) {
-        return StreamSupport.stream(friendshipService.findAll().spliterator(), false)
-                .filter(friendship -> friendship.containsUser(uid) && !friendship.isPending())
-                .map(friendship -> friendship.getFriendIdOfUser(uid))
-                .map(userService::findById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .distinct()
-                .collect(Collectors.toList());
+    public Stream<User> streamUsers() {
+        return userService.stream();
+    }
+
+    public Stream<Friendship> streamFriendships() {
+        return friendshipService.stream();
+    }
+
+    public Page<User> getUsersPage(String token, int size) {
+        return userService.findPage(token, size);
+    }
+
+    public Page<Friendship> getFriendshipsPage(String token, int size) {
+        return friendshipService.findPage(token, size);
+    }
+
+    public List<User> getFriendsOfUser(String uid) {
+        return getFriendsOfUserStats.record(() -> friendListCache.get(FriendListCache.Kind.FRIENDS, uid,
+                () -> friendshipService.findFriendshipsOfUser(uid).stream()
+                        .map(friendship -> friendship.getFriendIdOfUser(uid))
+                        .distinct()
+                        .map(userService::findById)
+                        .filter(Optional::isPresent)
+                        .map(Optional::get)
+                        .toList()));
+    }
+
+    public Set<String> getFriendIdsOfUser(String uid) {
+        return getFriendIdsOfUserStats.record(() -> friendshipService.findFriendIdsOfUser(uid));
+    }
+
+    public List<User> getMutualFriends(String uid1, String uid2) {
+        return getMutualFriendsStats.record(() -> {
+            return graphManager.getMutualFriendIds(uid1, uid2).stream()
+                    .map(userService::findById)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .toList();
+        });
+    }
+
+    public Optional<List<User>> getShortestPath(String uid1, String uid2, int maxHops) {
+        return getShortestPathStats.record(() -> {
+            Optional<List<String>> path = graphManager.getShortestPathIds(uid1, uid2, maxHops);
+            if (path.isEmpty()) {
+                return Optional.empty();
+            }
+
+            // A user deleted since the snapshot was taken breaks the chain
+            List<User> chain = new ArrayList<>(path.get().size());
+            for (String uid : path.get()) {
+                Optional<User> user = userService.findById(uid);
+                if (user.isEmpty()) {
+                    return Optional.<List<User>>empty();
+                }
+                chain.add(user.get());
+            }
+            return Optional.of(chain);
+        });
     }
 
     public Iterable<User> getSentRequestsOfUser(User user) {
-        return StreamSupport.stream(friendshipService.findAll().spliterator(), false)
-                .filter(friendship -> Objects.equals(friendship.getSenderId(), user.getId()) && friendship.isPending())
-                .map(friendship -> friendship.getFriendIdOfUser(user.getId()))
-                .map(userService::findById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
+        return getSentRequestsOfUserStats.record(() -> friendListCache.get(FriendListCache.Kind.SENT_REQUESTS,
+                user.getId(), () -> friendshipService.findSentRequestsOfUser(user.getId()).stream()
+                        .map(friendship -> friendship.getFriendIdOfUser(user.getId()))
+                        .map(userService::findById)
+                        .filter(Optional::isPresent)
+                        .map(Optional::get)
+                        .toList()));
     }
 
     public Iterable<User> getReceivedRequestsOfUser(User user) {
-        return StreamSupport.stream(friendshipService.findAll().spliterator(), false)
-                .filter(friendship -> Objects.equals(friendship.getReceiverId(), user.getId()) && friendship.isPending())
-                .map(friendship -> friendship.getFriendIdOfUser(user.getId()))
-                .map(userService::findById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
+        return getReceivedRequestsOfUserStats.record(() -> friendListCache.get(
+                FriendListCache.Kind.RECEIVED_REQUESTS, user.getId(),
+                () -> friendshipService.findReceivedRequestsOfUser(user.getId()).stream()
+                        .map(friendship -> friendship.getFriendIdOfUser(user.getId()))
+                        .map(userService::findById)
+                        .filter(Optional::isPresent)
+                        .map(Optional::get)
+                        .toList()));
     }
 
     public void makeFriendship(String uid1, String uid2) throws EntityAlreadyExistsException {
+        makeFriendshipStats.record(() -> {
+            UnitOfWork unit = new UnitOfWork();
+            stageFriendship(unit, uid1, uid2);
+            try {
+                unit.commit();
+            } catch (EntityNotFoundException e) {
+                throw new IllegalStateException(e); // Only saves are staged
+            }
+        });
+    }
+
+    public void sendFriendRequest(String senderId, String receiverId) {
+        sendFriendRequestStats.record(() -> {
+            Optional<String> reverseRequestId = friendshipService.findRequest(receiverId, senderId)
+                    .map(Friendship::getId);
+            while (true) {
+                // A request crossing a pending one in the opposite direction accepts it. The unit checks again, under
+                // the lock of the pair, that the request it accepts or the absence of one still holds
+                UnitOfWork unit = new UnitOfWork();
+                friendshipService.checkRequest(unit, senderId, receiverId, reverseRequestId.orElse(null));
+                if (reverseRequestId.isPresent()) {
+                    friendshipService.deleteById(unit, reverseRequestId.get());
+                    stageFriendship(unit, senderId, receiverId);
+                } else {
+                    friendshipService.save(unit, new Friendship(senderId, receiverId));
+                }
+
+                try {
+                    unit.commit();
+                    return;
+                } catch (EntityAlreadyExistsException | EntityNotFoundException e) {
+                    // Retried only if a concurrent request in the opposite direction changed what must be done
+                    Optional<String> currentReverseRequestId = friendshipService.findRequest(receiverId, senderId)
+                            .map(Friendship::getId);
+                    if (currentReverseRequestId.equals(reverseRequestId)) {
+                        throw new RuntimeException(e.getMessage(), e);
+                    }
+                    reverseRequestId = currentReverseRequestId;
+                }
+            }
+        });
+    }
+
+    private void stageFriendship(UnitOfWork unit, String uid1, String uid2) {
         Friendship senderToReceiver = new Friendship(uid1, uid2);
         senderToReceiver.setPending(false);
-        friendshipService.save(senderToReceiver);
+        friendshipService.save(unit, senderToReceiver);
 
         Friendship receiverToSender = new Friendship(uid2, uid1);
         receiverToSender.setPending(false);
-        friendshipService.save(receiverToSender);
-    }
-
-    public void sendFriendRequest(String senderId, String receiverId) {
-        StreamSupport.stream(friendshipService.findAll().spliterator(), false)
-                .filter(friendship -> friendship.containsUser(senderId) &&
-                        friendship.containsUser(senderId) &&
-                        friendship.isPending())
-                .findFirst()
-                .ifPresentOrElse(
-                        pendingFriendship -> {
-                            friendshipService.deleteById(pendingFriendship.getId());
-                            try {
-                                makeFriendship(senderId, receiverId);
-                            } catch (EntityAlreadyExistsException e) {
-                                throw new RuntimeException(e);
-                            }
-                        },
-                        () -> {
-                            Friendship friendRequest = new Friendship(senderId, receiverId);
-                            try {
-                                friendshipService.save(friendRequest);
-                            } catch (EntityAlreadyExistsException e) {
-                                throw new RuntimeException(e);
-                            }
-                        }
-                );
+        friendshipService.save(unit, receiverToSender);
     }
 }
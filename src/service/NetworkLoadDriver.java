@@ -0,0 +1,238 @@
+package service;
+
+import exceptions.EntityAlreadyExistsException;
+import exceptions.EntityNotFoundException;
+import exceptions.ValidationException;
+import models.User;
+import models.validators.FriendshipValidator;
+import models.validators.UserValidator;
+import repository.FriendshipFileRepository;
+import repository.UserFileRepository;
+import utils.Config;
+import utils.LatencyHistogram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Command-line load driver replaying a mixed read/write workload against a {@link Network} loaded from the local
+ * storage, e.g. a dataset written by {@link repository.SocialGraphGenerator}.
+ *
+ * Usage: {@code NetworkLoadDriver [<THREADS>] [<SECONDS>] [<WRITE_PERCENT>]}. Every thread draws operations at random:
+ * reads are split between friend lists, user lookups, received requests and friend recommendations, and writes between
+ * friend requests, user updates, user additions and deletions of the users the thread added. After a warmup that is not
+ * measured, the driver reports the throughput and the latency percentiles of each operation. Writes rejected by the
+ * domain, e.g. a request between users who are already friends, are part of the workload: they are counted per
+ * operation instead of being measured. Any other failure aborts the run. The workload modifies the local storage;
+ * regenerate it to start again from the same dataset.
+ */
+public class NetworkLoadDriver {
+
+    private enum Operation {
+        GET_FRIENDS,
+        FIND_USER,
+        GET_RECEIVED_REQUESTS,
+        GET_RECOMMENDATIONS,
+        SEND_FRIEND_REQUEST,
+        UPDATE_USER,
+        ADD_USER,
+        DELETE_USER
+    }
+
+    /**
+     * Latencies of the successful operations and number of rejected ones, per operation.
+     */
+    private record RunResult(Map<Operation, LatencyHistogram> histograms, Map<Operation, Long> conflicts) {
+    }
+
+    private static final int RECOMMENDATION_LIMIT = 10;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10;
+        int writePercent = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        UserFileRepository userRepository = new UserFileRepository(Config.DEFAULT_LOCAL_USER_STORAGE,
+                new UserValidator());
+        FriendshipFileRepository friendshipRepository = new FriendshipFileRepository(
+                Config.DEFAULT_LOCAL_FRIENDSHIP_STORAGE, new FriendshipValidator(userRepository));
+        Network network = Network.create(new UserService(userRepository), new FriendshipService(friendshipRepository));
+        System.out.println("[INFO] " + userRepository.getLoadReport());
+        System.out.println("[INFO] " + friendshipRepository.getLoadReport());
+
+        List<String> userIds = network.streamUsers().map(User::getId).toList();
+        if (userIds.size() < 2) {
+            System.out.println("[ERROR] The network needs at least 2 users. Generate a dataset first.");
+            return;
+        }
+
+        long warmupSeconds = Math.max(1, seconds / 5);
+        System.out.printf("[INFO] Warming up for %d s, then measuring %d threads for %d s with %d%% writes over %d " +
+                "users.%n", warmupSeconds, threads, seconds, writePercent, userIds.size());
+        run(network, userIds, threads, warmupSeconds, writePercent);
+        RunResult result = run(network, userIds, threads, seconds, writePercent);
+
+        long startDrain = System.nanoTime();
+        network.awaitDurable();
+        report(result, seconds);
+        System.out.printf("[INFO] Pending writes synced in %d ms after the run.%n",
+                (System.nanoTime() - startDrain) / 1_000_000);
+        userRepository.close();
+        friendshipRepository.close();
+    }
+
+    private static RunResult run(Network network, List<String> userIds, int threads, long seconds,
+                                 int writePercent) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong createdUsers = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(threads);
+        List<RunResult> threadResults = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            RunResult result = new RunResult(newHistograms(), new EnumMap<>(Operation.class));
+            threadResults.add(result);
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<String> added = new ArrayList<>();
+                try {
+                    while (running.get()) {
+                        Operation operation = drawOperation(random, writePercent, !added.isEmpty());
+                        long start = System.nanoTime();
+                        try {
+                            execute(network, operation, userIds, added, createdUsers, random);
+                            result.histograms().get(operation).record(System.nanoTime() - start);
+                        } catch (Throwable e) {
+                            if (!isConflict(e)) {
+                                throw e;
+                            }
+                            result.conflicts().merge(operation, 1L, Long::sum);
+                        }
+                    }
+
+                    // Leave the network with the users it was loaded with
+                    for (String uid : added) {
+                        network.deleteUser(uid);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    running.set(false);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-driver-" + t);
+            worker.start();
+        }
+
+        done.await(seconds, TimeUnit.SECONDS);
+        running.set(false);
+        done.await();
+        if (failure.get() != null) {
+            throw new IllegalStateException("Load driver operation failed, run aborted", failure.get());
+        }
+
+        RunResult merged = new RunResult(newHistograms(), new EnumMap<>(Operation.class));
+        for (RunResult result : threadResults) {
+            result.histograms().forEach((operation, histogram) -> merged.histograms().get(operation).merge(histogram));
+            result.conflicts().forEach((operation, count) -> merged.conflicts().merge(operation, count, Long::sum));
+        }
+        return merged;
+    }
+
+    /**
+     * Checks whether the failure of an operation is a write rejected by the domain, which the workload expects:
+     * a duplicate, a missing entity or an invalid one, possibly wrapped by {@link Network#sendFriendRequest}.
+     */
+    private static boolean isConflict(Throwable e) {
+        Throwable cause = e.getClass() == RuntimeException.class && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof EntityAlreadyExistsException || cause instanceof EntityNotFoundException ||
+                cause instanceof ValidationException;
+    }
+
+    private static Operation drawOperation(ThreadLocalRandom random, int writePercent, boolean canDelete) {
+        if (random.nextInt(100) >= writePercent) {
+            int read = random.nextInt(100);
+            if (read < 40) {
+                return Operation.GET_FRIENDS;
+            } else if (read < 70) {
+                return Operation.FIND_USER;
+            } else if (read < 85) {
+                return Operation.GET_RECEIVED_REQUESTS;
+            }
+            return Operation.GET_RECOMMENDATIONS;
+        }
+
+        int write = random.nextInt(100);
+        if (write < 50) {
+            return Operation.SEND_FRIEND_REQUEST;
+        } else if (write < 70) {
+            return Operation.UPDATE_USER;
+        } else if (write < 85 || !canDelete) {
+            return Operation.ADD_USER;
+        }
+        return Operation.DELETE_USER;
+    }
+
+    private static void execute(Network network, Operation operation, List<String> userIds, List<String> added,
+                                AtomicLong createdUsers, ThreadLocalRandom random) throws Throwable {
+        String uid = userIds.get(random.nextInt(userIds.size()));
+        switch (operation) {
+            case GET_FRIENDS -> network.getFriendsOfUser(uid);
+            case FIND_USER -> network.findUser(uid);
+            case GET_RECEIVED_REQUESTS -> network.getReceivedRequestsOfUser(network.findUser(uid).orElseThrow());
+            case GET_RECOMMENDATIONS -> network.getFriendRecommendations(uid, RECOMMENDATION_LIMIT);
+            case SEND_FRIEND_REQUEST -> network.sendFriendRequest(uid, userIds.get(random.nextInt(userIds.size())));
+            case UPDATE_USER -> {
+                User user = network.findUser(uid).orElseThrow();
+                User updated = new User(user.getFirstName(), user.getLastName(), "Passw0rd!", user.getEmail());
+                updated.setId(uid);
+                network.updateUser(updated);
+            }
+            case ADD_USER -> {
+                User user = new User("Load", "Driver", "Passw0rd!",
+                        "load.driver" + createdUsers.incrementAndGet() + "." + System.nanoTime() + "@example.com");
+                network.addUser(user);
+                added.add(user.getId());
+            }
+            case DELETE_USER -> network.deleteUser(added.remove(added.size() - 1));
+        }
+    }
+
+    private static Map<Operation, LatencyHistogram> newHistograms() {
+        Map<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new LatencyHistogram());
+        }
+        return histograms;
+    }
+
+    private static void report(RunResult result, long seconds) {
+        LatencyHistogram total = new LatencyHistogram();
+        long totalConflicts = 0;
+        System.out.printf("%-22s %10s %10s %10s %10s %10s %10s %10s %10s%n", "operation", "ops/s", "mean us",
+                "p50 us", "p90 us", "p99 us", "p99.9 us", "max us", "conflicts");
+        for (Map.Entry<Operation, LatencyHistogram> entry : result.histograms().entrySet()) {
+            long conflicts = result.conflicts().getOrDefault(entry.getKey(), 0L);
+            total.merge(entry.getValue());
+            totalConflicts += conflicts;
+            printRow(entry.getKey().name().toLowerCase(), entry.getValue(), conflicts, seconds);
+        }
+        printRow("total", total, totalConflicts, seconds);
+    }
+
+    private static void printRow(String name, LatencyHistogram histogram, long conflicts, long seconds) {
+        System.out.printf("%-22s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f %10d%n", name,
+                histogram.getCount() / seconds, histogram.getMean() / 1000, histogram.getPercentile(50) / 1000.0,
+                histogram.getPercentile(90) / 1000.0, histogram.getPercentile(99) / 1000.0,
+                histogram.getPercentile(99.9) / 1000.0, histogram.getMax() / 1000.0, conflicts);
+    }
+}
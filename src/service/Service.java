@@ -3,8 +3,13 @@ package service;
 import exceptions.EntityAlreadyExistsException;
 import exceptions.EntityNotFoundException;
 import models.Entity;
+import repository.BatchResult;
+import repository.Page;
+import repository.UnitOfWork;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * A generic service interface for managing operations between User Interface (UI) and Repository.
@@ -30,6 +35,33 @@ public interface Service<ID, E extends Entity<ID>> {
      */
     Iterable<E> findAll();
 
+    /**
+     * Returns a sequential stream over a snapshot of all entities, taken when the method is called.
+     *
+     * @return a stream of the entities
+     */
+    Stream<E> stream();
+
+    /**
+     * Returns a parallel stream over a snapshot of all entities, taken when the method is called.
+     *
+     * @return a parallel stream of the entities
+     */
+    default Stream<E> parallelStream() {
+        return stream().parallel();
+    }
+
+    /**
+     * Retrieves the entities one page at a time. Entities present during the whole listing are returned exactly once.
+     *
+     * @param token the token of the page to be retrieved, as returned with the previous page, or {@code null} to start
+     *              a new listing
+     * @param size the maximum number of entities of the page
+     * @return the page, with the token of the next one if more entities follow
+     * @throws IllegalArgumentException if the token is unknown, already used or expired, or the size is not positive
+     */
+    Page<E> findPage(String token, int size);
+
     /**
      * Saves a new entity or updates an existing entity in the repository.
      *
@@ -57,4 +89,69 @@ public interface Service<ID, E extends Entity<ID>> {
      * @throws EntityNotFoundException if the entity does not exist in the system
      */
     Optional<E> update(E entity) throws EntityNotFoundException;
+
+    /**
+     * Registers a listener notified after each successful save, delete or update.
+     *
+     * @param listener the listener to be registered
+     */
+    void addListener(ServiceListener<ID, E> listener);
+
+    /**
+     * Waits until every mutation applied so far is persisted durably, whatever the durability policy of the underlying
+     * repository.
+     */
+    void awaitDurable();
+
+    /**
+     * Saves a batch of new entities, validating all of them first and persisting the valid ones once. Rejected entities
+     * are reported without aborting the others.
+     *
+     * @param entities the entities to be saved
+     * @return the saved entities and the rejected ones, with the reason of each rejection
+     */
+    BatchResult<E, E> saveAll(Collection<E> entities);
+
+    /**
+     * Deletes a batch of entities by their unique identifiers, persisting the deletions once. Missing entities are
+     * reported without aborting the others.
+     *
+     * @param ids the unique identifiers of the entities to be deleted
+     * @return the deleted entities and the rejected identifiers, with the reason of each rejection
+     */
+    BatchResult<ID, E> deleteAllById(Collection<ID> ids);
+
+    /**
+     * Updates a batch of existing entities, validating all of them first and persisting the valid ones once. Rejected
+     * entities are reported without aborting the others.
+     *
+     * @param entities the entities with updated data
+     * @return the updated entities and the rejected ones, with the reason of each rejection
+     */
+    BatchResult<E, E> updateAll(Collection<E> entities);
+
+    /**
+     * Records the saving of a new entity in a unit of work. Listeners are notified once the unit is committed.
+     *
+     * @param unit the unit of work recording the mutation
+     * @param entity the entity to be saved
+     */
+    void save(UnitOfWork unit, E entity);
+
+    /**
+     * Records the deletion of an entity in a unit of work. Listeners are notified once the unit is committed, if the
+     * entity existed.
+     *
+     * @param unit the unit of work recording the mutation
+     * @param id the unique identifier of the entity to be deleted
+     */
+    void deleteById(UnitOfWork unit, ID id);
+
+    /**
+     * Records the update of an existing entity in a unit of work. Listeners are notified once the unit is committed.
+     *
+     * @param unit the unit of work recording the mutation
+     * @param entity the entity with updated data
+     */
+    void update(UnitOfWork unit, E entity);
 }
@@ -0,0 +1,40 @@
+package service;
+
+import models.Entity;
+
+/**
+ * Listener notified by a {@link Service} after each successful mutation of an entity.
+ * Listeners are notified in registration order, one notification at a time, and receive the mutations of each entity
+ * in the order they were committed. A mutation returns once its notifications are delivered, on its own thread or on
+ * the thread of a concurrent mutation of the same service; mutations made directly on the repository are delivered
+ * along with the next mutation made through the service.
+ *
+ * @param <ID> the type of the unique identifier for the entity
+ * @param <E> the type of the entity that extends {@link Entity}
+ */
+public interface ServiceListener<ID, E extends Entity<ID>> {
+
+    /**
+     * Called after a new entity was saved.
+     *
+     * @param entity the saved entity
+     */
+    default void onSaved(E entity) {
+    }
+
+    /**
+     * Called after an entity was deleted.
+     *
+     * @param entity the deleted entity
+     */
+    default void onDeleted(E entity) {
+    }
+
+    /**
+     * Called after an existing entity was updated.
+     *
+     * @param entity the updated entity
+     */
+    default void onUpdated(E entity) {
+    }
+}
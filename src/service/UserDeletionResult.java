@@ -0,0 +1,90 @@
+package service;
+
+import models.Friendship;
+import models.User;
+
+import java.util.List;
+
+/**
+ * Summary of a cascading user deletion: the deleted user together with every friendship relation removed with it,
+ * grouped by the role the user had in the relation.
+ */
+public class UserDeletionResult {
+
+    private final User user; // The deleted user
+    private final List<Friendship> friendships; // Removed accepted friendships of the user
+    private final List<Friendship> sentRequests; // Removed pending requests sent by the user
+    private final List<Friendship> receivedRequests; // Removed pending requests received by the user
+
+    /**
+     * Constructs a new UserDeletionResult.
+     *
+     * @param user the deleted user
+     * @param friendships the removed accepted friendships of the user
+     * @param sentRequests the removed pending requests sent by the user
+     * @param receivedRequests the removed pending requests received by the user
+     */
+    public UserDeletionResult(User user, List<Friendship> friendships, List<Friendship> sentRequests,
+                              List<Friendship> receivedRequests) {
+        this.user = user;
+        this.friendships = List.copyOf(friendships);
+        this.sentRequests = List.copyOf(sentRequests);
+        this.receivedRequests = List.copyOf(receivedRequests);
+    }
+
+    /**
+     * Returns the deleted user.
+     *
+     * @return the deleted user
+     */
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Returns the removed accepted friendships of the user, in both directions.
+     *
+     * @return the removed friendships
+     */
+    public List<Friendship> getFriendships() {
+        return friendships;
+    }
+
+    /**
+     * Returns the removed pending requests sent by the user.
+     *
+     * @return the removed sent requests
+     */
+    public List<Friendship> getSentRequests() {
+        return sentRequests;
+    }
+
+    /**
+     * Returns the removed pending requests received by the user.
+     *
+     * @return the removed received requests
+     */
+    public List<Friendship> getReceivedRequests() {
+        return receivedRequests;
+    }
+
+    /**
+     * Returns the total number of friendship relations removed with the user.
+     *
+     * @return the number of removed friendships and requests
+     */
+    public int getRemovedRelationCount() {
+        return friendships.size() + sentRequests.size() + receivedRequests.size();
+    }
+
+    /**
+     * Returns a string representation of the deletion result.
+     *
+     * @return a string representation of the deletion result
+     */
+    @Override
+    public String toString() {
+        return "Deleted user " + user.getId() + " with " + friendships.size() + " friendships, " +
+                sentRequests.size() + " sent requests and " + receivedRequests.size() + " received requests";
+    }
+}
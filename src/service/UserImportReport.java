@@ -0,0 +1,104 @@
+package service;
+
+import java.util.List;
+
+/**
+ * Summary of a bulk user import: how many records were read, imported and rejected, the first rejections in file
+ * order, and how long the import took.
+ */
+public class UserImportReport {
+
+    private final String source; // Path of the imported file
+    private final long records; // Number of records read, rejected ones included
+    private final long imported; // Number of users saved
+    private final long rejected; // Number of records rejected by parsing, validation or saving
+    private final List<String> errors; // Rejections with the lowest line numbers, as "line <N>: <reason>"
+    private final long elapsedMillis; // Duration of the import, until the saved users were durable
+
+    /**
+     * Constructs a new UserImportReport.
+     *
+     * @param source the path of the imported file
+     * @param records the number of records read
+     * @param imported the number of users saved
+     * @param rejected the number of rejected records
+     * @param errors the rejections with the lowest line numbers
+     * @param elapsedMillis the duration of the import in milliseconds
+     */
+    public UserImportReport(String source, long records, long imported, long rejected, List<String> errors,
+                            long elapsedMillis) {
+        this.source = source;
+        this.records = records;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.errors = List.copyOf(errors);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Returns the path of the imported file.
+     *
+     * @return the path of the file
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the number of records read from the file, rejected ones included.
+     *
+     * @return the number of records
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Returns the number of users saved.
+     *
+     * @return the number of imported users
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * Returns the number of records rejected because they were malformed, invalid or already existing.
+     *
+     * @return the number of rejected records
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the rejections with the lowest line numbers, in file order. There may be fewer than
+     * {@link #getRejected()}.
+     *
+     * @return the reported rejections
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns the duration of the import, until the saved users were durable.
+     *
+     * @return the duration in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Returns a string representation of the import report.
+     *
+     * @return a string representation of the import report
+     */
+    @Override
+    public String toString() {
+        long perSecond = elapsedMillis == 0 ? records : records * 1000 / elapsedMillis;
+        return "Imported " + imported + " of " + records + " users from " + source + ", rejected " + rejected +
+                " in " + elapsedMillis + " ms (" + perSecond + " records/s)";
+    }
+}
@@ -0,0 +1,287 @@
+package service;
+
+import exceptions.ValidationException;
+import models.User;
+import models.validators.UserValidator;
+import models.validators.Validator;
+import repository.BatchResult;
+import repository.CsvRecords;
+import utils.Config;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+
+/**
+ * Bulk importer adding the users of a CSV file to a {@link Network} through a staged pipeline:
+ * <ol>
+ *     <li>a reader thread splits the file into records and parses them;</li>
+ *     <li>worker threads create the users, hashing their passwords, and validate them;</li>
+ *     <li>the calling thread saves the valid users in batches of {@link Config#DEFAULT_IMPORT_BATCH_SIZE}.</li>
+ * </ol>
+ * Stages hand records over in chunks through bounded queues, so a slower stage makes the faster one wait instead of
+ * buffering the whole file in memory.
+ *
+ * Each line of the file holds one user as {@code <FIRST_NAME>,<LAST_NAME>,<EMAIL>,<PASSWORD>}, with the password in
+ * plain text; blank lines and lines starting with {@code #} are skipped. Malformed, invalid and already existing users
+ * are rejected and reported with their line number. Chunks are saved in the order workers finish them, so when a file
+ * repeats an email address, which of the duplicates is imported is not defined.
+ */
+public class UserImporter {
+
+    // Number of records handed over between stages at once
+    private static final int CHUNK_SIZE = 256;
+
+    // Number of rejections kept for the report
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private final Network network; // Network the users are added to
+    private final Validator<User> validator; // Validator checking users before they are saved
+    private final int threads; // Number of worker threads creating and validating users
+    private final int batchSize; // Number of users saved in a single batch
+    private final int queueCapacity; // Number of chunks each queue holds before blocking
+
+    /**
+     * Constructs a new UserImporter with the default validator and the pipeline settings of {@link Config}.
+     *
+     * @param network the network the users are added to
+     */
+    public UserImporter(Network network) {
+        this(network, new UserValidator(), Config.DEFAULT_IMPORT_THREADS, Config.DEFAULT_IMPORT_BATCH_SIZE,
+                Config.DEFAULT_IMPORT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructs a new UserImporter.
+     *
+     * @param network the network the users are added to
+     * @param validator the validator checking users before they are saved
+     * @param threads the number of worker threads creating and validating users
+     * @param batchSize the number of users saved in a single batch
+     * @param queueCapacity the number of chunks each queue between stages holds before blocking
+     */
+    public UserImporter(Network network, Validator<User> validator, int threads, int batchSize, int queueCapacity) {
+        if (threads < 1 || batchSize < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Threads, batch size and queue capacity must be positive");
+        }
+        this.network = network;
+        this.validator = validator;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Imports the users of a file and waits until they are durable.
+     *
+     * @param file the file to be imported
+     * @param progressListener notified with the total number of imported users after each saved batch
+     * @return the summary of the import
+     * @throws IOException if the file cannot be read
+     * @throws InterruptedException if the calling thread is interrupted; users saved so far are kept
+     */
+    public UserImportReport importFile(Path file, LongConsumer progressListener)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        ErrorLog errors = new ErrorLog();
+        BlockingQueue<List<Row>> rows = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<Candidate>> candidates = new ArrayBlockingQueue<>(queueCapacity);
+
+        // An empty chunk marks the end of a queue: the reader sends one per worker, each worker sends one when done
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1, runnable -> {
+            Thread thread = new Thread(runnable, "user-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long records;
+        long imported = 0;
+        try {
+            Future<Long> reader = executor.submit(() -> read(file, rows, errors));
+            List<Future<?>> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    work(rows, candidates, errors);
+                    return null;
+                }));
+            }
+
+            List<Candidate> batch = new ArrayList<>(batchSize);
+            int finishedWorkers = 0;
+            while (finishedWorkers < threads) {
+                List<Candidate> chunk = candidates.take();
+                if (chunk.isEmpty()) {
+                    finishedWorkers++;
+                    continue;
+                }
+                batch.addAll(chunk);
+                if (batch.size() >= batchSize) {
+                    imported += save(batch, errors);
+                    progressListener.accept(imported);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                imported += save(batch, errors);
+                progressListener.accept(imported);
+            }
+
+            // Workers first: if they all failed, the reader may be blocked on a full queue
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            records = reader.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IllegalStateException("User import failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        network.awaitDurable();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return new UserImportReport(file.toString(), records, imported, errors.getCount(), errors.getReported(),
+                elapsedMillis);
+    }
+
+    /**
+     * Reads and parses the records of the file in chunks, then signals the end of the file to every worker, also
+     * when reading fails.
+     *
+     * @return the number of records read
+     */
+    private long read(Path file, BlockingQueue<List<Row>> rows, ErrorLog errors)
+            throws IOException, InterruptedException {
+        long records = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+
+                records++;
+                List<String> fields = CsvRecords.parse(line);
+                if (fields.size() != 4) {
+                    errors.add(lineNumber, "Expected 4 fields but found " + fields.size());
+                    continue;
+                }
+                chunk.add(new Row(lineNumber, fields));
+                if (chunk.size() == CHUNK_SIZE) {
+                    rows.put(chunk);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                rows.put(chunk);
+            }
+        } finally {
+            for (int i = 0; i < threads; i++) {
+                rows.put(List.of());
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Creates and validates the users of parsed records until the end of the file, then signals its own end.
+     */
+    private void work(BlockingQueue<List<Row>> rows, BlockingQueue<List<Candidate>> candidates, ErrorLog errors)
+            throws InterruptedException {
+        try {
+            List<Row> chunk;
+            while (!(chunk = rows.take()).isEmpty()) {
+                List<Candidate> valid = new ArrayList<>(chunk.size());
+                for (Row row : chunk) {
+                    List<String> fields = row.fields();
+                    User user = new User(fields.get(0), fields.get(1), fields.get(3), fields.get(2));
+                    try {
+                        validator.validate(user);
+                        valid.add(new Candidate(row.line(), user));
+                    } catch (ValidationException e) {
+                        errors.add(row.line(), e.getMessage());
+                    }
+                }
+                if (!valid.isEmpty()) {
+                    candidates.put(valid);
+                }
+            }
+        } finally {
+            candidates.put(List.of());
+        }
+    }
+
+    /**
+     * Saves a batch of users, recording those rejected by the repository.
+     *
+     * @return the number of saved users
+     */
+    private int save(List<Candidate> batch, ErrorLog errors) {
+        List<User> users = new ArrayList<>(batch.size());
+        batch.forEach(candidate -> users.add(candidate.user()));
+
+        BatchResult<User, User> result = network.addUsers(users);
+        for (BatchResult.Failure<User> failure : result.getFailures()) {
+            errors.add(batch.get(failure.getPosition()).line(), failure.getCause().getMessage());
+        }
+        return result.getSucceeded().size();
+    }
+
+    /**
+     * Parsed record of the file.
+     */
+    private record Row(int line, List<String> fields) {
+    }
+
+    /**
+     * Valid user waiting to be saved, with the line it was read from.
+     */
+    private record Candidate(int line, User user) {
+    }
+
+    /**
+     * Rejections recorded by every stage, keeping only those with the lowest line numbers.
+     */
+    private static class ErrorLog {
+
+        private final TreeMap<Integer, String> reported = new TreeMap<>();
+        private long count;
+
+        synchronized void add(int line, String reason) {
+            count++;
+            reported.put(line, reason);
+            if (reported.size() > MAX_REPORTED_ERRORS) {
+                reported.pollLastEntry();
+            }
+        }
+
+        synchronized long getCount() {
+            return count;
+        }
+
+        synchronized List<String> getReported() {
+            List<String> lines = new ArrayList<>(reported.size());
+            for (Map.Entry<Integer, String> entry : reported.entrySet()) {
+                lines.add("line " + entry.getKey() + ": " + entry.getValue());
+            }
+            return lines;
+        }
+    }
+}
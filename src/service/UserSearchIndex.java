@@ -0,0 +1,180 @@
+package service;
+
+import models.User;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Prefix search over the first names, last names and email addresses of the users of a {@link Network}.
+ *
+ * Every field is lower-cased into a token, and each token is stored as the key {@code <token>\0<user id>} in a sorted
+ * set, so the users whose token starts with a prefix form a contiguous range found by two binary searches. The index is
+ * built once from the network's users and then follows user events: a save adds the user's keys, a delete removes
+ * them, and an update replaces them. Events received while the index is built are buffered and replayed in order once
+ * it is. Readers never block; updates of the index are serialized.
+ */
+public class UserSearchIndex {
+
+    // Separates the token from the user id in a key; it sorts before any character of a token
+    private static final char SEPARATOR = '\0';
+
+    private final NavigableSet<String> keys; // Keys of every indexed token, sorted
+    private final Map<String, String[]> tokensOf; // Indexed tokens, indexed by user id
+    private List<Runnable> bufferedEvents; // Events received while the index is built, null once it is, guarded by this
+
+    /**
+     * Constructs a new UserSearchIndex, indexing the network's users and following their changes.
+     *
+     * @param network the network whose users are searched
+     */
+    public UserSearchIndex(Network network) {
+        this.keys = new ConcurrentSkipListSet<>();
+        this.tokensOf = new ConcurrentHashMap<>();
+        this.bufferedEvents = new ArrayList<>();
+
+        // Listeners are registered before the users are read, so no change committed meanwhile is missed
+        network.addUserListener(new ServiceListener<>() {
+            @Override
+            public void onSaved(User user) {
+                dispatch(() -> put(user));
+            }
+
+            @Override
+            public void onDeleted(User user) {
+                dispatch(() -> remove(user.getId()));
+            }
+
+            @Override
+            public void onUpdated(User user) {
+                dispatch(() -> put(user));
+            }
+        });
+
+        for (User user : network.getAllUsers()) {
+            put(user);
+        }
+
+        // Replaying an event the users read already reflect leaves the index as it is, since puts and removals are
+        // idempotent and the buffered events end with the latest version of each user
+        synchronized (this) {
+            List<Runnable> events = bufferedEvents;
+            bufferedEvents = null;
+            events.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Finds the users matching every term of a query. A term matches a user if it is a case-insensitive prefix of the
+     * user's first name, last name or email address. Users are returned in the order of their matching token for the
+     * most selective term, so exact and shorter matches come first.
+     *
+     * @param query the terms to be matched, separated by whitespace
+     * @param limit the maximum number of users returned
+     * @return the ids of the matching users
+     */
+    public List<String> search(String query, int limit) {
+        List<String> terms = new ArrayList<>();
+        for (String term : query.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        // The longest term is assumed the most selective and drives the range scan; the others filter its users
+        terms.sort(Comparator.comparingInt(String::length).reversed());
+        String first = terms.getFirst();
+        List<String> others = terms.subList(1, terms.size());
+
+        Set<String> matches = new LinkedHashSet<>();
+        for (String key : keys.subSet(first, true, first + Character.MAX_VALUE, false)) {
+            String uid = key.substring(key.lastIndexOf(SEPARATOR) + 1);
+            String[] tokens = tokensOf.get(uid);
+            if (tokens != null && matchesAll(tokens, others) && matches.add(uid) && matches.size() == limit) {
+                break;
+            }
+        }
+        return new ArrayList<>(matches);
+    }
+
+    /**
+     * Returns the number of indexed users.
+     *
+     * @return the number of users
+     */
+    public int size() {
+        return tokensOf.size();
+    }
+
+    /**
+     * Runs the handling of an event, or buffers it while the index is being built.
+     */
+    private void dispatch(Runnable event) {
+        synchronized (this) {
+            if (bufferedEvents != null) {
+                bufferedEvents.add(event);
+                return;
+            }
+        }
+        event.run();
+    }
+
+    private synchronized void put(User user) {
+        String[] tokens = tokensOf(user);
+        String[] previous = tokensOf.put(user.getId(), tokens);
+        if (previous != null) {
+            for (String token : previous) {
+                keys.remove(token + SEPARATOR + user.getId());
+            }
+        }
+        for (String token : tokens) {
+            keys.add(token + SEPARATOR + user.getId());
+        }
+    }
+
+    private synchronized void remove(String uid) {
+        String[] previous = tokensOf.remove(uid);
+        if (previous != null) {
+            for (String token : previous) {
+                keys.remove(token + SEPARATOR + uid);
+            }
+        }
+    }
+
+    private static String[] tokensOf(User user) {
+        List<String> tokens = new ArrayList<>(3);
+        for (String field : new String[]{user.getFirstName(), user.getLastName(), user.getEmail()}) {
+            if (field != null && !field.isBlank()) {
+                String token = field.trim().toLowerCase(Locale.ROOT);
+                if (!tokens.contains(token)) {
+                    tokens.add(token);
+                }
+            }
+        }
+        return tokens.toArray(String[]::new);
+    }
+
+    private static boolean matchesAll(String[] tokens, List<String> terms) {
+        for (String term : terms) {
+            boolean matched = false;
+            for (String token : tokens) {
+                matched |= token.startsWith(term);
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,19 +1,36 @@
 package service;
 
 import models.User;
-import repository.Repository;
+import repository.UserRepository;
+
+import java.util.Optional;
 
 /**
  * Specialized service class for performing operations on users via repository.
  */
 public class UserService extends AbstractService<String, User> {
 
+    // The user repository, exposing user-specific lookups
+    private final UserRepository userRepository;
+
     /**
      * Constructs a new UserService with the specified repository.
      *
      * @param repository the repository used to perform operations on persisting data
      */
-    public UserService(Repository<String, User> repository) {
+    public UserService(UserRepository repository) {
         super(repository);
+        this.userRepository = repository;
+    }
+
+    /**
+     * Finds a user by its email address.
+     *
+     * @param email the email address of the user to be retrieved
+     * @return an {@link Optional} containing the user with the specified email address, or an empty {@code Optional}
+     *         if no user is found
+     */
+    public Optional<User> findByEmail(String email) {
+        return userRepository.findByEmail(email);
     }
 }
@@ -2,33 +2,68 @@ package ui;
 
 import exceptions.EntityAlreadyExistsException;
 import exceptions.EntityNotFoundException;
-import models.Friendship;
 import models.User;
+import repository.Page;
+import service.Community;
 import service.Network;
-
+import service.UserDeletionResult;
+import service.UserImportReport;
+import service.UserImporter;
+import utils.CacheStats;
+import utils.Config;
+import utils.LatencyHistogram;
+import utils.Metrics;
+import utils.OperationStats;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 public class SocialNetworkApplication {
 
     private final Network network;
 
+    private final Community community;
+
     private final Map<String, Consumer<List<String>>> commands;
 
-    public SocialNetworkApplication(Network network) {
+    // Number of recommendations displayed by 'recommend' when no limit is given
+    private static final int DEFAULT_RECOMMENDATION_LIMIT = 10;
+
+    // Number of users displayed by 'search'
+    private static final int SEARCH_LIMIT = 20;
+
+    // Number of imported users between two progress messages of 'import_users'
+    private static final long IMPORT_PROGRESS_STEP = 100_000;
+
+    public SocialNetworkApplication(Network network, Community community) {
         this.network = network;
+        this.community = community;
 
         commands = new HashMap<>();
         commands.put("docs", this::displayDocumentation);
         commands.put("users", this::displayUsers);
         commands.put("add_user", this::addUser);
+        commands.put("import_users", this::importUsers);
         commands.put("delete_user", this::deleteUser);
         commands.put("find_user", this::findUser);
+        commands.put("search", this::searchUsers);
         commands.put("friends", this::displayFriendsOfUser);
+        commands.put("recommend", this::displayRecommendations);
+        commands.put("mutual_friends", this::displayMutualFriends);
+        commands.put("path", this::displayShortestPath);
         commands.put("send_request", this::sendFriendRequest);
         commands.put("friendships", this::displayFriendships);
+        commands.put("communities", this::displayCommunities);
+        commands.put("sociable_community", this::displayMostSociableCommunity);
+        commands.put("stats", this::displayStatistics);
     }
 
     private void displayApplicationIntro() {
@@ -60,10 +95,18 @@ public class SocialNetworkApplication {
         System.out.printf("| %-19s | %-50s | %-52s |%n", "docs", "-", "Display information about application usage");
         System.out.printf("| %-19s | %-50s | %-52s |%n", "users", "-", "Display available users in network");
         System.out.printf("| %-19s | %-50s | %-52s |%n", "add_user", "<FIRST_NAME> <LAST_NAME> <EMAIL> <PASSWORD>", "Add new user to network");
+        System.out.printf("| %-19s | %-50s | %-52s |%n", "import_users", "<FILE>", "Add users from CSV file (first,last,email,password)");
         System.out.printf("| %-19s | %-50s | %-52s |%n", "delete_user", "<ID>", "Delete user from network");
+        System.out.printf("| %-19s | %-50s | %-52s |%n", "search", "<PREFIX> [<PREFIX>...]", "Display users by name or email prefix");
         System.out.printf("| %-19s | %-50s | %-52s |%n", "friends", "<UID>", "Display friends of specific user");
+        System.out.printf("| %-19s | %-50s | %-52s |%n", "mutual_friends", "<UID1> <UID2>", "Display friends two users have in common");
+        System.out.printf("| %-19s | %-50s | %-52s |%n", "path", "<UID1> <UID2> [<MAX_HOPS>]", "Display shortest friendship chain between users");
+        System.out.printf("| %-19s | %-50s | %-52s |%n", "recommend", "<UID> [<LIMIT>]", "Display people the user may know (default 10)");
         System.out.printf("| %-19s | %-50s | %-52s |%n", "send_request", "<SENDER_ID> <RECEIVER_ID>", "Send friend request to user");
         System.out.printf("| %-19s | %-50s | %-52s |%n", "friendships", "-", "Display available friendships between users");
+        System.out.printf("| %-19s | %-50s | %-52s |%n", "communities", "[<UID>]", "Display number of communities or user's community");
+        System.out.printf("| %-19s | %-50s | %-52s |%n", "sociable_community", "-", "Display community with the longest friend chain");
+        System.out.printf("| %-19s | %-50s | %-52s |%n", "stats", "[<FILTER> | reset]", "Display latencies (us) and cache hits, or reset them");
         System.out.println("+---------------------+----------------------------------------------------+------------------------------------------------------+");
     }
 
@@ -95,7 +138,7 @@ public class SocialNetworkApplication {
         String uid = params.getFirst();
 
         try {
-            String result = StreamSupport.stream(network.getFriendsOfUser(uid).spliterator(), false)
+            String result = network.getFriendsOfUser(uid).stream()
                     .map(User::toString)
                     .collect(Collectors.joining("\n\n"));
             if (result.isEmpty()) {
@@ -108,6 +151,113 @@ public class SocialNetworkApplication {
         }
     }
 
+    private void displayMutualFriends(List<String> params) {
+        if (params.size() != 2) {
+            System.out.println("[ERROR] Invalid number of parameters. Check documentation (command: 'docs') for more " +
+                    "information.");
+            return;
+        }
+
+        for (String uid : params) {
+            if (network.findUser(uid).isEmpty()) {
+                System.out.println("[INFO] User <" + uid + "> not found.");
+                return;
+            }
+        }
+
+        List<User> mutualFriends = network.getMutualFriends(params.get(0), params.get(1));
+        if (mutualFriends.isEmpty()) {
+            System.out.println("[INFO] Users do not have any friends in common.");
+        } else {
+            System.out.println(mutualFriends.stream().map(User::toString).collect(Collectors.joining("\n\n")));
+            System.out.println("\n[INFO] " + mutualFriends.size() + " mutual friends.");
+        }
+    }
+
+    private void displayShortestPath(List<String> params) {
+        if (params.size() < 2 || params.size() > 3) {
+            System.out.println("[ERROR] Invalid number of parameters. Check documentation (command: 'docs') for more " +
+                    "information.");
+            return;
+        }
+
+        int maxHops;
+        try {
+            maxHops = params.size() > 2 ? Integer.parseInt(params.get(2)) : Config.DEFAULT_PATH_MAX_HOPS;
+        } catch (NumberFormatException e) {
+            System.out.println("[ERROR] Invalid hop limit '" + params.get(2) + "'.");
+            return;
+        }
+        for (String uid : params.subList(0, 2)) {
+            if (network.findUser(uid).isEmpty()) {
+                System.out.println("[INFO] User <" + uid + "> not found.");
+                return;
+            }
+        }
+
+        Optional<List<User>> path = network.getShortestPath(params.get(0), params.get(1), maxHops);
+        if (path.isEmpty()) {
+            System.out.println("[INFO] Users are not connected within " + maxHops + " friendships.");
+            return;
+        }
+
+        List<User> chain = path.get();
+        for (int i = 0; i < chain.size(); i++) {
+            User user = chain.get(i);
+            System.out.printf("%s %s %s <%s>%n", i == 0 ? "   " : "-> ", user.getFirstName(), user.getLastName(),
+                    user.getId());
+        }
+        System.out.println("[INFO] Degrees of separation: " + (chain.size() - 1) + ".");
+    }
+
+    private void displayRecommendations(List<String> params) {
+        if (params.isEmpty() || params.size() > 2) {
+            System.out.println("[ERROR] Invalid number of parameters. Check documentation (command: 'docs') for more " +
+                    "information.");
+            return;
+        }
+
+        String uid = params.getFirst();
+        int limit;
+        try {
+            limit = params.size() > 1 ? Integer.parseInt(params.get(1)) : DEFAULT_RECOMMENDATION_LIMIT;
+        } catch (NumberFormatException e) {
+            System.out.println("[ERROR] Invalid limit '" + params.get(1) + "'.");
+            return;
+        }
+
+        String result = network.getFriendRecommendations(uid, limit).stream()
+                .map(User::toString)
+                .collect(Collectors.joining("\n\n"));
+        if (result.isEmpty()) {
+            System.out.println("[INFO] No recommendations for this user.");
+        } else {
+            System.out.println(result);
+        }
+    }
+
+    private void searchUsers(List<String> params) {
+        if (params.isEmpty()) {
+            System.out.println("[ERROR] Invalid number of parameters. Check documentation (command: 'docs') for more " +
+                    "information.");
+            return;
+        }
+
+        List<User> users = network.searchUsers(String.join(" ", params), SEARCH_LIMIT);
+        if (users.isEmpty()) {
+            System.out.println("[INFO] No users found.");
+            return;
+        }
+
+        for (User user : users) {
+            System.out.printf("%s %s <%s> <%s>%n", user.getFirstName(), user.getLastName(), user.getEmail(),
+                    user.getId());
+        }
+        if (users.size() == SEARCH_LIMIT) {
+            System.out.println("[INFO] Showing the first " + SEARCH_LIMIT + " matches; refine the search for more.");
+        }
+    }
+
     private void findUser(List<String> params) {
         if (params.size() != 1) {
             System.out.println("[ERROR] Invalid number of parameters. Check documentation (command: 'docs') for more " +
@@ -150,6 +300,41 @@ public class SocialNetworkApplication {
         }
     }
 
+    private void importUsers(List<String> params) {
+        if (params.size() != 1) {
+            System.out.println("[ERROR] Invalid number of parameters. Check documentation (command: 'docs') for more " +
+                    "information.");
+            return;
+        }
+
+        Path file = Path.of(params.getFirst());
+        if (!Files.isRegularFile(file)) {
+            System.out.println("[ERROR] File '" + file + "' does not exist.");
+            return;
+        }
+
+        long[] reported = {0};
+        try {
+            UserImportReport report = new UserImporter(network).importFile(file, imported -> {
+                if (imported / IMPORT_PROGRESS_STEP > reported[0]) {
+                    reported[0] = imported / IMPORT_PROGRESS_STEP;
+                    System.out.println("[INFO] Imported " + imported + " users...");
+                }
+            });
+            System.out.println("[INFO] " + report);
+            report.getErrors().forEach(error -> System.out.println("[ERROR] " + error));
+            if (report.getRejected() > report.getErrors().size()) {
+                System.out.println("[ERROR] ... and " + (report.getRejected() - report.getErrors().size()) +
+                        " more rejected records.");
+            }
+        } catch (IOException e) {
+            System.out.println("[ERROR] Could not read '" + file + "': " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("[ERROR] Import interrupted.");
+        }
+    }
+
     private void deleteUser(List<String> params) {
         if (params.size() != 1) {
             System.out.println("[ERROR] Invalid number of parameters. Check documentation (command: 'docs') for more " +
@@ -160,8 +345,10 @@ public class SocialNetworkApplication {
         String uid = params.getFirst();
 
         try {
-            network.deleteUser(uid);
-            System.out.println("[INFO] User deleted successfully.");
+            UserDeletionResult result = network.deleteUser(uid);
+            System.out.println("[INFO] User deleted successfully, along with " + result.getFriendships().size() +
+                    " friendships, " + result.getSentRequests().size() + " sent and " +
+                    result.getReceivedRequests().size() + " received friend requests.");
         } catch (Exception | EntityNotFoundException e) {
             System.out.println("[ERROR] " + e.getMessage());
         }
@@ -174,13 +361,95 @@ public class SocialNetworkApplication {
             return;
         }
 
-        String result = StreamSupport.stream(network.getAllFriendships().spliterator(), false)
-                .map(Friendship::toString)
-                .collect(Collectors.joining("\n\n"));
-        if (result.isEmpty()) {
-            System.out.println("[INFO] There are no friendship relations between users.");
+        displayPages(network::getFriendshipsPage, "[INFO] There are no friendship relations between users.");
+    }
+
+    private void displayCommunities(List<String> params) {
+        if (params.size() > 1) {
+            System.out.println("[ERROR] Invalid number of parameters. Check documentation (command: 'docs') for more " +
+                    "information.");
+            return;
+        }
+
+        if (params.isEmpty()) {
+            System.out.println("[INFO] Number of communities: " + community.getCommunityCount());
+            return;
+        }
+
+        String uid = params.getFirst();
+        Optional<String> communityId = community.getCommunityIdOfUser(uid);
+        if (communityId.isEmpty()) {
+            System.out.println("[INFO] User not found.");
         } else {
-            System.out.println(result);
+            List<String> members = community.getMembersOfCommunity(communityId.get());
+            System.out.println("[INFO] Community <" + communityId.get() + "> has " + members.size() + " members.");
+        }
+    }
+
+    private void displayMostSociableCommunity(List<String> params) {
+        if (!params.isEmpty()) {
+            System.out.println("[ERROR] Invalid number of parameters. Check documentation (command: 'docs') for more " +
+                    "information.");
+            return;
+        }
+
+        community.getMostSociableCommunity().ifPresentOrElse(
+                System.out::println,
+                () -> System.out.println("[INFO] There are no communities in network.")
+        );
+    }
+
+    private void displayStatistics(List<String> params) {
+        if (params.size() > 1) {
+            System.out.println("[ERROR] Invalid number of parameters. Check documentation (command: 'docs') for more " +
+                    "information.");
+            return;
+        }
+
+        if (!params.isEmpty() && params.getFirst().equals("reset")) {
+            Metrics.resetAll();
+            System.out.println("[INFO] Operation statistics reset.");
+            return;
+        }
+
+        String filter = params.isEmpty() ? "" : params.getFirst().toLowerCase();
+        List<OperationStats> stats = Metrics.getAll().stream()
+                .filter(operation -> operation.getCalls() > 0)
+                .filter(operation -> (operation.getComponent() + "." + operation.getOperation()).toLowerCase()
+                        .contains(filter))
+                .toList();
+        List<CacheStats> caches = Metrics.getAllCaches().stream()
+                .filter(cache -> cache.getHits() + cache.getMisses() > 0)
+                .filter(cache -> cache.getName().toLowerCase().contains(filter))
+                .toList();
+        if (stats.isEmpty() && caches.isEmpty()) {
+            System.out.println("[INFO] No operations recorded.");
+            return;
+        }
+
+        if (!stats.isEmpty()) {
+            System.out.printf("%-46s %10s %8s %10s %10s %10s %10s %10s%n", "OPERATION", "CALLS", "ERRORS", "MEAN",
+                    "P50", "P90", "P99", "MAX");
+            for (OperationStats operation : stats) {
+                LatencyHistogram histogram = operation.getHistogram();
+                System.out.printf("%-46s %10d %8d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                        operation.getComponent() + "." + operation.getOperation(), histogram.getCount(),
+                        operation.getErrors(), histogram.getMean() / 1000, histogram.getPercentile(50) / 1000.0,
+                        histogram.getPercentile(90) / 1000.0, histogram.getPercentile(99) / 1000.0,
+                        histogram.getMax() / 1000.0);
+            }
+        }
+        if (!caches.isEmpty()) {
+            if (!stats.isEmpty()) {
+                System.out.println();
+            }
+            System.out.printf("%-46s %10s %10s %8s %10s %13s %10s%n", "CACHE", "HITS", "MISSES", "HIT %",
+                    "EVICTIONS", "INVALIDATIONS", "SIZE");
+            for (CacheStats cache : caches) {
+                System.out.printf("%-46s %10d %10d %8.1f %10d %13d %10d%n", cache.getName(), cache.getHits(),
+                        cache.getMisses(), cache.getHitRate() * 100, cache.getEvictions(), cache.getInvalidations(),
+                        cache.getSize());
+            }
         }
     }
 
@@ -191,13 +460,40 @@ public class SocialNetworkApplication {
             return;
         }
 
-        String result = StreamSupport.stream(network.getAllUsers().spliterator(), false)
-                .map(User::toString)
-                .collect(Collectors.joining("\n\n"));
-        if (result.isEmpty()) {
-            System.out.println("[INFO] No users found.");
-        } else {
-            System.out.println(result);
+        displayPages(network::getUsersPage, "[INFO] No users found.");
+    }
+
+    /**
+     * Prints every entity of a paginated listing, separated by blank lines, one page at a time through a buffered
+     * writer, so only a single page is held in memory however many entities there are.
+     */
+    private <E> void displayPages(BiFunction<String, Integer, Page<E>> pages, String emptyMessage) {
+        Page<E> page = pages.apply(null, Config.DEFAULT_PAGE_SIZE);
+        if (page.getItems().isEmpty()) {
+            System.out.println(emptyMessage);
+            return;
+        }
+
+        // Not closed, as closing it would close the standard output
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, System.out.charset())));
+        boolean first = true;
+        try {
+            while (true) {
+                for (E item : page.getItems()) {
+                    if (!first) {
+                        out.println();
+                    }
+                    out.println(item);
+                    first = false;
+                }
+                out.flush();
+                if (!page.hasNext()) {
+                    return;
+                }
+                page = pages.apply(page.getNextToken(), Config.DEFAULT_PAGE_SIZE);
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("[ERROR] " + e.getMessage());
         }
     }
 
@@ -0,0 +1,118 @@
+package utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit, miss, eviction and invalidation counters of one cache, safe to record into from any number of threads.
+ * Instances are obtained from {@link Metrics}, which also exposes them over JMX.
+ */
+public class CacheStats implements CacheStatsMBean {
+
+    private final String name; // Name of the cache
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private volatile int size; // Number of entries reported by the cache on its last change
+
+    /**
+     * Constructs a new CacheStats for the specified cache; use {@link Metrics#getCache(String)} to share it.
+     *
+     * @param name the name of the cache
+     */
+    public CacheStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a lookup answered from the cache.
+     */
+    public void recordHit() {
+        if (Config.DEFAULT_METRICS_ENABLED) {
+            hits.increment();
+        }
+    }
+
+    /**
+     * Records a lookup that had to compute its result.
+     */
+    public void recordMiss() {
+        if (Config.DEFAULT_METRICS_ENABLED) {
+            misses.increment();
+        }
+    }
+
+    /**
+     * Records an entry dropped to make room for a new one.
+     */
+    public void recordEviction() {
+        if (Config.DEFAULT_METRICS_ENABLED) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Records entries dropped because the data they were computed from changed.
+     *
+     * @param count the number of dropped entries
+     */
+    public void recordInvalidations(int count) {
+        if (Config.DEFAULT_METRICS_ENABLED && count > 0) {
+            invalidations.add(count);
+        }
+    }
+
+    /**
+     * Records the current number of entries of the cache.
+     *
+     * @param size the number of cached entries
+     */
+    public void recordSize(int size) {
+        this.size = size;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public void reset() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+        invalidations.reset();
+    }
+}
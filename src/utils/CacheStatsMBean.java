@@ -0,0 +1,61 @@
+package utils;
+
+/**
+ * Management interface of {@link CacheStats}, exposing the effectiveness counters of one cache over JMX.
+ */
+public interface CacheStatsMBean {
+
+    /**
+     * Returns the name of the cache.
+     *
+     * @return the cache name
+     */
+    String getName();
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return the number of hits
+     */
+    long getHits();
+
+    /**
+     * Returns the number of lookups that had to compute their result.
+     *
+     * @return the number of misses
+     */
+    long getMisses();
+
+    /**
+     * Returns the share of lookups answered from the cache.
+     *
+     * @return the hit rate, between 0 and 1, or 0 if there was no lookup
+     */
+    double getHitRate();
+
+    /**
+     * Returns the number of entries dropped to make room for new ones.
+     *
+     * @return the number of evictions
+     */
+    long getEvictions();
+
+    /**
+     * Returns the number of entries dropped because the data they were computed from changed.
+     *
+     * @return the number of invalidations
+     */
+    long getInvalidations();
+
+    /**
+     * Returns the number of entries the cache held when it last changed.
+     *
+     * @return the number of cached entries
+     */
+    int getSize();
+
+    /**
+     * Clears the counters. The size is kept.
+     */
+    void reset();
+}
@@ -15,4 +15,77 @@ public class Config {
 
     // Constant representing the name of the file used to store friendship relations
     public static final String DEFAULT_LOCAL_FRIENDSHIP_STORAGE = "friendshipData";
+
+    // Flag enabling append-only journal persistence instead of rewriting the whole file on every mutation
+    public static final boolean DEFAULT_JOURNAL_ENABLED = true;
+
+    // Flag selecting memory-mapped binary snapshots instead of CSV snapshots; switching it requires converting the
+    // existing snapshots first (see repository.SnapshotConverter)
+    public static final boolean DEFAULT_BINARY_SNAPSHOT_ENABLED = false;
+
+    // Ratio between journal records and snapshot records above which the journal is folded into a new snapshot
+    public static final double DEFAULT_JOURNAL_COMPACTION_RATIO = 0.5;
+
+    // Minimum number of journal records required before a compaction is considered
+    public static final int DEFAULT_JOURNAL_COMPACTION_MIN_RECORDS = 1024;
+
+    // Default time budget, in milliseconds, for refining community diameter bounds before returning them
+    public static final long DEFAULT_DIAMETER_TIME_BUDGET_MILLIS = 5000;
+
+    // Delay, in milliseconds, after a network change before the friendship graph snapshot is rebuilt in the
+    // background; changes arriving meanwhile are merged in the same rebuild
+    public static final long DEFAULT_GRAPH_REBUILD_DELAY_MILLIS = 50;
+
+    // Number of lock stripes guarding concurrent writes to a repository, rounded up to a power of two
+    public static final int DEFAULT_REPOSITORY_LOCK_STRIPES = 64;
+
+    // Durability policy of file repositories: "commit" makes every mutation wait until it is synced to disk, while
+    // "interval" and "mutations" return as soon as mutations are applied in memory and persist them in the background
+    // (see repository.DurabilityPolicy)
+    public static final String DEFAULT_DURABILITY_POLICY = "interval";
+
+    // Maximum time, in milliseconds, a mutation stays unsynced under the "interval" durability policy
+    public static final long DEFAULT_DURABILITY_INTERVAL_MILLIS = 100;
+
+    // Number of mutations synced together under the "mutations" durability policy
+    public static final int DEFAULT_DURABILITY_MUTATIONS = 1024;
+
+    // Flag enabling the latency histograms and counters of repository, service and network operations
+    // (see utils.Metrics)
+    public static final boolean DEFAULT_METRICS_ENABLED = true;
+
+    // Flag publishing the operation statistics as platform MBeans, browsable with JConsole or VisualVM
+    public static final boolean DEFAULT_METRICS_JMX_ENABLED = true;
+
+    // Number of threads hashing passwords and validating users during a bulk import
+    public static final int DEFAULT_IMPORT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    // Number of imported users saved together in a single batch
+    public static final int DEFAULT_IMPORT_BATCH_SIZE = 4096;
+
+    // Number of chunks of records waiting between two stages of a bulk import before the faster stage blocks
+    public static final int DEFAULT_IMPORT_QUEUE_CAPACITY = 16;
+
+    // Maximum number of friends of a user whose own friends are visited when recommending friends; friends of users
+    // above it are sampled evenly
+    public static final int DEFAULT_RECOMMENDATION_MAX_FRIENDS = 1000;
+
+    // Maximum number of friends visited per friend when recommending friends, so that a popular friend does not pull
+    // in their whole neighbourhood
+    public static final int DEFAULT_RECOMMENDATION_MAX_FRIEND_DEGREE = 1000;
+
+    // Maximum number of users whose friend recommendations are cached
+    public static final int DEFAULT_RECOMMENDATION_CACHE_SIZE = 10_000;
+
+    // Maximum number of friendships in a chain found by the shortest path query between two users
+    public static final int DEFAULT_PATH_MAX_HOPS = 12;
+
+    // Maximum number of friend and request lists cached by the network, each user having up to three
+    public static final int DEFAULT_FRIEND_LIST_CACHE_SIZE = 30_000;
+
+    // Maximum number of paginated listings a repository keeps open between pages
+    public static final int DEFAULT_PAGE_CURSORS = 1024;
+
+    // Number of entities fetched per page when the console lists users or friendships
+    public static final int DEFAULT_PAGE_SIZE = 512;
 }
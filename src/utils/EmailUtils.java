@@ -2,6 +2,7 @@ package utils;
 
 import exceptions.ValidationException;
 
+import java.util.Locale;
 import java.util.regex.Pattern;
 
 /**
@@ -13,6 +14,9 @@ public class EmailUtils {
     // Regular expression for validating email address format
     private static final String EMAIL_REGEX = "^[\\w-.]+@([\\w-]+\\.)+[\\w-]{2,4}$";
 
+    // Compiled once instead of on every check
+    private static final Pattern EMAIL_PATTERN = Pattern.compile(EMAIL_REGEX);
+
     /**
      * Checks if the provided email address follows the right format.
      *
@@ -23,8 +27,18 @@ public class EmailUtils {
         if (email == null) {
             throw new ValidationException("Email must not be null");
         }
-        if (!Pattern.matches(EMAIL_REGEX, email)) {
+        if (!EMAIL_PATTERN.matcher(email).matches()) {
             throw new ValidationException("Invalid email address format");
         }
     }
+
+    /**
+     * Normalizes the provided email address for comparison, by trimming surrounding whitespace and lower-casing it.
+     *
+     * @param email the email address to be normalized
+     * @return the normalized email address, or {@code null} if the email address is null
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,137 @@
+package utils;
+
+/**
+ * Histogram of latencies in nanoseconds with log-linear buckets: values below {@value #SUB_BUCKETS} nanoseconds have a
+ * bucket each, and every power of two above is split into {@value #SUB_BUCKETS} equal buckets, so any recorded value
+ * is known within about 3% while the histogram keeps a fixed size of a few kilobytes.
+ *
+ * Recording is not synchronized: each thread records into its own histogram, and the histograms are merged once
+ * recording is over.
+ */
+public class LatencyHistogram {
+
+    // Number of bits of a value kept below its highest set bit
+    private static final int SUB_BUCKET_BITS = 5;
+
+    // Number of buckets per power of two
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Number of buckets covering every non-negative long value
+    static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count; // Number of recorded values
+    private long sum; // Sum of the recorded values
+    private long max; // Largest recorded value
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds; negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds every value recorded by another histogram to this one.
+     *
+     * @param other the histogram to be merged
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Adds values to a bucket, for histograms rebuilt from bucket counts kept elsewhere.
+     */
+    void addToBucket(int bucket, long values) {
+        counts[bucket] += values;
+        count += values;
+    }
+
+    /**
+     * Sets the sum and the maximum of the values added with {@link #addToBucket(int, long)}.
+     */
+    void setTotals(long sum, long max) {
+        this.sum = sum;
+        this.max = max;
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the mean latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the maximum latency in nanoseconds
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the value below which the given percentage of the recorded values fall, as the upper bound of the bucket
+     * holding it (never above the maximum).
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency at the percentile in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, upperBoundOf(i));
+            }
+        }
+        return max;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
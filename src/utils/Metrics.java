@@ -0,0 +1,116 @@
+package utils;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Registry of the {@link OperationStats} of the application, keyed by component and operation name, and of the
+ * {@link CacheStats} of its caches, keyed by cache name.
+ *
+ * Statistics are created on first use and shared by every instance of the component, e.g. every repository of the
+ * same class. Unless disabled in {@link Config}, each one is also registered as a platform MBean named
+ * {@code socialnetwork:type=Operations,component=<component>,name=<operation>} or
+ * {@code socialnetwork:type=Caches,name=<cache>}.
+ */
+public final class Metrics {
+
+    private static final Logger LOGGER = Logger.getLogger(Metrics.class.getName());
+
+    // Domain of the object names of the registered MBeans
+    private static final String JMX_DOMAIN = "socialnetwork";
+
+    private static final ConcurrentMap<String, OperationStats> STATS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, CacheStats> CACHES = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the statistics of an operation, creating and registering them if needed.
+     *
+     * @param component the name of the component the operation belongs to
+     * @param operation the name of the operation
+     * @return the statistics of the operation
+     */
+    public static OperationStats get(String component, String operation) {
+        return STATS.computeIfAbsent(component + "." + operation, key -> {
+            OperationStats stats = new OperationStats(component, operation);
+            if (Config.DEFAULT_METRICS_JMX_ENABLED) {
+                register(stats);
+            }
+            return stats;
+        });
+    }
+
+    /**
+     * Returns the statistics of a cache, creating and registering them if needed.
+     *
+     * @param name the name of the cache
+     * @return the statistics of the cache
+     */
+    public static CacheStats getCache(String name) {
+        return CACHES.computeIfAbsent(name, key -> {
+            CacheStats stats = new CacheStats(name);
+            if (Config.DEFAULT_METRICS_JMX_ENABLED) {
+                register(stats, JMX_DOMAIN + ":type=Caches,name=" + ObjectName.quote(name), name);
+            }
+            return stats;
+        });
+    }
+
+    /**
+     * Returns the statistics of every operation used so far, ordered by component and operation name.
+     *
+     * @return the statistics of the operations
+     */
+    public static List<OperationStats> getAll() {
+        List<OperationStats> all = new ArrayList<>(STATS.values());
+        all.sort(Comparator.comparing(OperationStats::getComponent).thenComparing(OperationStats::getOperation));
+        return all;
+    }
+
+    /**
+     * Returns the statistics of every cache used so far, ordered by name.
+     *
+     * @return the statistics of the caches
+     */
+    public static List<CacheStats> getAllCaches() {
+        List<CacheStats> all = new ArrayList<>(CACHES.values());
+        all.sort(Comparator.comparing(CacheStats::getName));
+        return all;
+    }
+
+    /**
+     * Clears the statistics of every operation and the counters of every cache.
+     */
+    public static void resetAll() {
+        STATS.values().forEach(OperationStats::reset);
+        CACHES.values().forEach(CacheStats::reset);
+    }
+
+    private static void register(OperationStats stats) {
+        register(stats, JMX_DOMAIN + ":type=Operations,component=" + ObjectName.quote(stats.getComponent()) +
+                ",name=" + ObjectName.quote(stats.getOperation()), stats.getComponent() + "." + stats.getOperation());
+    }
+
+    private static void register(Object stats, String objectName, String description) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(stats, name);
+            }
+        } catch (JMException | SecurityException e) {
+            LOGGER.log(Level.WARNING, "Could not register the statistics of " + description + " over JMX", e);
+        }
+    }
+}
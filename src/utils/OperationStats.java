@@ -0,0 +1,200 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counter, error counter and latency histogram of one operation of a component, safe to record into from any
+ * number of threads.
+ *
+ * Recording costs two clock reads and a few uncontended atomic increments: counters are {@link LongAdder}s, and the
+ * histogram uses the log-linear buckets of {@link LatencyHistogram} in an atomic array, copied into a
+ * {@link LatencyHistogram} whenever percentiles are read. Instances are obtained from {@link Metrics}, which also
+ * exposes them over JMX.
+ */
+public class OperationStats implements OperationStatsMBean {
+
+    /**
+     * Measured call returning a value.
+     *
+     * @param <T> the type of the returned value
+     * @param <X> the type of the checked exception thrown by the call
+     */
+    @FunctionalInterface
+    public interface Call<T, X extends Throwable> {
+
+        /**
+         * Runs the call.
+         *
+         * @return the value returned by the call
+         * @throws X if the call fails
+         */
+        T call() throws X;
+    }
+
+    /**
+     * Measured call returning nothing.
+     *
+     * @param <X> the type of the checked exception thrown by the call
+     */
+    @FunctionalInterface
+    public interface Action<X extends Throwable> {
+
+        /**
+         * Runs the call.
+         *
+         * @throws X if the call fails
+         */
+        void run() throws X;
+    }
+
+    private final String component; // Name of the component the operation belongs to
+    private final String operation; // Name of the operation
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray buckets = new AtomicLongArray(LatencyHistogram.BUCKET_COUNT);
+
+    /**
+     * Constructs a new OperationStats for the specified operation; use {@link Metrics#get(String, String)} to share it.
+     *
+     * @param component the name of the component the operation belongs to
+     * @param operation the name of the operation
+     */
+    public OperationStats(String component, String operation) {
+        this.component = component;
+        this.operation = operation;
+    }
+
+    /**
+     * Runs and measures a call returning a value. A call throwing an exception is counted as an error and rethrown.
+     *
+     * @param call the call to be measured
+     * @return the value returned by the call
+     * @param <T> the type of the returned value
+     * @param <X> the type of the checked exception thrown by the call
+     * @throws X if the call fails
+     */
+    public <T, X extends Throwable> T record(Call<T, X> call) throws X {
+        if (!Config.DEFAULT_METRICS_ENABLED) {
+            return call.call();
+        }
+
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            record(System.nanoTime() - start);
+            return result;
+        } catch (Throwable e) {
+            errors.increment();
+            record(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs and measures a call returning nothing. A call throwing an exception is counted as an error and rethrown.
+     *
+     * @param action the call to be measured
+     * @param <X> the type of the checked exception thrown by the call
+     * @throws X if the call fails
+     */
+    public <X extends Throwable> void record(Action<X> action) throws X {
+        record(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records the latency of a call measured by the caller.
+     *
+     * @param nanos the latency of the call in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        calls.increment();
+        totalNanos.add(value);
+        buckets.incrementAndGet(LatencyHistogram.bucketOf(value));
+        if (value > maxNanos.get()) {
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Returns a copy of the latency histogram. Calls recorded concurrently may be partially reflected.
+     *
+     * @return the latency histogram
+     */
+    public LatencyHistogram getHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            histogram.addToBucket(i, buckets.get(i));
+        }
+        histogram.setTotals(totalNanos.sum(), maxNanos.get());
+        return histogram;
+    }
+
+    @Override
+    public String getComponent() {
+        return component;
+    }
+
+    @Override
+    public String getOperation() {
+        return operation;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return getHistogram().getMean() / 1000;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return getHistogram().getPercentile(50) / 1000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return getHistogram().getPercentile(90) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return getHistogram().getPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return getHistogram().getPercentile(99.9) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return maxNanos.get() / 1000.0;
+    }
+
+    @Override
+    public void reset() {
+        calls.reset();
+        errors.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+    }
+}
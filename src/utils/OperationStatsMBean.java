@@ -0,0 +1,83 @@
+package utils;
+
+/**
+ * Management interface of {@link OperationStats}, exposing the counters and latency percentiles of one operation over
+ * JMX. Latencies are in microseconds.
+ */
+public interface OperationStatsMBean {
+
+    /**
+     * Returns the name of the component the operation belongs to.
+     *
+     * @return the component name
+     */
+    String getComponent();
+
+    /**
+     * Returns the name of the operation.
+     *
+     * @return the operation name
+     */
+    String getOperation();
+
+    /**
+     * Returns the number of completed calls, failed ones included.
+     *
+     * @return the number of calls
+     */
+    long getCalls();
+
+    /**
+     * Returns the number of calls that threw an exception.
+     *
+     * @return the number of errors
+     */
+    long getErrors();
+
+    /**
+     * Returns the mean latency of the calls.
+     *
+     * @return the mean latency in microseconds
+     */
+    double getMeanMicros();
+
+    /**
+     * Returns the median latency of the calls.
+     *
+     * @return the 50th percentile in microseconds
+     */
+    double getP50Micros();
+
+    /**
+     * Returns the 90th percentile of the latency of the calls.
+     *
+     * @return the 90th percentile in microseconds
+     */
+    double getP90Micros();
+
+    /**
+     * Returns the 99th percentile of the latency of the calls.
+     *
+     * @return the 99th percentile in microseconds
+     */
+    double getP99Micros();
+
+    /**
+     * Returns the 99.9th percentile of the latency of the calls.
+     *
+     * @return the 99.9th percentile in microseconds
+     */
+    double getP999Micros();
+
+    /**
+     * Returns the largest latency of the calls.
+     *
+     * @return the maximum latency in microseconds
+     */
+    double getMaxMicros();
+
+    /**
+     * Clears the counters and the latency histogram.
+     */
+    void reset();
+}
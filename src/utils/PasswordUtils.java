@@ -17,6 +17,21 @@ public class PasswordUtils {
     // Regular expression for validating password format (at least 8 chars, 1 letter, 1 number, 1 special char)
     public static final String PASSWORD_REGEX = "^(?=.*[0-9])(?=.*[a-zA-Z])(?=.*[!@#$%^&*]).{8,}$";
 
+    // Compiled form of PASSWORD_REGEX
+    private static final Pattern PASSWORD_PATTERN = Pattern.compile(PASSWORD_REGEX);
+
+    // SHA-256 digest of each thread, as digests are stateful and looking one up through the security providers on
+    // every call costs more than hashing a password
+    private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error hashing password", e);
+        }
+    });
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     /**
      * Hashes the provided password using the SHA-256 algorithm.
      *
@@ -25,24 +40,16 @@ public class PasswordUtils {
      */
     @NotNull
     public static String hashPassword(@NotNull String password) {
-        try {
-            // Create a SHA-256 message digest instance
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashedBytes = digest.digest(password.getBytes(StandardCharsets.UTF_8));
-
-            // Convert the hashed bytes to a hexadecimal string
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hashedBytes) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
+        // digest() resets the digest, so the thread's instance is ready for the next call
+        byte[] hashedBytes = DIGESTS.get().digest(password.getBytes(StandardCharsets.UTF_8));
 
-            return hexString.toString();
-
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Error hashing password", e);
+        // Convert the hashed bytes to a hexadecimal string
+        char[] hex = new char[hashedBytes.length * 2];
+        for (int i = 0; i < hashedBytes.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(hashedBytes[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX_DIGITS[hashedBytes[i] & 0xf];
         }
+        return new String(hex);
     }
 
     /**
@@ -52,7 +59,7 @@ public class PasswordUtils {
      * @throws ValidationException if the password is null or fails format criteria
      */
     public static void checkPasswordFormat(@NotNull String password) throws ValidationException {
-        if (!Pattern.matches(PASSWORD_REGEX, password)) {
+        if (!PASSWORD_PATTERN.matcher(password).matches()) {
             throw new ValidationException("Invalid password format");
         }
     }
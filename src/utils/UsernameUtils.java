@@ -13,6 +13,9 @@ public class UsernameUtils {
     // Regular expression for validating username format (3 to 20 characters in [a-zA-z0-9._-])
     private static final String NAME_REGEX = "^[a-zA-Z0-9._-]{3,20}$";
 
+    // Compiled form of NAME_REGEX; Pattern is immutable, so it is shared by all threads
+    private static final Pattern NAME_PATTERN = Pattern.compile(NAME_REGEX);
+
     /**
      * Checks if the provided name follows the right format.
      *
@@ -23,7 +26,7 @@ public class UsernameUtils {
         if (name == null) {
             throw new ValidationException("Name must not be null");
         }
-        if (!Pattern.matches(NAME_REGEX, name)) {
+        if (!NAME_PATTERN.matcher(name).matches()) {
             throw new ValidationException("Invalid name format");
         }
     }